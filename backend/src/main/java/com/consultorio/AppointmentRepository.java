@@ -1,19 +1,133 @@
 package com.consultorio;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
+
+import org.hibernate.jpa.HibernateHints;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+
+// Las consultas corren en una transacción de solo lectura: en PostgreSQL los campos @Lob son
+// large objects (oid) y el driver no los lee en modo auto-commit
 @Repository
-public interface AppointmentRepository extends JpaRepository<Appointment, Long> {
+@Transactional(readOnly = true)
+public interface AppointmentRepository extends JpaRepository<Appointment, Long>, JpaSpecificationExecutor<Appointment> {
     List<Appointment> findByPacienteId(Long pacienteId);
     List<Appointment> findByPsicologoId(Long psicologoId);
     List<Appointment> findByEstado(String estado);
     List<Appointment> findByPagado(Boolean pagado);
+    List<Appointment> findByPacienteIdAndFechaHoraBetweenOrderByFechaHoraDesc(Long pacienteId, LocalDateTime desde,
+                                                                             LocalDateTime hasta);
+    
+    // Cursor para exportaciones: se recorre dentro de una transacción de solo lectura
+    @QueryHints({@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+                 @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")})
+    Stream<Appointment> streamByFechaHoraBetweenOrderByIdAsc(LocalDateTime desde, LocalDateTime hasta);
+    
+    // ============= PAGINACIÓN POR KEYSET =============
+    
+    Slice<Appointment> findByIdGreaterThanOrderByIdAsc(Long id, Pageable pageable);
+    
+    // Citas de un paciente ordenadas por (fechaHora, id): primera página y siguientes
+    Slice<Appointment> findByPacienteIdOrderByFechaHoraAscIdAsc(Long pacienteId, Pageable pageable);
+    
+    @Query("SELECT a FROM Appointment a WHERE a.pacienteId = :pacienteId " +
+           "AND (a.fechaHora > :fechaHora OR (a.fechaHora = :fechaHora AND a.id > :id)) " +
+           "ORDER BY a.fechaHora ASC, a.id ASC")
+    Slice<Appointment> findByPacienteIdAfter(@Param("pacienteId") Long pacienteId,
+                                             @Param("fechaHora") LocalDateTime fechaHora,
+                                             @Param("id") Long id, Pageable pageable);
+    
+    // Citas de un psicólogo ordenadas por (fechaHora, id): primera página y siguientes
+    Slice<Appointment> findByPsicologoIdOrderByFechaHoraAscIdAsc(Long psicologoId, Pageable pageable);
+    
+    @Query("SELECT a FROM Appointment a WHERE a.psicologoId = :psicologoId " +
+           "AND (a.fechaHora > :fechaHora OR (a.fechaHora = :fechaHora AND a.id > :id)) " +
+           "ORDER BY a.fechaHora ASC, a.id ASC")
+    Slice<Appointment> findByPsicologoIdAfter(@Param("psicologoId") Long psicologoId,
+                                              @Param("fechaHora") LocalDateTime fechaHora,
+                                              @Param("id") Long id, Pageable pageable);
+    
+    // Marca la cita como pagada sin cargarla; devuelve 0 si no existe o ya estaba pagada
+    @Modifying
+    @Transactional
+    @Query("UPDATE Appointment a SET a.pagado = true WHERE a.id = :id AND a.pagado = false")
+    int markPaid(@Param("id") Long id);
+    
+    // Citas aún no pagadas de un lote de pagos, bloqueadas hasta el fin de la transacción
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT a FROM Appointment a WHERE a.id IN :ids AND a.pagado = false")
+    List<Appointment> findUnpaidForUpdate(@Param("ids") Collection<Long> ids);
+    
+    // Horarios ocupados desde "desde", para el índice de reservas. Sin flush: dentro de
+    // una reserva no debe escribir cambios aún no validados de la transacción en curso
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FLUSH_MODE, value = "COMMIT"))
+    @Query("SELECT a.id AS id, a.psicologoId AS psicologoId, a.fechaHora AS fechaHora FROM Appointment a " +
+           "WHERE a.psicologoId = :psicologoId AND a.fechaHora >= :desde AND a.estado <> 'CANCELADA'")
+    List<HorarioOcupado> findHorariosOcupados(@Param("psicologoId") Long psicologoId,
+                                              @Param("desde") LocalDateTime desde);
+    
+    @Query("SELECT a.id AS id, a.psicologoId AS psicologoId, a.fechaHora AS fechaHora FROM Appointment a " +
+           "WHERE a.psicologoId IN :psicologoIds AND a.fechaHora >= :desde AND a.estado <> 'CANCELADA'")
+    List<HorarioOcupado> findHorariosOcupados(@Param("psicologoIds") Collection<Long> psicologoIds,
+                                              @Param("desde") LocalDateTime desde);
+    
+    // Horarios ocupados con inicio en (desde, hasta): ventanas anteriores al índice de reservas
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FLUSH_MODE, value = "COMMIT"))
+    @Query("SELECT a.id AS id, a.psicologoId AS psicologoId, a.fechaHora AS fechaHora FROM Appointment a " +
+           "WHERE a.psicologoId = :psicologoId AND a.fechaHora > :desde AND a.fechaHora < :hasta " +
+           "AND a.estado <> 'CANCELADA'")
+    List<HorarioOcupado> findHorariosOcupadosEntre(@Param("psicologoId") Long psicologoId,
+                                                   @Param("desde") LocalDateTime desde,
+                                                   @Param("hasta") LocalDateTime hasta);
+    
+    // ============= REPORTES AGREGADOS =============
+    
+    // Conteo y suma de precio agrupados por estado y pagado
+    @Query("SELECT a.estado AS estado, a.pagado AS pagado, COUNT(a) AS total, COALESCE(SUM(a.precio), 0.0) AS monto " +
+           "FROM Appointment a GROUP BY a.estado, a.pagado")
+    List<EstadoResumen> resumenPorEstadoYPagado();
+    
+    // Totales de citas por psicólogo (total, completadas e ingresos de citas pagadas)
+    @Query("SELECT a.psicologoId AS psicologoId, COUNT(a) AS totalCitas, " +
+           "SUM(CASE WHEN a.estado = 'COMPLETADA' THEN 1 ELSE 0 END) AS citasCompletadas, " +
+           "COALESCE(SUM(CASE WHEN a.pagado = true THEN a.precio ELSE 0.0 END), 0.0) AS ingresos " +
+           "FROM Appointment a GROUP BY a.psicologoId")
+    List<PsicologoResumen> resumenPorPsicologo();
+    
+    interface EstadoResumen {
+        String getEstado();
+        Boolean getPagado();
+        Long getTotal();
+        Double getMonto();
+    }
+    
+    interface PsicologoResumen {
+        Long getPsicologoId();
+        Long getTotalCitas();
+        Long getCitasCompletadas();
+        Double getIngresos();
+    }
+    
+    interface HorarioOcupado {
+        Long getId();
+        Long getPsicologoId();
+        LocalDateTime getFechaHora();
+    }
 }
-
-
-
-
-
@@ -0,0 +1,96 @@
+package com.consultorio;
+
+import java.time.LocalDateTime;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.PositiveOrZero;
+
+/**
+ * Cuerpos de las peticiones de citas, deserializados directamente por Jackson.
+ */
+public final class AppointmentRequests {
+
+    private AppointmentRequests() {
+    }
+
+    // POST /appointments y cada ítem de /appointments/batch
+    public static final class Crear {
+        @NotNull(message = "es obligatorio")
+        private Long pacienteId;
+
+        @NotNull(message = "es obligatorio")
+        private Long psicologoId;
+
+        @NotNull(message = "es obligatorio")
+        private LocalDateTime fechaHora;
+
+        @NotBlank(message = "es obligatorio")
+        private String modalidad;
+
+        @NotNull(message = "es obligatorio")
+        @PositiveOrZero(message = "no puede ser negativo")
+        private Double precio;
+
+        public Long getPacienteId() { return pacienteId; }
+        public void setPacienteId(Long pacienteId) { this.pacienteId = pacienteId; }
+
+        public Long getPsicologoId() { return psicologoId; }
+        public void setPsicologoId(Long psicologoId) { this.psicologoId = psicologoId; }
+
+        public LocalDateTime getFechaHora() { return fechaHora; }
+        public void setFechaHora(LocalDateTime fechaHora) { this.fechaHora = fechaHora; }
+
+        public String getModalidad() { return modalidad; }
+        public void setModalidad(String modalidad) { this.modalidad = modalidad; }
+
+        public Double getPrecio() { return precio; }
+        public void setPrecio(Double precio) { this.precio = precio; }
+
+        public Appointment toAppointment() {
+            Appointment appointment = new Appointment();
+            appointment.setPacienteId(pacienteId);
+            appointment.setPsicologoId(psicologoId);
+            appointment.setFechaHora(fechaHora);
+            appointment.setModalidad(modalidad);
+            appointment.setPrecio(precio);
+            appointment.setEstado("RESERVADA");
+            appointment.setPagado(false);
+            return appointment;
+        }
+    }
+
+    // PUT /appointments/{id}: solo se modifican los campos enviados
+    public static final class Actualizar extends PartialUpdate<Appointment> {
+        private static final int ESTADO = 0;
+        private static final int NOTAS = 1;
+        private static final int PAGADO = 2;
+        private static final int FECHA_HORA = 3;
+        private static final int MODALIDAD = 4;
+        private static final int PRECIO = 5;
+
+        private String estado;
+        private String notas;
+        private Boolean pagado;
+        private LocalDateTime fechaHora;
+        private String modalidad;
+        private Double precio;
+
+        public void setEstado(String estado) { this.estado = notNull("estado", estado); mark(ESTADO); }
+        public void setNotas(String notas) { this.notas = notas; mark(NOTAS); }
+        public void setPagado(Boolean pagado) { this.pagado = notNull("pagado", pagado); mark(PAGADO); }
+        public void setFechaHora(LocalDateTime fechaHora) { this.fechaHora = notNull("fechaHora", fechaHora); mark(FECHA_HORA); }
+        public void setModalidad(String modalidad) { this.modalidad = notNull("modalidad", modalidad); mark(MODALIDAD); }
+        public void setPrecio(Double precio) { this.precio = notNull("precio", precio); mark(PRECIO); }
+
+        @Override
+        public void applyTo(Appointment appointment) {
+            if (has(ESTADO)) appointment.setEstado(estado);
+            if (has(NOTAS)) appointment.setNotas(notas);
+            if (has(PAGADO)) appointment.setPagado(pagado);
+            if (has(FECHA_HORA)) appointment.setFechaHora(fechaHora);
+            if (has(MODALIDAD)) appointment.setModalidad(modalidad);
+            if (has(PRECIO)) appointment.setPrecio(precio);
+        }
+    }
+}
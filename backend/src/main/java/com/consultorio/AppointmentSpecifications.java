@@ -0,0 +1,72 @@
+package com.consultorio;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.data.jpa.domain.Specification;
+
+/**
+ * Filtros de búsqueda de citas. Solo los criterios informados se
+ * traducen a predicados SQL.
+ */
+public final class AppointmentSpecifications {
+
+    private AppointmentSpecifications() {}
+
+    public static Specification<Appointment> buscar(String estado, String modalidad, Long psicologoId,
+                                                    Long pacienteId, LocalDateTime desde, LocalDateTime hasta) {
+        List<Specification<Appointment>> filtros = new ArrayList<>();
+        if (estado != null && !estado.isEmpty()) {
+            filtros.add(conEstado(estado));
+        }
+        if (modalidad != null && !modalidad.isEmpty()) {
+            filtros.add(conModalidad(modalidad));
+        }
+        if (psicologoId != null) {
+            filtros.add(conPsicologo(psicologoId));
+        }
+        if (pacienteId != null) {
+            filtros.add(conPaciente(pacienteId));
+        }
+        if (desde != null) {
+            filtros.add(desde(desde));
+        }
+        if (hasta != null) {
+            filtros.add(hasta(hasta));
+        }
+        return Specification.allOf(filtros);
+    }
+
+    public static Specification<Appointment> conEstado(String estado) {
+        return (root, query, cb) -> cb.equal(root.get("estado"), estado);
+    }
+
+    public static Specification<Appointment> conModalidad(String modalidad) {
+        return (root, query, cb) -> cb.equal(root.get("modalidad"), modalidad);
+    }
+
+    public static Specification<Appointment> conPsicologo(Long psicologoId) {
+        return (root, query, cb) -> cb.equal(root.get("psicologoId"), psicologoId);
+    }
+
+    public static Specification<Appointment> conPaciente(Long pacienteId) {
+        return (root, query, cb) -> cb.equal(root.get("pacienteId"), pacienteId);
+    }
+
+    public static Specification<Appointment> desde(LocalDateTime fecha) {
+        return (root, query, cb) -> cb.greaterThanOrEqualTo(root.get("fechaHora"), fecha);
+    }
+
+    public static Specification<Appointment> hasta(LocalDateTime fecha) {
+        return (root, query, cb) -> cb.lessThanOrEqualTo(root.get("fechaHora"), fecha);
+    }
+
+    // Posición de keyset: citas posteriores a (fechaHora, id) del cursor
+    public static Specification<Appointment> despuesDe(KeysetCursor cursor) {
+        return (root, query, cb) -> cb.or(
+            cb.greaterThan(root.get("fechaHora"), cursor.getFecha()),
+            cb.and(cb.equal(root.get("fechaHora"), cursor.getFecha()),
+                   cb.greaterThan(root.get("id"), cursor.getId())));
+    }
+}
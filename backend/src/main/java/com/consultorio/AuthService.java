@@ -0,0 +1,153 @@
+package com.consultorio;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Login y hash de contraseñas. BCrypt es caro a propósito, así que corre en un pool
+ * propio y acotado: con un factor de trabajo alto las ráfagas de login esperan en
+ * esa cola (o se rechazan si se llena) en lugar de ocupar los hilos de Tomcat.
+ * Las contraseñas aún en texto plano se convierten a BCrypt en el primer login correcto.
+ */
+@Service
+public class AuthService {
+
+    private static final Logger log = LoggerFactory.getLogger(AuthService.class);
+
+    private final UserRepository userRepository;
+    private final UserCacheService userCacheService;
+    private final TokenService tokenService;
+    private final LastSeenBuffer lastSeenBuffer;
+    private final BCryptPasswordEncoder encoder;
+    private final ThreadPoolTaskExecutor executor;
+    // Pool aparte para las altas en lote: un lote largo no retrasa los logins
+    private final ThreadPoolTaskExecutor executorLotes;
+    // Hash de referencia para usernames inexistentes: la respuesta tarda lo mismo que con uno válido
+    private final String hashFicticio;
+
+    public AuthService(UserRepository userRepository, UserCacheService userCacheService, TokenService tokenService,
+                       LastSeenBuffer lastSeenBuffer,
+                       @Value("${app.auth.bcrypt-strength:10}") int factor,
+                       @Value("${app.auth.hash-threads:0}") int hilos,
+                       @Value("${app.auth.queue-capacity:200}") int capacidadCola) {
+        this.userRepository = userRepository;
+        this.userCacheService = userCacheService;
+        this.tokenService = tokenService;
+        this.lastSeenBuffer = lastSeenBuffer;
+        this.encoder = new BCryptPasswordEncoder(factor);
+        int tamano = hilos > 0 ? hilos : Runtime.getRuntime().availableProcessors();
+        this.executor = new ThreadPoolTaskExecutor();
+        this.executor.setCorePoolSize(tamano);
+        this.executor.setMaxPoolSize(tamano);
+        this.executor.setQueueCapacity(capacidadCola);
+        this.executor.setThreadNamePrefix("auth-");
+        this.executor.initialize();
+        this.executorLotes = new ThreadPoolTaskExecutor();
+        this.executorLotes.setCorePoolSize(Math.max(1, tamano / 2));
+        this.executorLotes.setMaxPoolSize(Math.max(1, tamano / 2));
+        this.executorLotes.setThreadNamePrefix("auth-lote-");
+        this.executorLotes.initialize();
+        this.hashFicticio = encoder.encode("consultorio");
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+        executorLotes.shutdown();
+    }
+
+    public static final class Login {
+        private final User user;
+        private final String token;
+
+        private Login(User user, String token) {
+            this.user = user;
+            this.token = token;
+        }
+
+        public User getUser() { return user; }
+        public String getToken() { return token; }
+    }
+
+    // Vacío si las credenciales no coinciden. Lanza TaskRejectedException si la cola del pool está llena.
+    public CompletableFuture<Optional<Login>> login(String username, String password) {
+        return CompletableFuture.supplyAsync(() -> authenticate(username, password), executor);
+    }
+
+    // Para altas de usuarios; se ejecuta en el mismo pool que el login
+    public CompletableFuture<String> hash(String password) {
+        return CompletableFuture.supplyAsync(() -> encoder.encode(password), executor);
+    }
+
+    // Altas en lote: una tarea por hilo del pool de lotes, ni la cola ni los hilos del login se tocan
+    public List<String> hashAll(List<String> passwords) {
+        int partes = Math.min(executorLotes.getMaxPoolSize(), passwords.size());
+        List<CompletableFuture<List<String>>> tareas = new ArrayList<>(partes);
+        for (int p = 0; p < partes; p++) {
+            List<String> parte = passwords.subList(p * passwords.size() / partes, (p + 1) * passwords.size() / partes);
+            tareas.add(CompletableFuture.supplyAsync(() -> {
+                List<String> hashes = new ArrayList<>(parte.size());
+                for (String password : parte) {
+                    hashes.add(encoder.encode(password));
+                }
+                return hashes;
+            }, executorLotes));
+        }
+        List<String> hashes = new ArrayList<>(passwords.size());
+        for (CompletableFuture<List<String>> tarea : tareas) {
+            hashes.addAll(tarea.join());
+        }
+        return hashes;
+    }
+
+    public static boolean isHashed(String password) {
+        return password != null && password.startsWith("$2") && password.length() == 60;
+    }
+
+    private Optional<Login> authenticate(String username, String password) {
+        if (username == null || password == null) {
+            return Optional.empty();
+        }
+        Optional<User> encontrado = userCacheService.findByUsername(username);
+        if (encontrado.isEmpty()) {
+            encoder.matches(password, hashFicticio);
+            return Optional.empty();
+        }
+        User user = encontrado.get();
+        String guardada = user.getPassword();
+        if (isHashed(guardada)) {
+            if (!encoder.matches(password, guardada)) {
+                return Optional.empty();
+            }
+        } else {
+            if (guardada == null || !MessageDigest.isEqual(guardada.getBytes(StandardCharsets.UTF_8),
+                                                           password.getBytes(StandardCharsets.UTF_8))) {
+                return Optional.empty();
+            }
+            userRepository.updatePassword(user.getId(), encoder.encode(password));
+            userCacheService.evict(user);
+            log.info("Contraseña del usuario {} migrada a BCrypt", user.getId());
+        }
+        // Se guarda en diferido junto con el resto de conexiones del intervalo
+        LocalDateTime ahora = LocalDateTime.now();
+        lastSeenBuffer.record(user.getId(), ahora);
+        // El usuario de la caché es compartido: la fecha nueva solo va en la copia de la respuesta
+        User respuesta = user.copia();
+        respuesta.setUltimaConexion(ahora);
+        return Optional.of(new Login(respuesta, tokenService.issue(respuesta)));
+    }
+}
@@ -0,0 +1,76 @@
+package com.consultorio;
+
+import java.io.IOException;
+import java.util.Optional;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Valida "Authorization: Bearer {token}" en /api/** y deja la sesión en el atributo
+ * SESION de la petición. Un token inválido o expirado es siempre 401; la ausencia de
+ * token solo lo es con app.auth.required=true (login, registro, verificación y fotos quedan
+ * libres: las etiquetas img no pueden enviar cabeceras).
+ */
+@Component
+public class AuthTokenFilter extends OncePerRequestFilter {
+
+    public static final String SESION = AuthTokenFilter.class.getName() + ".SESION";
+
+    private static final String BEARER = "Bearer ";
+
+    private final TokenService tokenService;
+    private final boolean requerido;
+
+    public AuthTokenFilter(TokenService tokenService, @Value("${app.auth.required:false}") boolean requerido) {
+        this.tokenService = tokenService;
+        this.requerido = requerido;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String ruta = request.getRequestURI().substring(request.getContextPath().length());
+        return !ruta.startsWith("/api/") || "OPTIONS".equals(request.getMethod());
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String cabecera = request.getHeader(HttpHeaders.AUTHORIZATION);
+        if (cabecera != null && cabecera.startsWith(BEARER)) {
+            Optional<TokenService.Sesion> sesion = tokenService.verify(cabecera.substring(BEARER.length()).trim());
+            if (sesion.isEmpty()) {
+                reject(response, "Token inválido o expirado");
+                return;
+            }
+            request.setAttribute(SESION, sesion.get());
+        } else if (requerido && !isPublic(request)) {
+            reject(response, "Se requiere iniciar sesión");
+            return;
+        }
+        chain.doFilter(request, response);
+    }
+
+    private boolean isPublic(HttpServletRequest request) {
+        String ruta = request.getRequestURI().substring(request.getContextPath().length());
+        return ruta.equals("/api/login") || ruta.equals("/api/test-data")
+            || ("POST".equals(request.getMethod()) && ruta.equals("/api/users"))
+            || ("GET".equals(request.getMethod()) && ruta.matches("/api/users/\\d+/photo/.+"));
+    }
+
+    private void reject(HttpServletResponse response, String mensaje) throws IOException {
+        response.setStatus(HttpStatus.UNAUTHORIZED.value());
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setCharacterEncoding("UTF-8");
+        response.getWriter().write("{\"error\":\"" + mensaje + "\"}");
+    }
+}
@@ -0,0 +1,110 @@
+package com.consultorio;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.stereotype.Service;
+
+/**
+ * Horarios libres de los psicólogos: bloques de atención (horarioAtencion) menos
+ * bloques ocupados (mapas de bits por día de ReservationService).
+ */
+@Service
+public class AvailabilityService {
+
+    private final UserCacheService userCacheService;
+    private final ReservationService reservationService;
+    // Pocos textos distintos de horario: se parsea cada uno una sola vez
+    private final Map<String, Optional<HorarioAtencion>> horarios = new ConcurrentHashMap<>();
+
+    public AvailabilityService(UserCacheService userCacheService, ReservationService reservationService) {
+        this.userCacheService = userCacheService;
+        this.reservationService = reservationService;
+    }
+
+    // Psicólogos activos (de la especialidad, si se indica) con sus horas libres por día en [desde, hasta]
+    public List<Map<String, Object>> search(LocalDate desde, LocalDate hasta, String especialidad) {
+        List<User> psicologos = new ArrayList<>();
+        for (User psicologo : userCacheService.findByRole("PSICOLOGO")) {
+            if (Boolean.FALSE.equals(psicologo.getActivo())) {
+                continue;
+            }
+            if (especialidad != null && !especialidad.isEmpty()
+                    && !especialidad.equalsIgnoreCase(psicologo.getEspecialidad())) {
+                continue;
+            }
+            psicologos.add(psicologo);
+        }
+        reservationService.ensureLoaded(psicologos.stream().map(User::getId).toList());
+
+        int bloquesSesion = (int) ((reservationService.getDuracion().toMinutes() + HorarioAtencion.MINUTOS_BLOQUE - 1)
+                                   / HorarioAtencion.MINUTOS_BLOQUE);
+        LocalDateTime ahora = LocalDateTime.now();
+        List<Map<String, Object>> resultado = new ArrayList<>();
+        for (User psicologo : psicologos) {
+            Optional<HorarioAtencion> horario = horarioOf(psicologo);
+            if (!horario.isPresent()) {
+                continue;
+            }
+            Map<String, List<String>> libres = new LinkedHashMap<>();
+            for (LocalDate dia = desde; !dia.isAfter(hasta); dia = dia.plusDays(1)) {
+                long atencion = horario.get().bloques(dia.getDayOfWeek());
+                if (atencion == 0) {
+                    continue;
+                }
+                long disponibles = atencion & ~reservationService.occupiedMask(psicologo.getId(), dia);
+                List<String> horas = freeStarts(disponibles, bloquesSesion, dia, ahora);
+                if (!horas.isEmpty()) {
+                    libres.put(dia.toString(), horas);
+                }
+            }
+            if (!libres.isEmpty()) {
+                Map<String, Object> item = new LinkedHashMap<>();
+                item.put("psicologoId", psicologo.getId());
+                item.put("nombre", psicologo.getNombre());
+                item.put("especialidad", psicologo.getEspecialidad());
+                item.put("tarifaConsulta", psicologo.getTarifaConsulta());
+                item.put("horarioAtencion", psicologo.getHorarioAtencion());
+                item.put("horasLibres", libres);
+                resultado.add(item);
+            }
+        }
+        return resultado;
+    }
+
+    // Inicios de sesión sin solaparse entre sí: se avanza sesión a sesión desde cada bloque libre
+    private List<String> freeStarts(long disponibles, int bloquesSesion, LocalDate dia, LocalDateTime ahora) {
+        long inicios = disponibles;
+        for (int i = 1; i < bloquesSesion; i++) {
+            inicios &= disponibles >>> i;
+        }
+        List<String> horas = new ArrayList<>();
+        int bloque = 0;
+        while (bloque < HorarioAtencion.BLOQUES_POR_DIA) {
+            if ((inicios & (1L << bloque)) == 0) {
+                bloque++;
+                continue;
+            }
+            LocalDateTime inicio = dia.atTime(HorarioAtencion.horaDeBloque(bloque));
+            if (inicio.isAfter(ahora)) {
+                horas.add(HorarioAtencion.horaDeBloque(bloque).toString());
+            }
+            bloque += bloquesSesion;
+        }
+        return horas;
+    }
+
+    private Optional<HorarioAtencion> horarioOf(User psicologo) {
+        String texto = psicologo.getHorarioAtencion();
+        if (texto == null) {
+            return Optional.empty();
+        }
+        return horarios.computeIfAbsent(texto, HorarioAtencion::parse);
+    }
+}
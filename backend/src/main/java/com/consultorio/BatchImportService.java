@@ -0,0 +1,352 @@
+package com.consultorio;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+
+/**
+ * Altas en lote de citas, pagos y usuarios. Los ítems se validan uno a uno y los
+ * válidos se guardan en transacciones de hasta ITEMS_POR_TRANSACCION filas; con ids
+ * por secuencia Hibernate envía los INSERT en lotes JDBC (hibernate.jdbc.batch_size).
+ * Cada ítem recibe su propio resultado: id creado o motivo del rechazo.
+ */
+@Service
+public class BatchImportService {
+
+    private static final Logger log = LoggerFactory.getLogger(BatchImportService.class);
+
+    private static final int ITEMS_POR_TRANSACCION = 500;
+
+    private final AppointmentRepository appointmentRepository;
+    private final PaymentRepository paymentRepository;
+    private final UserRepository userRepository;
+    private final UserCacheService userCacheService;
+    private final ReservationService reservationService;
+    private final PaymentService paymentService;
+    private final PsychologistStatsService psychologistStatsService;
+    private final AuthService authService;
+    private final TransactionTemplate transaction;
+    private final Validator validator;
+    private final int maxItems;
+
+    public BatchImportService(AppointmentRepository appointmentRepository, PaymentRepository paymentRepository,
+                              UserRepository userRepository, UserCacheService userCacheService,
+                              ReservationService reservationService, PaymentService paymentService,
+                              PsychologistStatsService psychologistStatsService, AuthService authService,
+                              PlatformTransactionManager transactionManager, Validator validator,
+                              @Value("${app.batch.max-items:5000}") int maxItems) {
+        this.appointmentRepository = appointmentRepository;
+        this.paymentRepository = paymentRepository;
+        this.userRepository = userRepository;
+        this.userCacheService = userCacheService;
+        this.reservationService = reservationService;
+        this.paymentService = paymentService;
+        this.psychologistStatsService = psychologistStatsService;
+        this.authService = authService;
+        this.transaction = new TransactionTemplate(transactionManager);
+        this.validator = validator;
+        this.maxItems = maxItems;
+    }
+
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public static final class ItemResultado {
+        private final int indice;
+        private Long id;
+        private Boolean repetido;
+        private String error;
+
+        private ItemResultado(int indice) {
+            this.indice = indice;
+        }
+
+        public int getIndice() { return indice; }
+        public Long getId() { return id; }
+        // Solo pagos: la idempotencyKey ya tenía un pago y no se creó otro
+        public Boolean getRepetido() { return repetido; }
+        public String getError() { return error; }
+
+        private void ok(Long id) {
+            this.id = id;
+        }
+
+        private void fail(String error) {
+            this.id = null;
+            this.repetido = null;
+            this.error = error;
+        }
+    }
+
+    public static final class Resumen {
+        private final List<ItemResultado> resultados;
+
+        private Resumen(List<ItemResultado> resultados) {
+            this.resultados = resultados;
+        }
+
+        public long getCreados() {
+            return resultados.stream().filter(r -> r.error == null && r.repetido == null).count();
+        }
+
+        public long getErrores() {
+            return resultados.stream().filter(r -> r.error != null).count();
+        }
+
+        public List<ItemResultado> getResultados() { return resultados; }
+    }
+
+    // ============= CITAS =============
+
+    public Resumen createAppointments(List<AppointmentRequests.Crear> items) {
+        checkSize(items);
+        List<ItemResultado> resultados = newResults(items.size());
+        List<Appointment> citas = new ArrayList<>();
+        List<ItemResultado> pendientes = new ArrayList<>();
+
+        for (int i = 0; i < items.size(); i++) {
+            try {
+                citas.add(toAppointment(items.get(i)));
+                pendientes.add(resultados.get(i));
+            } catch (IllegalArgumentException e) {
+                resultados.get(i).fail(e.getMessage());
+            }
+        }
+
+        forEachChunk(citas, pendientes, (lote, estados) -> {
+            List<PsychologistStatsService.Snapshot> antes = new ArrayList<>();
+            List<PsychologistStatsService.Snapshot> despues = new ArrayList<>();
+            for (int i = 0; i < lote.size(); i++) {
+                try {
+                    Appointment saved = reservationService.reserve(null, lote.get(i), appointmentRepository::save);
+                    antes.add(null);
+                    despues.add(PsychologistStatsService.Snapshot.of(saved));
+                    estados.get(i).ok(saved.getId());
+                } catch (ReservationService.ConflictoHorarioException e) {
+                    estados.get(i).fail(e.getMessage());
+                }
+            }
+            // Las estadísticas se actualizan al final para no interrumpir el lote de INSERTs
+            psychologistStatsService.recordAll(antes, despues);
+        });
+        return new Resumen(resultados);
+    }
+
+    private Appointment toAppointment(AppointmentRequests.Crear data) {
+        Appointment appointment = validated(data).toAppointment();
+        Optional<User> paciente = userCacheService.findById(appointment.getPacienteId());
+        Optional<User> psicologo = userCacheService.findById(appointment.getPsicologoId());
+        if (paciente.isEmpty() || psicologo.isEmpty()) {
+            throw new IllegalArgumentException("Paciente o psicólogo inexistente");
+        }
+        appointment.setNombrePaciente(paciente.get().getNombre());
+        appointment.setNombrePsicologo(psicologo.get().getNombre());
+        return appointment;
+    }
+
+    // ============= PAGOS =============
+
+    public Resumen createPayments(List<PaymentRequests.Crear> items) {
+        checkSize(items);
+        List<ItemResultado> resultados = newResults(items.size());
+        List<Payment> pagos = new ArrayList<>();
+        List<ItemResultado> pendientes = new ArrayList<>();
+        Set<String> clavesDelLote = new HashSet<>();
+
+        for (int i = 0; i < items.size(); i++) {
+            try {
+                PaymentRequests.Crear data = validated(items.get(i));
+                Payment payment = data.toPayment();
+                payment.setIdempotencyKey(data.getIdempotencyKey());
+                if (payment.getIdempotencyKey() != null && !clavesDelLote.add(payment.getIdempotencyKey())) {
+                    resultados.get(i).fail("idempotencyKey repetida dentro del lote");
+                    continue;
+                }
+                pagos.add(payment);
+                pendientes.add(resultados.get(i));
+            } catch (IllegalArgumentException e) {
+                resultados.get(i).fail(e.getMessage());
+            }
+        }
+
+        // Reintentos de un lote anterior: se devuelve el pago ya creado en lugar de duplicarlo
+        Map<String, Payment> existentes = new HashMap<>();
+        if (!clavesDelLote.isEmpty()) {
+            for (Payment p : paymentRepository.findByIdempotencyKeyIn(clavesDelLote)) {
+                existentes.put(p.getIdempotencyKey(), p);
+            }
+        }
+        List<Payment> nuevos = new ArrayList<>();
+        List<ItemResultado> nuevosEstados = new ArrayList<>();
+        for (int i = 0; i < pagos.size(); i++) {
+            Payment payment = pagos.get(i);
+            Payment existente = payment.getIdempotencyKey() != null ? existentes.get(payment.getIdempotencyKey()) : null;
+            if (existente == null) {
+                nuevos.add(payment);
+                nuevosEstados.add(pendientes.get(i));
+            } else if (existente.getAppointmentId().equals(payment.getAppointmentId())) {
+                pendientes.get(i).ok(existente.getId());
+                pendientes.get(i).repetido = true;
+            } else {
+                pendientes.get(i).fail("La idempotencyKey ya se usó para el pago de otra cita");
+            }
+        }
+
+        forEachChunk(nuevos, nuevosEstados, (lote, estados) -> {
+            Set<Long> citaIds = new LinkedHashSet<>();
+            for (int i = 0; i < lote.size(); i++) {
+                Payment payment = lote.get(i);
+                payment.setNumeroTransaccion(paymentService.nextTransactionNumber());
+                estados.get(i).ok(paymentRepository.save(payment).getId());
+                citaIds.add(payment.getAppointmentId());
+            }
+            // Las citas se marcan pagadas con UPDATEs agrupados y los ingresos se suman una vez por psicólogo
+            List<PsychologistStatsService.Snapshot> antes = new ArrayList<>();
+            List<PsychologistStatsService.Snapshot> despues = new ArrayList<>();
+            for (Appointment cita : appointmentRepository.findUnpaidForUpdate(citaIds)) {
+                antes.add(PsychologistStatsService.Snapshot.of(cita));
+                cita.setPagado(true);
+                despues.add(PsychologistStatsService.Snapshot.of(cita));
+            }
+            psychologistStatsService.recordAll(antes, despues);
+        });
+        return new Resumen(resultados);
+    }
+
+    // ============= USUARIOS =============
+
+    public Resumen createUsers(List<User> items) {
+        checkSize(items);
+        List<ItemResultado> resultados = newResults(items.size());
+        Set<String> usernames = new HashSet<>();
+        for (User user : items) {
+            if (user != null && user.getUsername() != null) {
+                usernames.add(user.getUsername());
+            }
+        }
+        Set<String> registrados = usernames.isEmpty()
+            ? Set.of() : new HashSet<>(userRepository.findExistingUsernames(usernames));
+
+        List<User> usuarios = new ArrayList<>();
+        List<ItemResultado> pendientes = new ArrayList<>();
+        Set<String> delLote = new HashSet<>();
+        for (int i = 0; i < items.size(); i++) {
+            User user = items.get(i);
+            String error = validate(user);
+            if (error == null && registrados.contains(user.getUsername())) {
+                error = "El username ya existe";
+            } else if (error == null && !delLote.add(user.getUsername())) {
+                error = "Username repetido dentro del lote";
+            }
+            if (error != null) {
+                resultados.get(i).fail(error);
+                continue;
+            }
+            user.setId(null);
+            usuarios.add(user);
+            pendientes.add(resultados.get(i));
+        }
+
+        List<String> hashes = authService.hashAll(usuarios.stream().map(User::getPassword).toList());
+        for (int i = 0; i < usuarios.size(); i++) {
+            usuarios.get(i).setPassword(hashes.get(i));
+        }
+
+        forEachChunk(usuarios, pendientes, (lote, estados) -> {
+            for (int i = 0; i < lote.size(); i++) {
+                estados.get(i).ok(userRepository.save(lote.get(i)).getId());
+            }
+        });
+        // Altas de psicólogos cambian el listado cacheado por rol
+        for (User user : usuarios) {
+            userCacheService.evict(user);
+        }
+        return new Resumen(resultados);
+    }
+
+    private String validate(User user) {
+        if (user == null) {
+            return "Usuario vacío";
+        }
+        if (isBlank(user.getUsername()) || isBlank(user.getPassword()) || isBlank(user.getEmail())
+                || isBlank(user.getRole()) || isBlank(user.getNombre())) {
+            return "username, password, email, role y nombre son obligatorios";
+        }
+        return null;
+    }
+
+    // ============= UTILIDADES =============
+
+    private interface Lote<T> {
+        void save(List<T> items, List<ItemResultado> estados);
+    }
+
+    // Una transacción por bloque; si el bloque falla al confirmarse, todos sus ítems quedan con error
+    private <T> void forEachChunk(List<T> items, List<ItemResultado> estados, Lote<T> lote) {
+        for (int desde = 0; desde < items.size(); desde += ITEMS_POR_TRANSACCION) {
+            int hasta = Math.min(desde + ITEMS_POR_TRANSACCION, items.size());
+            List<ItemResultado> bloque = estados.subList(desde, hasta);
+            List<T> elementos = items.subList(desde, hasta);
+            try {
+                transaction.executeWithoutResult(status -> lote.save(elementos, bloque));
+            } catch (RuntimeException e) {
+                log.warn("Bloque de {} ítems revertido: {}", elementos.size(), e.getMessage());
+                for (ItemResultado resultado : bloque) {
+                    if (resultado.error == null) {
+                        resultado.fail("Bloque revertido: " + NestedExceptionUtils.getMostSpecificCause(e).getMessage());
+                    }
+                }
+            }
+        }
+    }
+
+    private void checkSize(List<?> items) {
+        if (items == null || items.isEmpty()) {
+            throw new IllegalArgumentException("El lote está vacío");
+        }
+        if (items.size() > maxItems) {
+            throw new IllegalArgumentException("El lote supera el máximo de " + maxItems + " ítems");
+        }
+    }
+
+    private static List<ItemResultado> newResults(int size) {
+        List<ItemResultado> resultados = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            resultados.add(new ItemResultado(i));
+        }
+        return resultados;
+    }
+
+    // Mismas restricciones que POST /appointments y POST /payments, pero por ítem
+    private <T> T validated(T item) {
+        if (item == null) {
+            throw new IllegalArgumentException("Ítem vacío");
+        }
+        Set<ConstraintViolation<T>> violaciones = validator.validate(item);
+        if (!violaciones.isEmpty()) {
+            ConstraintViolation<T> v = violaciones.iterator().next();
+            throw new IllegalArgumentException(v.getPropertyPath() + ": " + v.getMessage());
+        }
+        return item;
+    }
+
+    private static boolean isBlank(String valor) {
+        return valor == null || valor.isBlank();
+    }
+}
@@ -0,0 +1,10 @@
+package com.consultorio;
+
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.context.annotation.Configuration;
+
+// Cachés Caffeine configuradas con spring.cache.* en application.properties
+@Configuration
+@EnableCaching
+public class CacheConfig {
+}
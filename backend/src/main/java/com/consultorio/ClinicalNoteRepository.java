@@ -2,13 +2,27 @@ package com.consultorio;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import org.hibernate.jpa.HibernateHints;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import jakarta.persistence.QueryHint;
+
+// Las consultas corren en una transacción de solo lectura: en PostgreSQL los campos @Lob son
+// large objects (oid) y el driver no los lee en modo auto-commit
 @Repository
+@Transactional(readOnly = true)
 public interface ClinicalNoteRepository extends JpaRepository<ClinicalNote, Long> {
     
     // Buscar notas por paciente (historial completo)
@@ -29,12 +43,35 @@ public interface ClinicalNoteRepository extends JpaRepository<ClinicalNote, Long
     // Buscar notas por rango de fechas
     List<ClinicalNote> findByFechaCreacionBetween(LocalDateTime fechaInicio, LocalDateTime fechaFin);
     
+    // Cursor para exportaciones: se recorre dentro de una transacción de solo lectura
+    @QueryHints({@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+                 @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")})
+    Stream<ClinicalNote> streamByFechaCreacionBetweenOrderByIdAsc(LocalDateTime desde, LocalDateTime hasta);
+    
     // Buscar notas por paciente y psicólogo (historial de tratamiento)
     List<ClinicalNote> findByPacienteIdAndPsicologoIdOrderByFechaCreacionDesc(Long pacienteId, Long psicologoId);
     
-    // Obtener última nota de un paciente
-    @Query("SELECT cn FROM ClinicalNote cn WHERE cn.pacienteId = :pacienteId ORDER BY cn.fechaCreacion DESC")
-    List<ClinicalNote> findLatestNoteByPacienteId(@Param("pacienteId") Long pacienteId);
+    // Obtener última nota de un paciente (LIMIT 1 sobre el índice paciente_id, fecha_creacion)
+    Optional<ClinicalNote> findFirstByPacienteIdOrderByFechaCreacionDesc(Long pacienteId);
+    
+    // Columnas de NotaResumen: todo menos los campos LOB
+    String RESUMEN_SELECT = "SELECT cn.id AS id, cn.appointmentId AS appointmentId, cn.pacienteId AS pacienteId, " +
+           "cn.psicologoId AS psicologoId, cn.fechaCreacion AS fechaCreacion, cn.tipoNota AS tipoNota, " +
+           "cn.estadoEmocional AS estadoEmocional, cn.nivelFuncionalidad AS nivelFuncionalidad, " +
+           "cn.sesionNumero AS sesionNumero, cn.requiereSeguimiento AS requiereSeguimiento, " +
+           "cn.proximaRevision AS proximaRevision, cn.nombrePaciente AS nombrePaciente, " +
+           "cn.nombrePsicologo AS nombrePsicologo, cn.modalidadSesion AS modalidadSesion ";
+    
+    // Últimas N notas como resumen, sin cargar las columnas LOB
+    @Query(RESUMEN_SELECT + "FROM ClinicalNote cn ORDER BY cn.fechaCreacion DESC, cn.id DESC")
+    List<NotaResumen> findRecentSummaries(Pageable pageable);
+    
+    // Resumen de las notas de un paciente en una ventana de tiempo (el contenido se pide con /clinical-notes/{id})
+    @Query(RESUMEN_SELECT + "FROM ClinicalNote cn WHERE cn.pacienteId = :pacienteId " +
+           "AND cn.fechaCreacion BETWEEN :desde AND :hasta ORDER BY cn.fechaCreacion DESC, cn.id DESC")
+    List<NotaResumen> findSummariesByPacienteId(@Param("pacienteId") Long pacienteId,
+                                                @Param("desde") LocalDateTime desde,
+                                                @Param("hasta") LocalDateTime hasta);
     
     // Contar notas por paciente
     Long countByPacienteId(Long pacienteId);
@@ -45,20 +82,54 @@ public interface ClinicalNoteRepository extends JpaRepository<ClinicalNote, Long
     
     // Buscar notas por estado emocional
     List<ClinicalNote> findByEstadoEmocional(String estadoEmocional);
+    
+    // ============= PAGINACIÓN POR KEYSET =============
+    
+    Slice<ClinicalNote> findByIdGreaterThanOrderByIdAsc(Long id, Pageable pageable);
+    
+    // Notas de un paciente de la más reciente a la más antigua: primera página y siguientes
+    Slice<ClinicalNote> findByPacienteIdOrderByFechaCreacionDescIdDesc(Long pacienteId, Pageable pageable);
+    
+    @Query("SELECT cn FROM ClinicalNote cn WHERE cn.pacienteId = :pacienteId " +
+           "AND (cn.fechaCreacion < :fechaCreacion OR (cn.fechaCreacion = :fechaCreacion AND cn.id < :id)) " +
+           "ORDER BY cn.fechaCreacion DESC, cn.id DESC")
+    Slice<ClinicalNote> findByPacienteIdBefore(@Param("pacienteId") Long pacienteId,
+                                               @Param("fechaCreacion") LocalDateTime fechaCreacion,
+                                               @Param("id") Long id, Pageable pageable);
+    
+    // Notas de un psicólogo de la más reciente a la más antigua: primera página y siguientes
+    Slice<ClinicalNote> findByPsicologoIdOrderByFechaCreacionDescIdDesc(Long psicologoId, Pageable pageable);
+    
+    @Query("SELECT cn FROM ClinicalNote cn WHERE cn.psicologoId = :psicologoId " +
+           "AND (cn.fechaCreacion < :fechaCreacion OR (cn.fechaCreacion = :fechaCreacion AND cn.id < :id)) " +
+           "ORDER BY cn.fechaCreacion DESC, cn.id DESC")
+    Slice<ClinicalNote> findByPsicologoIdBefore(@Param("psicologoId") Long psicologoId,
+                                                @Param("fechaCreacion") LocalDateTime fechaCreacion,
+                                                @Param("id") Long id, Pageable pageable);
+    
+    // Contar notas agrupadas por psicólogo
+    @Query("SELECT cn.psicologoId AS psicologoId, COUNT(cn) AS total FROM ClinicalNote cn GROUP BY cn.psicologoId")
+    List<PsicologoNotas> countGroupByPsicologo();
+    
+    interface NotaResumen {
+        Long getId();
+        Long getAppointmentId();
+        Long getPacienteId();
+        Long getPsicologoId();
+        LocalDateTime getFechaCreacion();
+        String getTipoNota();
+        String getEstadoEmocional();
+        String getNivelFuncionalidad();
+        Integer getSesionNumero();
+        Boolean getRequiereSeguimiento();
+        LocalDateTime getProximaRevision();
+        String getNombrePaciente();
+        String getNombrePsicologo();
+        String getModalidadSesion();
+    }
+    
+    interface PsicologoNotas {
+        Long getPsicologoId();
+        Long getTotal();
+    }
 }
-
-
-
-
-
-
-
-
-
-
-
-
-
-
-
-
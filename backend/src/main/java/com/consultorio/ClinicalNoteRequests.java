@@ -0,0 +1,149 @@
+package com.consultorio;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+
+/**
+ * Cuerpos de las peticiones de notas clínicas, deserializados directamente por Jackson.
+ */
+public final class ClinicalNoteRequests {
+
+    private ClinicalNoteRequests() {
+    }
+
+    // POST /clinical-notes; appointmentId es null para notas independientes
+    public static final class Crear {
+        private Long appointmentId;
+
+        @NotNull(message = "es obligatorio")
+        private Long pacienteId;
+
+        @NotNull(message = "es obligatorio")
+        private Long psicologoId;
+
+        @NotBlank(message = "es obligatorio")
+        private String tipoNota;
+
+        @NotBlank(message = "es obligatorio")
+        private String contenido;
+
+        @NotNull(message = "es obligatorio")
+        private String nombrePaciente;
+
+        @NotNull(message = "es obligatorio")
+        private String nombrePsicologo;
+
+        @NotNull(message = "es obligatorio")
+        private String modalidadSesion;
+
+        private String observacionesGenerales;
+        private String planTratamiento;
+        private String tareasPaciente;
+        private String estadoEmocional;
+        private String nivelFuncionalidad;
+        private Integer sesionNumero;
+        private Boolean requiereSeguimiento;
+
+        public Long getAppointmentId() { return appointmentId; }
+        public void setAppointmentId(Long appointmentId) { this.appointmentId = appointmentId; }
+
+        public Long getPacienteId() { return pacienteId; }
+        public void setPacienteId(Long pacienteId) { this.pacienteId = pacienteId; }
+
+        public Long getPsicologoId() { return psicologoId; }
+        public void setPsicologoId(Long psicologoId) { this.psicologoId = psicologoId; }
+
+        public String getTipoNota() { return tipoNota; }
+        public void setTipoNota(String tipoNota) { this.tipoNota = tipoNota; }
+
+        public String getContenido() { return contenido; }
+        public void setContenido(String contenido) { this.contenido = contenido; }
+
+        public String getNombrePaciente() { return nombrePaciente; }
+        public void setNombrePaciente(String nombrePaciente) { this.nombrePaciente = nombrePaciente; }
+
+        public String getNombrePsicologo() { return nombrePsicologo; }
+        public void setNombrePsicologo(String nombrePsicologo) { this.nombrePsicologo = nombrePsicologo; }
+
+        public String getModalidadSesion() { return modalidadSesion; }
+        public void setModalidadSesion(String modalidadSesion) { this.modalidadSesion = modalidadSesion; }
+
+        public String getObservacionesGenerales() { return observacionesGenerales; }
+        public void setObservacionesGenerales(String observacionesGenerales) { this.observacionesGenerales = observacionesGenerales; }
+
+        public String getPlanTratamiento() { return planTratamiento; }
+        public void setPlanTratamiento(String planTratamiento) { this.planTratamiento = planTratamiento; }
+
+        public String getTareasPaciente() { return tareasPaciente; }
+        public void setTareasPaciente(String tareasPaciente) { this.tareasPaciente = tareasPaciente; }
+
+        public String getEstadoEmocional() { return estadoEmocional; }
+        public void setEstadoEmocional(String estadoEmocional) { this.estadoEmocional = estadoEmocional; }
+
+        public String getNivelFuncionalidad() { return nivelFuncionalidad; }
+        public void setNivelFuncionalidad(String nivelFuncionalidad) { this.nivelFuncionalidad = nivelFuncionalidad; }
+
+        public Integer getSesionNumero() { return sesionNumero; }
+        public void setSesionNumero(Integer sesionNumero) { this.sesionNumero = sesionNumero; }
+
+        public Boolean getRequiereSeguimiento() { return requiereSeguimiento; }
+        public void setRequiereSeguimiento(Boolean requiereSeguimiento) { this.requiereSeguimiento = requiereSeguimiento; }
+
+        public ClinicalNote toClinicalNote() {
+            ClinicalNote note = new ClinicalNote();
+            note.setAppointmentId(appointmentId);
+            note.setPacienteId(pacienteId);
+            note.setPsicologoId(psicologoId);
+            note.setTipoNota(tipoNota);
+            note.setContenido(contenido);
+            note.setNombrePaciente(nombrePaciente);
+            note.setNombrePsicologo(nombrePsicologo);
+            note.setModalidadSesion(modalidadSesion);
+            note.setObservacionesGenerales(observacionesGenerales);
+            note.setPlanTratamiento(planTratamiento);
+            note.setTareasPaciente(tareasPaciente);
+            note.setEstadoEmocional(estadoEmocional);
+            note.setNivelFuncionalidad(nivelFuncionalidad);
+            note.setSesionNumero(sesionNumero);
+            // Sin valor se conserva el false por defecto de la entidad
+            if (requiereSeguimiento != null) {
+                note.setRequiereSeguimiento(requiereSeguimiento);
+            }
+            return note;
+        }
+    }
+
+    // PUT /clinical-notes/{id}: solo se modifican los campos enviados
+    public static final class Actualizar extends PartialUpdate<ClinicalNote> {
+        private static final int CONTENIDO = 0;
+        private static final int OBSERVACIONES_GENERALES = 1;
+        private static final int PLAN_TRATAMIENTO = 2;
+        private static final int TAREAS_PACIENTE = 3;
+        private static final int ESTADO_EMOCIONAL = 4;
+        private static final int REQUIERE_SEGUIMIENTO = 5;
+
+        private String contenido;
+        private String observacionesGenerales;
+        private String planTratamiento;
+        private String tareasPaciente;
+        private String estadoEmocional;
+        private Boolean requiereSeguimiento;
+
+        public void setContenido(String contenido) { this.contenido = notNull("contenido", contenido); mark(CONTENIDO); }
+        public void setObservacionesGenerales(String observacionesGenerales) { this.observacionesGenerales = observacionesGenerales; mark(OBSERVACIONES_GENERALES); }
+        public void setPlanTratamiento(String planTratamiento) { this.planTratamiento = planTratamiento; mark(PLAN_TRATAMIENTO); }
+        public void setTareasPaciente(String tareasPaciente) { this.tareasPaciente = tareasPaciente; mark(TAREAS_PACIENTE); }
+        public void setEstadoEmocional(String estadoEmocional) { this.estadoEmocional = estadoEmocional; mark(ESTADO_EMOCIONAL); }
+        public void setRequiereSeguimiento(Boolean requiereSeguimiento) { this.requiereSeguimiento = notNull("requiereSeguimiento", requiereSeguimiento); mark(REQUIERE_SEGUIMIENTO); }
+
+        @Override
+        public void applyTo(ClinicalNote note) {
+            if (has(CONTENIDO)) note.setContenido(contenido);
+            if (has(OBSERVACIONES_GENERALES)) note.setObservacionesGenerales(observacionesGenerales);
+            if (has(PLAN_TRATAMIENTO)) note.setPlanTratamiento(planTratamiento);
+            if (has(TAREAS_PACIENTE)) note.setTareasPaciente(tareasPaciente);
+            if (has(ESTADO_EMOCIONAL)) note.setEstadoEmocional(estadoEmocional);
+            if (has(REQUIERE_SEGUIMIENTO)) note.setRequiereSeguimiento(requiereSeguimiento);
+        }
+    }
+}
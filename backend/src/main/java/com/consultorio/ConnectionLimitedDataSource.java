@@ -0,0 +1,102 @@
+package com.consultorio;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import javax.sql.DataSource;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+/**
+ * Limita las conexiones en uso a un número de permisos (el tamaño del pool) con un
+ * semáforo justo. Con hilos virtuales puede haber miles de peticiones pidiendo conexión
+ * a la vez: esperan aquí en orden de llegada, sin ocupar un hilo de plataforma y sin
+ * agotar el connection-timeout de Hikari. El permiso se devuelve al cerrar la conexión.
+ */
+public class ConnectionLimitedDataSource extends DelegatingDataSource {
+
+    private final Semaphore permisos;
+    private final long esperaNanos;
+
+    public ConnectionLimitedDataSource(DataSource destino, int maximo, Duration espera) {
+        super(destino);
+        this.permisos = new Semaphore(maximo, true);
+        this.esperaNanos = espera.toNanos();
+    }
+
+    public int getEnEspera() {
+        return permisos.getQueueLength();
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        acquire();
+        try {
+            return tracked(super.getConnection());
+        } catch (SQLException | RuntimeException e) {
+            permisos.release();
+            throw e;
+        }
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        acquire();
+        try {
+            return tracked(super.getConnection(username, password));
+        } catch (SQLException | RuntimeException e) {
+            permisos.release();
+            throw e;
+        }
+    }
+
+    private void acquire() throws SQLException {
+        try {
+            if (!permisos.tryAcquire(esperaNanos, TimeUnit.NANOSECONDS)) {
+                throw new SQLTransientConnectionException("No hay conexión disponible tras " +
+                    TimeUnit.NANOSECONDS.toMillis(esperaNanos) + " ms (" + permisos.getQueueLength() + " en espera)");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLTransientConnectionException("Interrumpido esperando una conexión", e);
+        }
+    }
+
+    // Devuelve el permiso en el primer close()
+    private Connection tracked(Connection conexion) {
+        InvocationHandler handler = new InvocationHandler() {
+            private boolean cerrada;
+
+            @Override
+            public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                String nombre = method.getName();
+                if (nombre.equals("equals") && method.getParameterCount() == 1) {
+                    return proxy == args[0];
+                }
+                if (nombre.equals("hashCode") && method.getParameterCount() == 0) {
+                    return System.identityHashCode(proxy);
+                }
+                try {
+                    return method.invoke(conexion, args);
+                } catch (InvocationTargetException e) {
+                    throw e.getCause();
+                } finally {
+                    if (nombre.equals("close") && !cerrada) {
+                        cerrada = true;
+                        permisos.release();
+                    }
+                }
+            }
+        };
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[] { Connection.class },
+                                                   handler);
+    }
+}
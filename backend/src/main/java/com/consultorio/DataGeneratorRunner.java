@@ -0,0 +1,61 @@
+package com.consultorio;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.annotation.Profile;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Comando de generación de datos sintéticos. Se activa con el perfil "generate":
+ *
+ * java -jar target/consultorio-backend-1.0.0.jar --spring.profiles.active=prod,generate \
+ *      --app.generator.pacientes=500000 --app.generator.citas=10000000
+ *
+ * Al terminar cierra la aplicación.
+ */
+@Component
+@Profile("generate")
+public class DataGeneratorRunner implements CommandLineRunner {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final PsychologistStatsService psychologistStatsService;
+    private final ReservationService reservationService;
+    private final ApplicationContext context;
+
+    @Value("${app.generator.psicologos:1000}")
+    private int psicologos;
+
+    @Value("${app.generator.pacientes:500000}")
+    private int pacientes;
+
+    @Value("${app.generator.citas:10000000}")
+    private long citas;
+
+    @Value("${app.generator.batch-size:1000}")
+    private int batchSize;
+
+    @Value("${app.generator.hilos:4}")
+    private int hilos;
+
+    @Value("${app.generator.semilla:42}")
+    private long semilla;
+
+    public DataGeneratorRunner(JdbcTemplate jdbcTemplate, PsychologistStatsService psychologistStatsService,
+                               ReservationService reservationService, ApplicationContext context) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.psychologistStatsService = psychologistStatsService;
+        this.reservationService = reservationService;
+        this.context = context;
+    }
+
+    @Override
+    public void run(String... args) {
+        new SyntheticDataGenerator(jdbcTemplate, batchSize, hilos).generate(psicologos, pacientes, citas, semilla);
+        psychologistStatsService.rebuild();
+        reservationService.invalidate();
+        System.exit(SpringApplication.exit(context, () -> 0));
+    }
+}
@@ -0,0 +1,65 @@
+package com.consultorio;
+
+import java.time.Duration;
+
+import javax.sql.DataSource;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.repository.core.support.RepositoryFactoryBeanSupport;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+// Latencia de sentencias y conexiones por método de repositorio (ver InstrumentedDataSource).
+// Desactivable con app.datasource.instrumentation.enabled=false.
+@Configuration
+public class DataSourceMetricsConfig {
+
+    @Bean
+    static BeanPostProcessor instrumentedDataSourcePostProcessor(
+            ObjectProvider<MeterRegistry> registros,
+            @Value("${app.datasource.instrumentation.enabled:true}") boolean activo,
+            @Value("${app.datasource.slow-query-threshold:PT0.5S}") Duration umbralLenta) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (activo && bean instanceof DataSource dataSource && !(bean instanceof InstrumentedDataSource)) {
+                    return new InstrumentedDataSource(dataSource, registros, umbralLenta);
+                }
+                return bean;
+            }
+        };
+    }
+
+    // El interceptor va primero en la cadena del repositorio, así también queda etiquetada
+    // la conexión que abre la transacción propia del método
+    @Bean
+    static BeanPostProcessor repositoryMethodTagPostProcessor() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessBeforeInitialization(Object bean, String beanName) {
+                if (bean instanceof RepositoryFactoryBeanSupport<?, ?, ?> factoryBean) {
+                    factoryBean.addRepositoryFactoryCustomizer(factory -> factory.addRepositoryProxyPostProcessor(
+                        (proxyFactory, info) -> proxyFactory.addAdvice(0, tagWith(info.getRepositoryInterface()))));
+                }
+                return bean;
+            }
+        };
+    }
+
+    private static MethodInterceptor tagWith(Class<?> repositorio) {
+        String prefijo = repositorio.getSimpleName() + ".";
+        return invocation -> {
+            String previo = InstrumentedDataSource.enter(prefijo + invocation.getMethod().getName());
+            try {
+                return invocation.proceed();
+            } finally {
+                InstrumentedDataSource.exit(previo);
+            }
+        };
+    }
+}
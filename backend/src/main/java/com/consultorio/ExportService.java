@@ -0,0 +1,126 @@
+package com.consultorio;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+
+/**
+ * Exportación en streaming (NDJSON o CSV) leyendo de un cursor de base de datos.
+ * Cada fila se escribe y se desvincula del contexto de persistencia, así que la
+ * memoria usada no depende del número de filas.
+ */
+@Service
+public class ExportService {
+
+    public enum Formato { NDJSON, CSV }
+
+    private static final TypeReference<Map<String, Object>> FILA = new TypeReference<>() {};
+
+    private final AppointmentRepository appointmentRepository;
+    private final PaymentRepository paymentRepository;
+    private final ClinicalNoteRepository clinicalNoteRepository;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate readOnly;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    public ExportService(AppointmentRepository appointmentRepository, PaymentRepository paymentRepository,
+                         ClinicalNoteRepository clinicalNoteRepository, ObjectMapper objectMapper,
+                         PlatformTransactionManager transactionManager) {
+        this.appointmentRepository = appointmentRepository;
+        this.paymentRepository = paymentRepository;
+        this.clinicalNoteRepository = clinicalNoteRepository;
+        this.objectMapper = objectMapper;
+        this.readOnly = new TransactionTemplate(transactionManager);
+        this.readOnly.setReadOnly(true);
+    }
+
+    public StreamingResponseBody appointments(Formato formato, LocalDateTime desde, LocalDateTime hasta) {
+        return out -> write(out, formato, () -> appointmentRepository.streamByFechaHoraBetweenOrderByIdAsc(desde, hasta));
+    }
+
+    public StreamingResponseBody payments(Formato formato, LocalDateTime desde, LocalDateTime hasta) {
+        return out -> write(out, formato, () -> paymentRepository.streamByFechaPagoBetweenOrderByIdAsc(desde, hasta));
+    }
+
+    public StreamingResponseBody clinicalNotes(Formato formato, LocalDateTime desde, LocalDateTime hasta) {
+        return out -> write(out, formato,
+                            () -> clinicalNoteRepository.streamByFechaCreacionBetweenOrderByIdAsc(desde, hasta));
+    }
+
+    // El cursor necesita una transacción abierta mientras se recorre (fetch size en PostgreSQL)
+    private <T> void write(OutputStream out, Formato formato, Supplier<Stream<T>> consulta) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 64 * 1024);
+        try {
+            readOnly.executeWithoutResult(status -> {
+                try (Stream<T> filas = consulta.get()) {
+                    boolean[] primera = {true};
+                    filas.forEach(fila -> {
+                        try {
+                            if (formato == Formato.NDJSON) {
+                                writer.write(objectMapper.writeValueAsString(fila));
+                                writer.write('\n');
+                            } else {
+                                writeCsv(writer, objectMapper.convertValue(fila, FILA), primera[0]);
+                            }
+                            primera[0] = false;
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                        entityManager.detach(fila);
+                    });
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        writer.flush();
+    }
+
+    private void writeCsv(Writer writer, Map<String, Object> fila, boolean conEncabezado) throws IOException {
+        if (conEncabezado) {
+            writer.write(String.join(",", fila.keySet()));
+            writer.write('\n');
+        }
+        boolean primera = true;
+        for (Object valor : fila.values()) {
+            if (!primera) {
+                writer.write(',');
+            }
+            writer.write(csvValue(valor));
+            primera = false;
+        }
+        writer.write('\n');
+    }
+
+    private String csvValue(Object valor) {
+        if (valor == null) {
+            return "";
+        }
+        String texto = valor.toString();
+        if (texto.indexOf(',') >= 0 || texto.indexOf('"') >= 0 || texto.indexOf('\n') >= 0 || texto.indexOf('\r') >= 0) {
+            return "\"" + texto.replace("\"", "\"\"") + "\"";
+        }
+        return texto;
+    }
+}
@@ -0,0 +1,155 @@
+package com.consultorio;
+
+import java.text.Normalizer;
+import java.time.DayOfWeek;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Horario de atención estructurado a partir del texto libre de User.horarioAtencion,
+ * p. ej. "Lunes a Viernes 9AM-6PM", "Lunes, Miércoles y Viernes 9:00-13:00 y 15:00-19:00"
+ * o "Lunes a Viernes 9AM-6PM; Sábados 9AM-1PM". Cada día se guarda como un mapa de
+ * bits de bloques de 30 minutos (bit 0 = 00:00-00:30).
+ */
+public final class HorarioAtencion {
+
+    public static final int MINUTOS_BLOQUE = 30;
+    public static final int BLOQUES_POR_DIA = 24 * 60 / MINUTOS_BLOQUE;
+
+    private static final Pattern RANGO_HORAS = Pattern.compile(
+        "(\\d{1,2})(?::(\\d{2}))?\\s*([ap])?\\.?\\s*m?\\.?\\s*(?:-|–|a|hasta)\\s*(\\d{1,2})(?::(\\d{2}))?\\s*([ap])?\\.?\\s*m?\\.?");
+    private static final Pattern PALABRA = Pattern.compile("[a-z]+|-");
+
+    private static final Map<String, DayOfWeek> DIAS = Map.ofEntries(
+        Map.entry("lunes", DayOfWeek.MONDAY), Map.entry("lun", DayOfWeek.MONDAY),
+        Map.entry("martes", DayOfWeek.TUESDAY), Map.entry("mar", DayOfWeek.TUESDAY),
+        Map.entry("miercoles", DayOfWeek.WEDNESDAY), Map.entry("mie", DayOfWeek.WEDNESDAY),
+        Map.entry("jueves", DayOfWeek.THURSDAY), Map.entry("jue", DayOfWeek.THURSDAY),
+        Map.entry("viernes", DayOfWeek.FRIDAY), Map.entry("vie", DayOfWeek.FRIDAY),
+        Map.entry("sabado", DayOfWeek.SATURDAY), Map.entry("sabados", DayOfWeek.SATURDAY),
+        Map.entry("sab", DayOfWeek.SATURDAY),
+        Map.entry("domingo", DayOfWeek.SUNDAY), Map.entry("domingos", DayOfWeek.SUNDAY),
+        Map.entry("dom", DayOfWeek.SUNDAY));
+
+    private final long[] bloques = new long[7];
+
+    private HorarioAtencion() {}
+
+    // Vacío si el texto no tiene ningún tramo de días + horas reconocible
+    public static Optional<HorarioAtencion> parse(String texto) {
+        if (texto == null || texto.isBlank()) {
+            return Optional.empty();
+        }
+        HorarioAtencion horario = new HorarioAtencion();
+        boolean reconocido = false;
+        for (String tramo : normalize(texto).split("[;/\\n|]")) {
+            reconocido |= horario.parseTramo(tramo);
+        }
+        return reconocido ? Optional.of(horario) : Optional.empty();
+    }
+
+    // Bloques de atención del día de la semana
+    public long bloques(DayOfWeek dia) {
+        return bloques[dia.getValue() - 1];
+    }
+
+    public static LocalTime horaDeBloque(int bloque) {
+        return LocalTime.MIN.plusMinutes((long) bloque * MINUTOS_BLOQUE);
+    }
+
+    private boolean parseTramo(String tramo) {
+        Matcher horas = RANGO_HORAS.matcher(tramo);
+        if (!horas.find()) {
+            return false;
+        }
+        List<DayOfWeek> dias = parseDias(tramo.substring(0, horas.start()));
+        if (dias.isEmpty()) {
+            return false;
+        }
+        long mascara = 0;
+        do {
+            mascara |= parseRango(horas);
+        } while (horas.find());
+        if (mascara == 0) {
+            return false;
+        }
+        for (DayOfWeek dia : dias) {
+            bloques[dia.getValue() - 1] |= mascara;
+        }
+        return true;
+    }
+
+    // "lunes a viernes", "lunes, miercoles y viernes", "lun-vie"
+    private static List<DayOfWeek> parseDias(String texto) {
+        List<DayOfWeek> dias = new ArrayList<>();
+        Matcher palabras = PALABRA.matcher(texto);
+        DayOfWeek anterior = null;
+        boolean rango = false;
+        while (palabras.find()) {
+            String palabra = palabras.group();
+            DayOfWeek dia = DIAS.get(palabra);
+            if (dia == null) {
+                rango = anterior != null && (palabra.equals("a") || palabra.equals("-") || palabra.equals("al"));
+                continue;
+            }
+            if (rango) {
+                for (int d = anterior.getValue() % 7 + 1; d != dia.getValue() % 7 + 1; d = d % 7 + 1) {
+                    dias.add(DayOfWeek.of(d));
+                }
+            } else {
+                dias.add(dia);
+            }
+            anterior = dia;
+            rango = false;
+        }
+        return dias;
+    }
+
+    private static long parseRango(Matcher m) {
+        String sufijoFin = m.group(6);
+        String sufijoInicio = m.group(3);
+        int finMinutos = toMinutes(m.group(4), m.group(5), sufijoFin);
+        // "9-6PM": el inicio toma el sufijo del fin salvo que quede después del fin
+        int inicioMinutos = toMinutes(m.group(1), m.group(2), sufijoInicio != null ? sufijoInicio : sufijoFin);
+        if (sufijoInicio == null && inicioMinutos >= finMinutos) {
+            inicioMinutos = toMinutes(m.group(1), m.group(2), "a");
+        }
+        if (finMinutos == 0) {
+            finMinutos = 24 * 60;
+        }
+        if (inicioMinutos >= finMinutos || finMinutos > 24 * 60) {
+            return 0;
+        }
+        int desde = (inicioMinutos + MINUTOS_BLOQUE - 1) / MINUTOS_BLOQUE;
+        int hasta = finMinutos / MINUTOS_BLOQUE;
+        return desde >= hasta ? 0 : rangoBits(desde, hasta);
+    }
+
+    private static int toMinutes(String hora, String minutos, String sufijo) {
+        int h = Integer.parseInt(hora);
+        if ("p".equals(sufijo) && h < 12) {
+            h += 12;
+        } else if ("a".equals(sufijo) && h == 12) {
+            h = 0;
+        }
+        return h * 60 + (minutos != null ? Integer.parseInt(minutos) : 0);
+    }
+
+    // Bits [desde, hasta)
+    static long rangoBits(int desde, int hasta) {
+        long hastaBits = hasta >= 64 ? -1L : (1L << hasta) - 1;
+        return hastaBits & ~((1L << desde) - 1);
+    }
+
+    private static String normalize(String texto) {
+        return Normalizer.normalize(texto, Normalizer.Form.NFD)
+            .replaceAll("\\p{M}", "")
+            .toLowerCase(Locale.ROOT);
+    }
+}
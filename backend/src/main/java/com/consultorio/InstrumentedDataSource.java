@@ -0,0 +1,215 @@
+package com.consultorio;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import javax.sql.DataSource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * DataSource que mide cada sentencia y cada conexión, etiquetadas con el método de
+ * repositorio en curso ("UserRepository.findByUsername"; "none" fuera de un repositorio):
+ * <ul>
+ *   <li>consultorio.db.statement: duración de cada execute*, con la operación (query, update, batch)</li>
+ *   <li>consultorio.db.connection.acquire: espera hasta obtener la conexión del pool</li>
+ *   <li>consultorio.db.connection.usage: tiempo que la conexión estuvo fuera del pool</li>
+ * </ul>
+ * Las sentencias que superan el umbral se registran en el log con su SQL, nunca con los
+ * parámetros (contienen datos de pacientes). Se envuelve al pool, así que Hikari sigue
+ * publicando sus propias métricas.
+ */
+public class InstrumentedDataSource extends DelegatingDataSource {
+
+    private static final Logger log = LoggerFactory.getLogger(InstrumentedDataSource.class);
+
+    public static final String SIN_REPOSITORIO = "none";
+
+    private static final int MAX_SQL_LOG = 500;
+    private static final ThreadLocal<String> METODO = new ThreadLocal<>();
+
+    private final ObjectProvider<MeterRegistry> registros;
+    private final long umbralLentaNanos;
+    private final Map<String, Timer> timers = new ConcurrentHashMap<>();
+    // El registro se resuelve en el primer uso: el DataSource se crea antes que las métricas
+    private volatile MeterRegistry registro;
+
+    public InstrumentedDataSource(DataSource destino, ObjectProvider<MeterRegistry> registros, Duration umbralLenta) {
+        super(destino);
+        this.registros = registros;
+        this.umbralLentaNanos = umbralLenta.toNanos();
+    }
+
+    // Marca el método de repositorio en curso; devuelve el anterior para restaurarlo con exit()
+    public static String enter(String metodo) {
+        String previo = METODO.get();
+        METODO.set(metodo);
+        return previo;
+    }
+
+    public static void exit(String previo) {
+        if (previo == null) {
+            METODO.remove();
+        } else {
+            METODO.set(previo);
+        }
+    }
+
+    public static String currentMethod() {
+        String metodo = METODO.get();
+        return metodo != null ? metodo : SIN_REPOSITORIO;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        long inicio = System.nanoTime();
+        Connection conexion = super.getConnection();
+        return instrument(conexion, inicio);
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        long inicio = System.nanoTime();
+        Connection conexion = super.getConnection(username, password);
+        return instrument(conexion, inicio);
+    }
+
+    private Connection instrument(Connection conexion, long inicio) {
+        String metodo = currentMethod();
+        long obtenida = System.nanoTime();
+        record("consultorio.db.connection.acquire", metodo, null, obtenida - inicio);
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[] { Connection.class },
+                                                   new ConnectionHandler(conexion, metodo, obtenida));
+    }
+
+    private void record(String nombre, String metodo, String operacion, long nanos) {
+        if (registro == null) {
+            registro = registros.getIfAvailable();
+            if (registro == null) {
+                return;
+            }
+        }
+        String clave = nombre + '|' + metodo + '|' + operacion;
+        Timer timer = timers.get(clave);
+        if (timer == null) {
+            Timer.Builder builder = Timer.builder(nombre).tag("method", metodo);
+            if (operacion != null) {
+                builder.tag("operation", operacion);
+            }
+            timer = timers.computeIfAbsent(clave, k -> builder.register(registro));
+        }
+        timer.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    private static Object invoke(Object destino, Object proxy, Method method, Object[] args) throws Throwable {
+        // Identidad del proxy: Hibernate guarda las sentencias en mapas
+        if (method.getName().equals("equals") && method.getParameterCount() == 1) {
+            return proxy == args[0];
+        }
+        if (method.getName().equals("hashCode") && method.getParameterCount() == 0) {
+            return System.identityHashCode(proxy);
+        }
+        try {
+            return method.invoke(destino, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    private final class ConnectionHandler implements InvocationHandler {
+        private final Connection destino;
+        private final String metodo;
+        private final long obtenida;
+        private boolean cerrada;
+
+        private ConnectionHandler(Connection destino, String metodo, long obtenida) {
+            this.destino = destino;
+            this.metodo = metodo;
+            this.obtenida = obtenida;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String nombre = method.getName();
+            if (nombre.equals("close") && !cerrada) {
+                cerrada = true;
+                record("consultorio.db.connection.usage", metodo, null, System.nanoTime() - obtenida);
+            }
+            Object resultado = InstrumentedDataSource.invoke(destino, proxy, method, args);
+            if (resultado instanceof Statement sentencia) {
+                String sql = args != null && args.length > 0 && args[0] instanceof String s ? s : null;
+                Class<?> tipo = sentencia instanceof CallableStatement ? CallableStatement.class
+                              : sentencia instanceof PreparedStatement ? PreparedStatement.class
+                              : Statement.class;
+                return Proxy.newProxyInstance(tipo.getClassLoader(), new Class<?>[] { tipo },
+                                              new StatementHandler(sentencia, sql));
+            }
+            return resultado;
+        }
+    }
+
+    private final class StatementHandler implements InvocationHandler {
+        private final Statement destino;
+        private final String sql;
+
+        private StatementHandler(Statement destino, String sql) {
+            this.destino = destino;
+            this.sql = sql;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String nombre = method.getName();
+            if (!nombre.startsWith("execute")) {
+                return InstrumentedDataSource.invoke(destino, proxy, method, args);
+            }
+            long inicio = System.nanoTime();
+            try {
+                return InstrumentedDataSource.invoke(destino, proxy, method, args);
+            } finally {
+                long nanos = System.nanoTime() - inicio;
+                String metodo = currentMethod();
+                String operacion = operation(nombre);
+                record("consultorio.db.statement", metodo, operacion, nanos);
+                if (nanos >= umbralLentaNanos) {
+                    String texto = sql != null ? sql : args != null && args.length > 0 && args[0] instanceof String s ? s : "(lote)";
+                    if (texto.length() > MAX_SQL_LOG) {
+                        texto = texto.substring(0, MAX_SQL_LOG) + "...";
+                    }
+                    log.warn("Consulta lenta: {} ms en {} ({}): {}",
+                             TimeUnit.NANOSECONDS.toMillis(nanos), metodo, operacion, texto);
+                }
+            }
+        }
+
+        private String operation(String nombre) {
+            if (nombre.startsWith("executeQuery")) {
+                return "query";
+            }
+            if (nombre.contains("Batch")) {
+                return "batch";
+            }
+            if (nombre.contains("Update")) {
+                return "update";
+            }
+            return "execute";
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package com.consultorio;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+/**
+ * Cursor opaco para paginación por keyset (fecha + id).
+ * Se envía al cliente como texto Base64 URL-safe en el campo "next".
+ */
+public final class KeysetCursor {
+
+    private final LocalDateTime fecha;
+    private final Long id;
+
+    private KeysetCursor(LocalDateTime fecha, Long id) {
+        this.fecha = fecha;
+        this.id = id;
+    }
+
+    public static String encode(Long id) {
+        return encode(null, id);
+    }
+
+    public static String encode(LocalDateTime fecha, Long id) {
+        String raw = (fecha != null ? fecha.toString() : "") + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    // Lanza IllegalArgumentException si el cursor no es válido
+    public static KeysetCursor decode(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = raw.lastIndexOf('|');
+            String fecha = raw.substring(0, separator);
+            return new KeysetCursor(fecha.isEmpty() ? null : LocalDateTime.parse(fecha),
+                                    Long.valueOf(raw.substring(separator + 1)));
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Cursor inválido: " + cursor, e);
+        }
+    }
+
+    // Para los listados ordenados por (fecha, id): un cursor solo con id es de otro listado
+    public static KeysetCursor decodeWithFecha(String cursor) {
+        KeysetCursor decoded = decode(cursor);
+        if (decoded.fecha == null) {
+            throw new IllegalArgumentException("Cursor inválido para este listado: " + cursor);
+        }
+        return decoded;
+    }
+
+    public LocalDateTime getFecha() { return fecha; }
+    public Long getId() { return id; }
+}
@@ -0,0 +1,83 @@
+package com.consultorio;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Escritura diferida de ultima_conexion. El login solo anota la fecha en memoria;
+ * varias conexiones del mismo usuario dentro de un intervalo se quedan con la más
+ * reciente y todas se escriben juntas en un único UPDATE por lotes. Al detener la
+ * aplicación se vacía lo pendiente, así que solo un cierre abrupto pierde fechas.
+ */
+@Service
+public class LastSeenBuffer {
+
+    private static final Logger log = LoggerFactory.getLogger(LastSeenBuffer.class);
+
+    // La condición evita retroceder la fecha si una escritura del usuario completo llegó antes
+    private static final String UPDATE = "UPDATE users SET ultima_conexion = ? " +
+                                         "WHERE id = ? AND (ultima_conexion IS NULL OR ultima_conexion < ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transaction;
+    private final Map<Long, LocalDateTime> pendientes = new ConcurrentHashMap<>();
+
+    public LastSeenBuffer(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transaction = new TransactionTemplate(transactionManager);
+    }
+
+    public void record(Long userId, LocalDateTime fecha) {
+        pendientes.merge(userId, fecha, (actual, nueva) -> nueva.isAfter(actual) ? nueva : actual);
+    }
+
+    @Scheduled(fixedDelayString = "${app.auth.last-seen-flush-interval:PT15S}",
+               initialDelayString = "${app.auth.last-seen-flush-interval:PT15S}")
+    public synchronized int flush() {
+        if (pendientes.isEmpty()) {
+            return 0;
+        }
+        List<Object[]> filas = new ArrayList<>(pendientes.size());
+        for (Map.Entry<Long, LocalDateTime> entrada : pendientes.entrySet()) {
+            // Si cambió mientras tanto la fecha nueva queda para la próxima pasada
+            if (pendientes.remove(entrada.getKey(), entrada.getValue())) {
+                Timestamp fecha = Timestamp.valueOf(entrada.getValue());
+                filas.add(new Object[] { fecha, entrada.getKey(), fecha });
+            }
+        }
+        try {
+            transaction.executeWithoutResult(status -> jdbcTemplate.batchUpdate(UPDATE, filas));
+        } catch (RuntimeException e) {
+            // Se devuelven al buffer sin pisar fechas más recientes
+            for (Object[] fila : filas) {
+                record((Long) fila[1], ((Timestamp) fila[0]).toLocalDateTime());
+            }
+            log.warn("No se pudieron guardar {} fechas de última conexión: {}", filas.size(), e.getMessage());
+            return 0;
+        }
+        log.debug("Última conexión actualizada para {} usuarios", filas.size());
+        return filas.size();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        int escritas = flush();
+        if (escritas > 0) {
+            log.info("Última conexión de {} usuarios guardada al detener la aplicación", escritas);
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package com.consultorio;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.stereotype.Component;
+
+// Almacén en disco bajo app.upload.dir (opción por defecto)
+@Component
+@ConditionalOnProperty(name = "app.storage.type", havingValue = "local", matchIfMissing = true)
+public class LocalPhotoStorage implements PhotoStorage {
+
+    private final Path root;
+
+    public LocalPhotoStorage(@Value("${app.upload.dir:uploads/profile-images/}") String uploadDir) {
+        this.root = Paths.get(uploadDir).toAbsolutePath().normalize();
+    }
+
+    @Override
+    public boolean exists(String key) {
+        return Files.isRegularFile(resolve(key));
+    }
+
+    @Override
+    public boolean touch(String key) throws IOException {
+        try {
+            Files.setLastModifiedTime(resolve(key), FileTime.fromMillis(System.currentTimeMillis()));
+            return true;
+        } catch (NoSuchFileException e) {
+            return false;
+        }
+    }
+
+    @Override
+    public void put(String key, Path source, String contentType) throws IOException {
+        Path destino = resolve(key);
+        Files.createDirectories(destino.getParent());
+        Path temporal = Files.createTempFile(destino.getParent(), ".upload", ".tmp");
+        try {
+            Files.copy(source, temporal, StandardCopyOption.REPLACE_EXISTING);
+            Files.move(temporal, destino, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporal);
+        }
+    }
+
+    @Override
+    public Optional<StoredObject> stat(String key) throws IOException {
+        Path path = resolve(key);
+        if (!Files.isRegularFile(path)) {
+            return Optional.empty();
+        }
+        return Optional.of(toStoredObject(path, Files.readAttributes(path, BasicFileAttributes.class)));
+    }
+
+    @Override
+    public InputStream open(String key) throws IOException {
+        return Files.newInputStream(resolve(key));
+    }
+
+    @Override
+    public void delete(String key) throws IOException {
+        Files.deleteIfExists(resolve(key));
+    }
+
+    @Override
+    public Stream<StoredObject> list() throws IOException {
+        if (!Files.isDirectory(root)) {
+            return Stream.empty();
+        }
+        return Files.find(root, 3, (path, attrs) -> attrs.isRegularFile()
+                              && PhotoStorage.isValidKey(path.getFileName().toString()))
+            .map(path -> {
+                try {
+                    return toStoredObject(path, Files.readAttributes(path, BasicFileAttributes.class));
+                } catch (IOException e) {
+                    return null;
+                }
+            })
+            .filter(objeto -> objeto != null);
+    }
+
+    private StoredObject toStoredObject(Path path, BasicFileAttributes attrs) {
+        return new StoredObject(path.getFileName().toString(), attrs.size(), attrs.lastModifiedTime().toMillis(),
+                                new FileSystemResource(path), path);
+    }
+
+    private Path resolve(String key) {
+        if (!PhotoStorage.isValidKey(key)) {
+            throw new IllegalArgumentException("Clave de foto inválida: " + key);
+        }
+        return root.resolve(PhotoStorage.shardedPath(key));
+    }
+}
@@ -1,32 +1,61 @@
 package com.consultorio;
 
 import java.io.IOException;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.Paths;
-import java.nio.file.StandardCopyOption;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
-import java.util.UUID;
-import java.util.stream.Collectors;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.core.io.Resource;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.interceptor.TransactionAspectSupport;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.validation.FieldError;
+import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.CrossOrigin;
 import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletWebRequest;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.exc.MismatchedInputException;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.validation.Valid;
 
 @RestController
 @RequestMapping("/api")
@@ -46,147 +75,139 @@ public class MainController {
     @Autowired
     private ClinicalNoteRepository clinicalNoteRepository;
     
-    private final String UPLOAD_DIR = "uploads/profile-images/";
+    @Autowired
+    private PsychologistStatsService psychologistStatsService;
+    
+    @Autowired
+    private UserCacheService userCacheService;
+    
+    @Autowired
+    private ExportService exportService;
+    
+    @Autowired
+    private ProfilePhotoService profilePhotoService;
+    
+    @Autowired
+    private ThumbnailService thumbnailService;
+    
+    @Autowired
+    private ReservationService reservationService;
+    
+    @Autowired
+    private AvailabilityService availabilityService;
+    
+    @Autowired
+    private PaymentService paymentService;
+    
+    @Autowired
+    private BatchImportService batchImportService;
+    
+    @Autowired
+    private AuthService authService;
+    
+    @Autowired
+    private ParallelQueryService parallelQueryService;
+    
+    private static final int MAX_PAGE_SIZE = 500;
+    
+    public static final String AUTH_TOKEN = "X-Auth-Token";
+    
+    private static final int MAX_DIAS_DISPONIBILIDAD = 31;
+    
+    // Atributos de petición con los que Tomcat delega el envío de archivos a sendfile
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+    
+    // Límites por defecto de las ventanas de tiempo opcionales
+    private static final LocalDateTime FECHA_MINIMA = LocalDateTime.of(1900, 1, 1, 0, 0);
+    private static final LocalDateTime FECHA_MAXIMA = LocalDateTime.of(9999, 12, 31, 23, 59);
 
     
     // ============= AUTENTICACIÓN =============
     
+    // El hash de la contraseña corre en el pool de AuthService; el hilo de Tomcat queda libre.
+    // El token firmado va en la cabecera X-Auth-Token y se envía luego como "Authorization: Bearer".
     @PostMapping("/login")
-    public ResponseEntity<?> login(@RequestBody Map<String, String> loginData) {
-        String username = loginData.get("username");
-        String password = loginData.get("password");
-        
-        Optional<User> user = userRepository.findByUsernameAndPassword(username, password);
-        if (user.isPresent()) {
-            User userFound = user.get();
-            // Actualizar última conexión
-            userFound.setUltimaConexion(LocalDateTime.now());
-            userRepository.save(userFound);
-            return ResponseEntity.ok(userFound);
+    public CompletableFuture<ResponseEntity<?>> login(@RequestBody Map<String, String> loginData) {
+        try {
+            return authService.login(loginData.get("username"), loginData.get("password"))
+                .thenApply(login -> login
+                    .<ResponseEntity<?>>map(l -> ResponseEntity.ok().header(AUTH_TOKEN, l.getToken()).body(l.getUser()))
+                    .orElseGet(() -> ResponseEntity.badRequest().body(Map.of("error", "Credenciales inválidas"))));
+        } catch (TaskRejectedException e) {
+            return CompletableFuture.completedFuture(ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(Map.of("error", "Demasiados inicios de sesión simultáneos, reintente")));
         }
-        return ResponseEntity.badRequest().body(Map.of("error", "Credenciales inválidas"));
     }
     
     // ============= GESTIÓN DE USUARIOS =============
     
+    // Igual que el login: el hash y el guardado corren en el pool de AuthService, no en el hilo de Tomcat
     @PostMapping("/users")
-    public ResponseEntity<User> createUser(@RequestBody User user) {
+    public CompletableFuture<ResponseEntity<?>> createUser(@RequestBody User user) {
         try {
-            User savedUser = userRepository.save(user);
-            return ResponseEntity.ok(savedUser);
-        } catch (Exception e) {
-            return ResponseEntity.badRequest().build();
+            return authService.hash(user.getPassword())
+                .<ResponseEntity<?>>thenApply(hash -> {
+                    user.setPassword(hash);
+                    User savedUser = userRepository.save(user);
+                    userCacheService.evict(savedUser);
+                    return ResponseEntity.ok(savedUser);
+                })
+                .exceptionally(e -> ResponseEntity.badRequest().build());
+        } catch (TaskRejectedException e) {
+            return CompletableFuture.completedFuture(ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(Map.of("error", "Demasiadas altas simultáneas, reintente")));
         }
     }
     
+    // Alta en lote: resultado por ítem (id o error); los ítems válidos se guardan aunque otros fallen
+    @PostMapping("/users/batch")
+    public ResponseEntity<?> createUsers(@RequestBody List<User> users) {
+        return ResponseEntity.ok(batchImportService.createUsers(users));
+    }
+    
     @GetMapping("/users")
     public List<User> getAllUsers() {
         return userRepository.findAll();
     }
     
+    @GetMapping("/users/page")
+    public ResponseEntity<?> getUsersPage(@RequestParam(required = false) String cursor,
+                                          @RequestParam(defaultValue = "50") int size) {
+        Long after = cursor != null ? KeysetCursor.decode(cursor).getId() : 0L;
+        Slice<User> slice = userRepository.findByIdGreaterThanOrderByIdAsc(after, pageOf(size));
+        return ResponseEntity.ok(toKeysetPage(slice, u -> KeysetCursor.encode(u.getId())));
+    }
+    
     @GetMapping("/users/{id}")
     public ResponseEntity<User> getUserById(@PathVariable Long id) {
-        Optional<User> user = userRepository.findById(id);
+        Optional<User> user = userCacheService.findById(id);
         return user.map(ResponseEntity::ok).orElse(ResponseEntity.notFound().build());
     }
     
     @PutMapping("/users/{id}")
-public ResponseEntity<User> updateUser(@PathVariable Long id, @RequestBody Map<String, Object> updates) {
-    try {
+    public ResponseEntity<User> updateUser(@PathVariable Long id, @RequestBody UserRequests.Actualizar updates) {
         Optional<User> existingUser = userRepository.findById(id);
         if (existingUser.isPresent()) {
             User user = existingUser.get();
-            
-            // Actualizar campos básicos
-            if (updates.containsKey("nombre")) {
-                user.setNombre(updates.get("nombre").toString());
-            }
-            if (updates.containsKey("email")) {
-                user.setEmail(updates.get("email").toString());
-            }
-            if (updates.containsKey("telefono")) {
-                user.setTelefono(updates.get("telefono").toString());
-            }
-            if (updates.containsKey("direccion")) {
-                user.setDireccion(updates.get("direccion").toString());
-            }
-            
-            // Campos personales
-            if (updates.containsKey("dni")) {
-                user.setDni(updates.get("dni").toString());
-            }
-            if (updates.containsKey("fechaNacimiento")) {
-                String fechaStr = updates.get("fechaNacimiento").toString();
-                if (fechaStr != null && !fechaStr.isEmpty()) {
-                    try {
-                        user.setFechaNacimiento(LocalDate.parse(fechaStr));
-                    } catch (Exception e) {
-                        System.err.println("Error parsing date: " + fechaStr);
-                    }
-                }
-            }
-            if (updates.containsKey("genero")) {
-                user.setGenero(updates.get("genero").toString());
-            }
-            if (updates.containsKey("estadoCivil")) {
-                user.setEstadoCivil(updates.get("estadoCivil").toString());
-            }
-            if (updates.containsKey("telefonoEmergencia")) {
-                user.setTelefonoEmergencia(updates.get("telefonoEmergencia").toString());
-            }
-            
-            // Campos específicos para psicólogos
-            if (updates.containsKey("especialidad")) {
-                user.setEspecialidad(updates.get("especialidad").toString());
-            }
-            if (updates.containsKey("colegiatura")) {
-                user.setColegiatura(updates.get("colegiatura").toString());
-            }
-            if (updates.containsKey("universidad")) {
-                user.setUniversidad(updates.get("universidad").toString());
-            }
-            if (updates.containsKey("aniosExperiencia")) {
-                Object aniosExp = updates.get("aniosExperiencia");
-                if (aniosExp != null && !aniosExp.toString().isEmpty()) {
-                    try {
-                        user.setAniosExperiencia(Integer.valueOf(aniosExp.toString()));
-                    } catch (NumberFormatException e) {
-                        System.err.println("Error parsing años experiencia: " + aniosExp);
-                    }
-                }
-            }
-            if (updates.containsKey("descripcion")) {
-                user.setDescripcion(updates.get("descripcion").toString());
-            }
-            if (updates.containsKey("tarifaConsulta")) {
-                Object tarifa = updates.get("tarifaConsulta");
-                if (tarifa != null && !tarifa.toString().isEmpty()) {
-                    try {
-                        user.setTarifaConsulta(Double.valueOf(tarifa.toString()));
-                    } catch (NumberFormatException e) {
-                        System.err.println("Error parsing tarifa consulta: " + tarifa);
-                    }
-                }
-            }
-            if (updates.containsKey("horarioAtencion")) {
-                user.setHorarioAtencion(updates.get("horarioAtencion").toString());
-            }
-            
+            updates.applyTo(user);
             User savedUser = userRepository.save(user);
+            userCacheService.evict(savedUser);
             return ResponseEntity.ok(savedUser);
         }
         return ResponseEntity.notFound().build();
-    } catch (Exception e) {
-        System.err.println("Error updating user: " + e.getMessage());
-        e.printStackTrace();
-        return ResponseEntity.status(500).build();
     }
-}
     
     @DeleteMapping("/users/{id}")
     public ResponseEntity<?> deleteUser(@PathVariable Long id) {
-        if (userRepository.existsById(id)) {
-            userRepository.deleteById(id);
+        Optional<User> user = userRepository.findById(id);
+        if (user.isPresent()) {
+            userRepository.delete(user.get());
+            userCacheService.evict(user.get());
             return ResponseEntity.ok().build();
         }
         return ResponseEntity.notFound().build();
@@ -211,48 +232,71 @@ public ResponseEntity<User> updateUser(@PathVariable Long id, @RequestBody Map<S
             
             // Validar tipo de archivo
             String contentType = file.getContentType();
-            if (!contentType.startsWith("image/")) {
+            if (contentType == null || !contentType.startsWith("image/")) {
                 return ResponseEntity.badRequest().body(Map.of("error", "Solo se permiten imágenes"));
             }
             
-            // Crear directorio si no existe
-            Path uploadPath = Paths.get(UPLOAD_DIR);
-            if (!Files.exists(uploadPath)) {
-                Files.createDirectories(uploadPath);
-            }
-            
-            // Generar nombre único para el archivo
-            String originalFilename = file.getOriginalFilename();
-            String extension = originalFilename.substring(originalFilename.lastIndexOf("."));
-            String newFilename = "profile_" + id + "_" + UUID.randomUUID().toString() + extension;
-            
-            // Guardar archivo
-            Path filePath = uploadPath.resolve(newFilename);
-            Files.copy(file.getInputStream(), filePath, StandardCopyOption.REPLACE_EXISTING);
+            // Guardar por contenido (SHA-256); una foto idéntica ya subida se reutiliza
+            String newFilename = profilePhotoService.store(file);
             
             // Actualizar usuario con la ruta de la foto
             String photoUrl = "/api/users/" + id + "/photo/" + newFilename;
             user.setFotoPerfil(photoUrl);
             userRepository.save(user);
+            userCacheService.evict(user);
+            thumbnailService.generateAsync(newFilename);
             
             return ResponseEntity.ok(Map.of("photoUrl", photoUrl, "message", "Foto subida exitosamente"));
             
+        } catch (ProfilePhotoService.FormatoNoPermitidoException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
         } catch (IOException e) {
             return ResponseEntity.badRequest().body(Map.of("error", "Error al subir archivo: " + e.getMessage()));
         }
     }
     
     @GetMapping("/users/{id}/photo/{filename}")
-    public ResponseEntity<byte[]> getProfilePhoto(@PathVariable Long id, @PathVariable String filename) {
+    public ResponseEntity<Resource> getProfilePhoto(@PathVariable Long id, @PathVariable String filename,
+                                                    @RequestParam(required = false) Integer size,
+                                                    HttpServletRequest request, ServletWebRequest webRequest) {
         try {
-            Path filePath = Paths.get(UPLOAD_DIR + filename);
-            if (Files.exists(filePath)) {
-                byte[] imageBytes = Files.readAllBytes(filePath);
-                return ResponseEntity.ok()
-                    .header("Content-Type", "image/jpeg")
-                    .body(imageBytes);
+            // ?size=64|256 sirve la miniatura; si aún no está generada se usa el original
+            Optional<ProfilePhotoService.StoredPhoto> photoOpt = Optional.empty();
+            String variante = thumbnailService.variantFilename(filename, size);
+            if (variante != null) {
+                photoOpt = profilePhotoService.find(variante);
+            }
+            if (!photoOpt.isPresent()) {
+                photoOpt = profilePhotoService.find(filename);
+            }
+            if (!photoOpt.isPresent()) {
+                return ResponseEntity.notFound().build();
             }
-            return ResponseEntity.notFound().build();
+            ProfilePhotoService.StoredPhoto photo = photoOpt.get();
+            
+            // If-None-Match / If-Modified-Since: responde 304 sin tocar el archivo
+            if (webRequest.checkNotModified(photo.getETag(), photo.getLastModified())) {
+                return null;
+            }
+            
+            // nosniff: el navegador respeta el Content-Type y nunca interpreta la foto como HTML o script
+            ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(photo.getMediaType())
+                .cacheControl(CacheControl.maxAge(1, TimeUnit.HOURS))
+                .header("X-Content-Type-Options", "nosniff")
+                .header(HttpHeaders.ACCEPT_RANGES, "bytes");
+            
+            // Sin Range, en disco local y con soporte del contenedor, Tomcat envía el archivo con sendfile
+            if (photo.getPath() != null && request.getHeader(HttpHeaders.RANGE) == null
+                    && Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+                request.setAttribute(SENDFILE_FILENAME, photo.getPath().toString());
+                request.setAttribute(SENDFILE_START, 0L);
+                request.setAttribute(SENDFILE_END, photo.getSize());
+                return response.contentLength(photo.getSize()).build();
+            }
+            
+            // Spring resuelve los Range sobre el Resource del almacén
+            return response.body(photo.getResource());
         } catch (IOException e) {
             return ResponseEntity.badRequest().build();
         }
@@ -262,7 +306,7 @@ public ResponseEntity<User> updateUser(@PathVariable Long id, @RequestBody Map<S
     
     @GetMapping("/psicologos")
     public List<User> getPsicologos() {
-        return userRepository.findByRole("PSICOLOGO");
+        return userCacheService.findByRole("PSICOLOGO");
     }
     
     @GetMapping("/pacientes")
@@ -270,36 +314,54 @@ public ResponseEntity<User> updateUser(@PathVariable Long id, @RequestBody Map<S
         return userRepository.findByRole("PACIENTE");
     }
     
+    @GetMapping("/psicologos/page")
+    public ResponseEntity<?> getPsicologosPage(@RequestParam(required = false) String cursor,
+                                               @RequestParam(defaultValue = "50") int size) {
+        return ResponseEntity.ok(usersByRolePage("PSICOLOGO", cursor, size));
+    }
+    
+    @GetMapping("/pacientes/page")
+    public ResponseEntity<?> getPacientesPage(@RequestParam(required = false) String cursor,
+                                              @RequestParam(defaultValue = "50") int size) {
+        return ResponseEntity.ok(usersByRolePage("PACIENTE", cursor, size));
+    }
+    
+    private Map<String, Object> usersByRolePage(String role, String cursor, int size) {
+        Long after = cursor != null ? KeysetCursor.decode(cursor).getId() : 0L;
+        Slice<User> slice = userRepository.findByRoleAndIdGreaterThanOrderByIdAsc(role, after, pageOf(size));
+        return toKeysetPage(slice, u -> KeysetCursor.encode(u.getId()));
+    }
+    
     // ============= GESTIÓN DE CITAS =============
     
     @PostMapping("/appointments")
-    public ResponseEntity<Appointment> createAppointment(@RequestBody Map<String, Object> appointmentData) {
+    @Transactional
+    public ResponseEntity<?> createAppointment(@Valid @RequestBody AppointmentRequests.Crear appointmentData) {
         try {
-            Appointment appointment = new Appointment();
-            appointment.setPacienteId(Long.valueOf(appointmentData.get("pacienteId").toString()));
-            appointment.setPsicologoId(Long.valueOf(appointmentData.get("psicologoId").toString()));
-            appointment.setFechaHora(LocalDateTime.parse(appointmentData.get("fechaHora").toString()));
-            appointment.setModalidad(appointmentData.get("modalidad").toString());
-            appointment.setPrecio(Double.valueOf(appointmentData.get("precio").toString()));
-            appointment.setEstado("RESERVADA");
-            appointment.setPagado(false);
+            Appointment appointment = appointmentData.toAppointment();
             
             // Obtener nombres
-            Optional<User> paciente = userRepository.findById(appointment.getPacienteId());
-            Optional<User> psicologo = userRepository.findById(appointment.getPsicologoId());
+            Optional<User> paciente = userCacheService.findById(appointment.getPacienteId());
+            Optional<User> psicologo = userCacheService.findById(appointment.getPsicologoId());
             
             if (paciente.isPresent() && psicologo.isPresent()) {
                 appointment.setNombrePaciente(paciente.get().getNombre());
                 appointment.setNombrePsicologo(psicologo.get().getNombre());
             }
             
-            Appointment saved = appointmentRepository.save(appointment);
+            Appointment saved = reservationService.reserve(null, appointment, appointmentRepository::save);
+            psychologistStatsService.record(null, PsychologistStatsService.Snapshot.of(saved));
             return ResponseEntity.ok(saved);
-        } catch (Exception e) {
-            return ResponseEntity.badRequest().build();
+        } catch (ReservationService.ConflictoHorarioException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("error", e.getMessage()));
         }
     }
     
+    @PostMapping("/appointments/batch")
+    public ResponseEntity<?> createAppointments(@RequestBody List<AppointmentRequests.Crear> appointments) {
+        return ResponseEntity.ok(batchImportService.createAppointments(appointments));
+    }
+    
     @GetMapping("/appointments")
     public List<Appointment> getAllAppointments() {
         return appointmentRepository.findAll();
@@ -315,6 +377,89 @@ public ResponseEntity<User> updateUser(@PathVariable Long id, @RequestBody Map<S
         return appointmentRepository.findByPsicologoId(id);
     }
     
+    @GetMapping("/appointments/page")
+    public ResponseEntity<?> getAppointmentsPage(@RequestParam(required = false) String cursor,
+                                                 @RequestParam(defaultValue = "50") int size) {
+        Long after = cursor != null ? KeysetCursor.decode(cursor).getId() : 0L;
+        Slice<Appointment> slice = appointmentRepository.findByIdGreaterThanOrderByIdAsc(after, pageOf(size));
+        return ResponseEntity.ok(toKeysetPage(slice, a -> KeysetCursor.encode(a.getId())));
+    }
+    
+    @GetMapping("/appointments/patient/{id}/page")
+    public ResponseEntity<?> getPatientAppointmentsPage(@PathVariable Long id,
+                                                        @RequestParam(required = false) String cursor,
+                                                        @RequestParam(defaultValue = "50") int size) {
+        Slice<Appointment> slice;
+        if (cursor == null) {
+            slice = appointmentRepository.findByPacienteIdOrderByFechaHoraAscIdAsc(id, pageOf(size));
+        } else {
+            KeysetCursor after = KeysetCursor.decodeWithFecha(cursor);
+            slice = appointmentRepository.findByPacienteIdAfter(id, after.getFecha(), after.getId(), pageOf(size));
+        }
+        return ResponseEntity.ok(toKeysetPage(slice, a -> KeysetCursor.encode(a.getFechaHora(), a.getId())));
+    }
+    
+    @GetMapping("/appointments/psychologist/{id}/page")
+    public ResponseEntity<?> getPsychologistAppointmentsPage(@PathVariable Long id,
+                                                             @RequestParam(required = false) String cursor,
+                                                             @RequestParam(defaultValue = "50") int size) {
+        Slice<Appointment> slice;
+        if (cursor == null) {
+            slice = appointmentRepository.findByPsicologoIdOrderByFechaHoraAscIdAsc(id, pageOf(size));
+        } else {
+            KeysetCursor after = KeysetCursor.decodeWithFecha(cursor);
+            slice = appointmentRepository.findByPsicologoIdAfter(id, after.getFecha(), after.getId(), pageOf(size));
+        }
+        return ResponseEntity.ok(toKeysetPage(slice, a -> KeysetCursor.encode(a.getFechaHora(), a.getId())));
+    }
+    
+    // Horarios ocupados en [desde, hasta) o, con fechaHora, si ese horario está libre
+    @GetMapping("/appointments/psychologist/{id}/availability")
+    public ResponseEntity<?> getPsychologistAvailability(
+            @PathVariable Long id,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime fechaHora,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime desde,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime hasta) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("psicologoId", id);
+        response.put("duracionMinutos", reservationService.getDuracion().toMinutes());
+        if (fechaHora != null) {
+            response.put("fechaHora", fechaHora);
+            response.put("disponible", reservationService.isAvailable(id, fechaHora));
+            return ResponseEntity.ok(response);
+        }
+        if (desde == null || hasta == null) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Indique fechaHora o el rango desde/hasta"));
+        }
+        response.put("ocupados", reservationService.occupiedBetween(id, desde, hasta));
+        return ResponseEntity.ok(response);
+    }
+    
+    // Horas libres de todos los psicólogos entre dos fechas (inclusive)
+    @GetMapping("/availability")
+    public ResponseEntity<?> getAvailability(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate desde,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate hasta,
+            @RequestParam(required = false) String especialidad,
+            @RequestParam(required = false) String modalidad) {
+        if (hasta.isBefore(desde) || desde.plusDays(MAX_DIAS_DISPONIBILIDAD).isBefore(hasta)) {
+            return ResponseEntity.badRequest().body(Map.of("error",
+                "El rango debe ser de como máximo " + MAX_DIAS_DISPONIBILIDAD + " días"));
+        }
+        // Todos los psicólogos atienden en ambas modalidades; solo se valida el valor
+        if (modalidad != null && !modalidad.isEmpty()
+                && !"PRESENCIAL".equals(modalidad) && !"VIDEOLLAMADA".equals(modalidad)) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Modalidad inválida: " + modalidad));
+        }
+        
+        Map<String, Object> response = new HashMap<>();
+        response.put("desde", desde);
+        response.put("hasta", hasta);
+        response.put("duracionMinutos", reservationService.getDuracion().toMinutes());
+        response.put("psicologos", availabilityService.search(desde, hasta, especialidad));
+        return ResponseEntity.ok(response);
+    }
+    
     @GetMapping("/appointments/{id}")
     public ResponseEntity<Appointment> getAppointmentById(@PathVariable Long id) {
         Optional<Appointment> appointment = appointmentRepository.findById(id);
@@ -322,86 +467,82 @@ public ResponseEntity<User> updateUser(@PathVariable Long id, @RequestBody Map<S
     }
     
     @PutMapping("/appointments/{id}")
-    public ResponseEntity<Appointment> updateAppointment(@PathVariable Long id, @RequestBody Map<String, Object> updates) {
+    @Transactional
+    public ResponseEntity<?> updateAppointment(@PathVariable Long id, @RequestBody AppointmentRequests.Actualizar updates) {
         Optional<Appointment> existingAppointment = appointmentRepository.findById(id);
         if (existingAppointment.isPresent()) {
             Appointment appointment = existingAppointment.get();
+            PsychologistStatsService.Snapshot antes = PsychologistStatsService.Snapshot.of(appointment);
+            ReservationService.Slot horarioAnterior = ReservationService.Slot.of(appointment);
             
-            if (updates.containsKey("estado")) {
-                appointment.setEstado(updates.get("estado").toString());
-            }
-            if (updates.containsKey("notas")) {
-                appointment.setNotas(updates.get("notas").toString());
-            }
-            if (updates.containsKey("pagado")) {
-                appointment.setPagado(Boolean.valueOf(updates.get("pagado").toString()));
-            }
-            if (updates.containsKey("fechaHora")) {
-                appointment.setFechaHora(LocalDateTime.parse(updates.get("fechaHora").toString()));
-            }
-            if (updates.containsKey("modalidad")) {
-                appointment.setModalidad(updates.get("modalidad").toString());
-            }
-            if (updates.containsKey("precio")) {
-                appointment.setPrecio(Double.valueOf(updates.get("precio").toString()));
-            }
+            updates.applyTo(appointment);
             
-            return ResponseEntity.ok(appointmentRepository.save(appointment));
+            Appointment saved;
+            try {
+                saved = reservationService.reserve(horarioAnterior, appointment, appointmentRepository::save);
+            } catch (ReservationService.ConflictoHorarioException e) {
+                // La entidad ya está modificada en memoria: no debe llegar a la base
+                TransactionAspectSupport.currentTransactionStatus().setRollbackOnly();
+                return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("error", e.getMessage()));
+            }
+            psychologistStatsService.record(antes, PsychologistStatsService.Snapshot.of(saved));
+            return ResponseEntity.ok(saved);
         }
         return ResponseEntity.notFound().build();
     }
     
     @DeleteMapping("/appointments/{id}")
+    @Transactional
     public ResponseEntity<?> deleteAppointment(@PathVariable Long id) {
-        if (appointmentRepository.existsById(id)) {
-            appointmentRepository.deleteById(id);
+        Optional<Appointment> appointment = appointmentRepository.findById(id);
+        if (appointment.isPresent()) {
+            appointmentRepository.delete(appointment.get());
+            reservationService.release(ReservationService.Slot.of(appointment.get()));
+            psychologistStatsService.record(PsychologistStatsService.Snapshot.of(appointment.get()), null);
             return ResponseEntity.ok().build();
         }
         return ResponseEntity.notFound().build();
     }
     
     @PutMapping("/appointments/{id}/pay")
+    @Transactional
     public ResponseEntity<Appointment> payAppointment(@PathVariable Long id) {
         Optional<Appointment> appointment = appointmentRepository.findById(id);
         if (appointment.isPresent()) {
             Appointment updated = appointment.get();
+            PsychologistStatsService.Snapshot antes = PsychologistStatsService.Snapshot.of(updated);
             updated.setPagado(true);
-            return ResponseEntity.ok(appointmentRepository.save(updated));
+            Appointment saved = appointmentRepository.save(updated);
+            psychologistStatsService.record(antes, PsychologistStatsService.Snapshot.of(saved));
+            return ResponseEntity.ok(saved);
         }
         return ResponseEntity.notFound().build();
     }
     
     // ============= GESTIÓN DE PAGOS =============
-   @PostMapping("/payments")
-public ResponseEntity<Payment> createPayment(@RequestBody Map<String, Object> paymentData) {
-    try {
-        Payment payment = new Payment();
-        payment.setAppointmentId(((Number) paymentData.get("appointmentId")).longValue());
-        payment.setPacienteId(((Number) paymentData.get("pacienteId")).longValue());
-        payment.setPsicologoId(((Number) paymentData.get("psicologoId")).longValue());
-        payment.setMonto(((Number) paymentData.get("monto")).doubleValue());
-        payment.setMetodoPago((String) paymentData.get("metodoPago"));
-        payment.setEstado("COMPLETADO");
-        payment.setNombrePaciente((String) paymentData.get("nombrePaciente"));
-        payment.setNombrePsicologo((String) paymentData.get("nombrePsicologo"));
-        payment.setNumeroTransaccion("TXN-" + System.currentTimeMillis());
-        payment.setConceptoPago("Consulta psicológica");
-        payment.setFechaPago(LocalDateTime.now()); // 👈💥 AQUI EL FIX
-
-        Payment savedPayment = paymentRepository.save(payment);
-
-        Optional<Appointment> appointment = appointmentRepository.findById(payment.getAppointmentId());
-        appointment.ifPresent(apt -> {
-            apt.setPagado(true);
-            appointmentRepository.save(apt);
-        });
-
-        return ResponseEntity.ok(savedPayment);
-    } catch (Exception e) {
-        e.printStackTrace();
-        return ResponseEntity.badRequest().build();
+    
+    // Con la cabecera Idempotency-Key un reintento devuelve el mismo pago (Idempotent-Replayed: true)
+    @PostMapping("/payments")
+    public ResponseEntity<?> createPayment(@Valid @RequestBody PaymentRequests.Crear paymentData,
+                                           @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey) {
+        if (idempotencyKey != null && (idempotencyKey.isBlank() || idempotencyKey.length() > 100)) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Idempotency-Key inválida"));
+        }
+        try {
+            PaymentService.Resultado resultado = paymentService.process(paymentData.toPayment(), idempotencyKey);
+            return ResponseEntity.ok()
+                .header("Idempotent-Replayed", String.valueOf(resultado.isRepetido()))
+                .body(resultado.getPayment());
+        } catch (PaymentService.ClaveReutilizadaException e) {
+            return ResponseEntity.unprocessableEntity().body(Map.of("error", e.getMessage()));
+        }
+    }
+    
+    // Cada ítem puede traer su propia idempotencyKey
+    @PostMapping("/payments/batch")
+    public ResponseEntity<?> createPayments(@RequestBody List<PaymentRequests.Crear> payments) {
+        return ResponseEntity.ok(batchImportService.createPayments(payments));
     }
-}
     
     @GetMapping("/payments")
     public List<Payment> getAllPayments() {
@@ -418,76 +559,67 @@ public ResponseEntity<Payment> createPayment(@RequestBody Map<String, Object> pa
         return paymentRepository.findByPsicologoId(id);
     }
     
+    @GetMapping("/payments/page")
+    public ResponseEntity<?> getPaymentsPage(@RequestParam(required = false) String cursor,
+                                             @RequestParam(defaultValue = "50") int size) {
+        Long after = cursor != null ? KeysetCursor.decode(cursor).getId() : 0L;
+        Slice<Payment> slice = paymentRepository.findByIdGreaterThanOrderByIdAsc(after, pageOf(size));
+        return ResponseEntity.ok(toKeysetPage(slice, p -> KeysetCursor.encode(p.getId())));
+    }
+    
+    @GetMapping("/payments/patient/{id}/page")
+    public ResponseEntity<?> getPaymentsByPatientPage(@PathVariable Long id,
+                                                      @RequestParam(required = false) String cursor,
+                                                      @RequestParam(defaultValue = "50") int size) {
+        Long after = cursor != null ? KeysetCursor.decode(cursor).getId() : 0L;
+        Slice<Payment> slice = paymentRepository.findByPacienteIdAndIdGreaterThanOrderByIdAsc(id, after, pageOf(size));
+        return ResponseEntity.ok(toKeysetPage(slice, p -> KeysetCursor.encode(p.getId())));
+    }
+    
+    @GetMapping("/payments/psychologist/{id}/page")
+    public ResponseEntity<?> getPaymentsByPsychologistPage(@PathVariable Long id,
+                                                           @RequestParam(required = false) String cursor,
+                                                           @RequestParam(defaultValue = "50") int size) {
+        Long after = cursor != null ? KeysetCursor.decode(cursor).getId() : 0L;
+        Slice<Payment> slice = paymentRepository.findByPsicologoIdAndIdGreaterThanOrderByIdAsc(id, after, pageOf(size));
+        return ResponseEntity.ok(toKeysetPage(slice, p -> KeysetCursor.encode(p.getId())));
+    }
+    
     @GetMapping("/payments/pending")
     public List<Payment> getPendingPayments() {
         return paymentRepository.findPagosPendientes();
     }
     
+    // Mismo orden que /payments/pending (fechaPago, id)
+    @GetMapping("/payments/pending/page")
+    public ResponseEntity<?> getPendingPaymentsPage(@RequestParam(required = false) String cursor,
+                                                    @RequestParam(defaultValue = "50") int size) {
+        Slice<Payment> slice;
+        if (cursor == null) {
+            slice = paymentRepository.findByEstadoOrderByFechaPagoAscIdAsc("PENDIENTE", pageOf(size));
+        } else {
+            KeysetCursor after = KeysetCursor.decodeWithFecha(cursor);
+            slice = paymentRepository.findByEstadoAfter("PENDIENTE", after.getFecha(), after.getId(), pageOf(size));
+        }
+        return ResponseEntity.ok(toKeysetPage(slice, p -> KeysetCursor.encode(p.getFechaPago(), p.getId())));
+    }
+    
     @PutMapping("/payments/{id}")
-    public ResponseEntity<Payment> updatePayment(@PathVariable Long id, @RequestBody Map<String, Object> updates) {
+    public ResponseEntity<Payment> updatePayment(@PathVariable Long id, @RequestBody PaymentRequests.Actualizar updates) {
         Optional<Payment> existingPayment = paymentRepository.findById(id);
         if (existingPayment.isPresent()) {
             Payment payment = existingPayment.get();
-            
-            if (updates.containsKey("estado")) {
-                payment.setEstado(updates.get("estado").toString());
-            }
-            if (updates.containsKey("numeroTransaccion")) {
-                payment.setNumeroTransaccion(updates.get("numeroTransaccion").toString());
-            }
-            if (updates.containsKey("observaciones")) {
-                payment.setObservaciones(updates.get("observaciones").toString());
-            }
-            
+            updates.applyTo(payment);
             return ResponseEntity.ok(paymentRepository.save(payment));
         }
         return ResponseEntity.notFound().build();
     }
     
-
-
-
-@PostMapping("/clinical-notes")
-public ResponseEntity<ClinicalNote> createClinicalNote(@RequestBody Map<String, Object> noteData) {
-    try {
-        ClinicalNote note = new ClinicalNote();
-        
-        // appointmentId puede ser null para notas independientes
-        if (noteData.containsKey("appointmentId") && noteData.get("appointmentId") != null) {
-            note.setAppointmentId(Long.valueOf(noteData.get("appointmentId").toString()));
-        }
-        
-        note.setPacienteId(Long.valueOf(noteData.get("pacienteId").toString()));
-        note.setPsicologoId(Long.valueOf(noteData.get("psicologoId").toString()));
-        note.setTipoNota(noteData.get("tipoNota").toString());
-        note.setContenido(noteData.get("contenido").toString());
-        note.setNombrePaciente(noteData.get("nombrePaciente").toString());
-        note.setNombrePsicologo(noteData.get("nombrePsicologo").toString());
-        note.setModalidadSesion(noteData.get("modalidadSesion").toString());
-        
-        if (noteData.containsKey("observacionesGenerales")) {
-            note.setObservacionesGenerales(noteData.get("observacionesGenerales").toString());
-        }
-        if (noteData.containsKey("planTratamiento")) {
-            note.setPlanTratamiento(noteData.get("planTratamiento").toString());
-        }
-        if (noteData.containsKey("tareasPaciente")) {
-            note.setTareasPaciente(noteData.get("tareasPaciente").toString());
-        }
-        if (noteData.containsKey("estadoEmocional")) {
-            note.setEstadoEmocional(noteData.get("estadoEmocional").toString());
-        }
-        if (noteData.containsKey("nivelFuncionalidad")) {
-            note.setNivelFuncionalidad(noteData.get("nivelFuncionalidad").toString());
-        }
-        if (noteData.containsKey("sesionNumero")) {
-            note.setSesionNumero(Integer.valueOf(noteData.get("sesionNumero").toString()));
-        }
-        if (noteData.containsKey("requiereSeguimiento")) {
-            note.setRequiereSeguimiento(Boolean.valueOf(noteData.get("requiereSeguimiento").toString()));
-        }
-        
-        ClinicalNote savedNote = clinicalNoteRepository.save(note);
+    // ============= GESTIÓN DE NOTAS CLÍNICAS =============
+    
+    @PostMapping("/clinical-notes")
+    public ResponseEntity<ClinicalNote> createClinicalNote(@Valid @RequestBody ClinicalNoteRequests.Crear noteData) {
+        ClinicalNote savedNote = clinicalNoteRepository.save(noteData.toClinicalNote());
         
         // Solo actualizar la cita si existe appointmentId
         if (savedNote.getAppointmentId() != null) {
@@ -500,35 +632,8 @@ public ResponseEntity<ClinicalNote> createClinicalNote(@RequestBody Map<String,
         }
         
         return ResponseEntity.ok(savedNote);
-    } catch (Exception e) {
-        System.err.println("Error creating clinical note: " + e.getMessage());
-        e.printStackTrace();
-        return ResponseEntity.badRequest().build();
     }
-}
-
-
-
-
-
-
-
-
-
-
-
-
-
-
-
-
-
-
-
-
-
-
-   
+    
     @GetMapping("/clinical-notes")
     public List<ClinicalNote> getAllClinicalNotes() {
         return clinicalNoteRepository.findAll();
@@ -544,6 +649,42 @@ public ResponseEntity<ClinicalNote> createClinicalNote(@RequestBody Map<String,
         return clinicalNoteRepository.findByPsicologoIdOrderByFechaCreacionDesc(id);
     }
     
+    @GetMapping("/clinical-notes/page")
+    public ResponseEntity<?> getClinicalNotesPage(@RequestParam(required = false) String cursor,
+                                                  @RequestParam(defaultValue = "50") int size) {
+        Long after = cursor != null ? KeysetCursor.decode(cursor).getId() : 0L;
+        Slice<ClinicalNote> slice = clinicalNoteRepository.findByIdGreaterThanOrderByIdAsc(after, pageOf(size));
+        return ResponseEntity.ok(toKeysetPage(slice, n -> KeysetCursor.encode(n.getId())));
+    }
+    
+    @GetMapping("/clinical-notes/patient/{id}/page")
+    public ResponseEntity<?> getClinicalNotesByPatientPage(@PathVariable Long id,
+                                                           @RequestParam(required = false) String cursor,
+                                                           @RequestParam(defaultValue = "50") int size) {
+        Slice<ClinicalNote> slice;
+        if (cursor == null) {
+            slice = clinicalNoteRepository.findByPacienteIdOrderByFechaCreacionDescIdDesc(id, pageOf(size));
+        } else {
+            KeysetCursor after = KeysetCursor.decodeWithFecha(cursor);
+            slice = clinicalNoteRepository.findByPacienteIdBefore(id, after.getFecha(), after.getId(), pageOf(size));
+        }
+        return ResponseEntity.ok(toKeysetPage(slice, n -> KeysetCursor.encode(n.getFechaCreacion(), n.getId())));
+    }
+    
+    @GetMapping("/clinical-notes/psychologist/{id}/page")
+    public ResponseEntity<?> getClinicalNotesByPsychologistPage(@PathVariable Long id,
+                                                                @RequestParam(required = false) String cursor,
+                                                                @RequestParam(defaultValue = "50") int size) {
+        Slice<ClinicalNote> slice;
+        if (cursor == null) {
+            slice = clinicalNoteRepository.findByPsicologoIdOrderByFechaCreacionDescIdDesc(id, pageOf(size));
+        } else {
+            KeysetCursor after = KeysetCursor.decodeWithFecha(cursor);
+            slice = clinicalNoteRepository.findByPsicologoIdBefore(id, after.getFecha(), after.getId(), pageOf(size));
+        }
+        return ResponseEntity.ok(toKeysetPage(slice, n -> KeysetCursor.encode(n.getFechaCreacion(), n.getId())));
+    }
+    
     @GetMapping("/clinical-notes/appointment/{id}")
     public List<ClinicalNote> getClinicalNotesByAppointment(@PathVariable Long id) {
         return clinicalNoteRepository.findByAppointmentId(id);
@@ -556,30 +697,11 @@ public ResponseEntity<ClinicalNote> createClinicalNote(@RequestBody Map<String,
     }
     
     @PutMapping("/clinical-notes/{id}")
-    public ResponseEntity<ClinicalNote> updateClinicalNote(@PathVariable Long id, @RequestBody Map<String, Object> updates) {
+    public ResponseEntity<ClinicalNote> updateClinicalNote(@PathVariable Long id, @RequestBody ClinicalNoteRequests.Actualizar updates) {
         Optional<ClinicalNote> existingNote = clinicalNoteRepository.findById(id);
         if (existingNote.isPresent()) {
             ClinicalNote note = existingNote.get();
-            
-            if (updates.containsKey("contenido")) {
-                note.setContenido(updates.get("contenido").toString());
-            }
-            if (updates.containsKey("observacionesGenerales")) {
-                note.setObservacionesGenerales(updates.get("observacionesGenerales").toString());
-            }
-            if (updates.containsKey("planTratamiento")) {
-                note.setPlanTratamiento(updates.get("planTratamiento").toString());
-            }
-            if (updates.containsKey("tareasPaciente")) {
-                note.setTareasPaciente(updates.get("tareasPaciente").toString());
-            }
-            if (updates.containsKey("estadoEmocional")) {
-                note.setEstadoEmocional(updates.get("estadoEmocional").toString());
-            }
-            if (updates.containsKey("requiereSeguimiento")) {
-                note.setRequiereSeguimiento(Boolean.valueOf(updates.get("requiereSeguimiento").toString()));
-            }
-            
+            updates.applyTo(note);
             return ResponseEntity.ok(clinicalNoteRepository.save(note));
         }
         return ResponseEntity.notFound().build();
@@ -598,40 +720,59 @@ public ResponseEntity<ClinicalNote> createClinicalNote(@RequestBody Map<String,
     
     @GetMapping("/reports")
     public ResponseEntity<Map<String, Object>> getReports() {
-        long totalUsers = userRepository.count();
-        long totalPsicologos = userRepository.findByRole("PSICOLOGO").size();
-        long totalPacientes = userRepository.findByRole("PACIENTE").size();
-        long totalAppointments = appointmentRepository.count();
-        
-        List<Appointment> allAppointments = appointmentRepository.findAll();
-        List<Appointment> paidAppointments = appointmentRepository.findByPagado(true);
-        List<Appointment> pendingAppointments = allAppointments.stream()
-            .filter(a -> "RESERVADA".equals(a.getEstado()))
-            .collect(Collectors.toList());
-        List<Appointment> completedAppointments = allAppointments.stream()
-            .filter(a -> "COMPLETADA".equals(a.getEstado()))
-            .collect(Collectors.toList());
-        List<Appointment> cancelledAppointments = allAppointments.stream()
-            .filter(a -> "CANCELADA".equals(a.getEstado()))
-            .collect(Collectors.toList());
-        
-        double totalIngresos = paidAppointments.stream()
-            .mapToDouble(a -> a.getPrecio() != null ? a.getPrecio() : 0.0)
-            .sum();
+        // Conteos por rol en una sola consulta agrupada
+        long totalUsers = 0;
+        long totalPsicologos = 0;
+        long totalPacientes = 0;
+        for (UserRepository.RolResumen rol : userRepository.countGroupByRole()) {
+            totalUsers += rol.getTotal();
+            if ("PSICOLOGO".equals(rol.getRole())) {
+                totalPsicologos = rol.getTotal();
+            } else if ("PACIENTE".equals(rol.getRole())) {
+                totalPacientes = rol.getTotal();
+            }
+        }
         
-        double ingresosPendientes = pendingAppointments.stream()
-            .filter(a -> !a.getPagado())
-            .mapToDouble(a -> a.getPrecio() != null ? a.getPrecio() : 0.0)
-            .sum();
+        // Conteos y montos por estado/pagado calculados en la base de datos
+        long totalAppointments = 0;
+        long citasPendientes = 0;
+        long citasCompletadas = 0;
+        long citasCanceladas = 0;
+        long citasPagadas = 0;
+        double totalIngresos = 0.0;
+        double ingresosPendientes = 0.0;
+        for (AppointmentRepository.EstadoResumen grupo : appointmentRepository.resumenPorEstadoYPagado()) {
+            long total = grupo.getTotal();
+            boolean pagado = Boolean.TRUE.equals(grupo.getPagado());
+            totalAppointments += total;
+            if ("RESERVADA".equals(grupo.getEstado())) {
+                citasPendientes += total;
+                if (!pagado) {
+                    ingresosPendientes += grupo.getMonto();
+                }
+            } else if ("COMPLETADA".equals(grupo.getEstado())) {
+                citasCompletadas += total;
+            } else if ("CANCELADA".equals(grupo.getEstado())) {
+                citasCanceladas += total;
+            }
+            if (pagado) {
+                citasPagadas += total;
+                totalIngresos += grupo.getMonto();
+            }
+        }
         
         // Estadísticas por psicólogo
+        Map<Long, AppointmentRepository.PsicologoResumen> resumenPorPsicologo = new HashMap<>();
+        appointmentRepository.resumenPorPsicologo()
+            .forEach(r -> resumenPorPsicologo.put(r.getPsicologoId(), r));
+        
         Map<String, Object> estadisticasPsicologos = new HashMap<>();
-        userRepository.findByRole("PSICOLOGO").forEach(psicologo -> {
-            List<Appointment> citasPsicologo = appointmentRepository.findByPsicologoId(psicologo.getId());
+        userRepository.findResumenByRole("PSICOLOGO").forEach(psicologo -> {
+            AppointmentRepository.PsicologoResumen resumen = resumenPorPsicologo.get(psicologo.getId());
             Map<String, Object> stats = new HashMap<>();
-            stats.put("totalCitas", citasPsicologo.size());
-            stats.put("citasCompletadas", citasPsicologo.stream().filter(a -> "COMPLETADA".equals(a.getEstado())).count());
-            stats.put("ingresos", citasPsicologo.stream().filter(a -> a.getPagado()).mapToDouble(a -> a.getPrecio() != null ? a.getPrecio() : 0.0).sum());
+            stats.put("totalCitas", resumen != null ? resumen.getTotalCitas() : 0L);
+            stats.put("citasCompletadas", resumen != null ? resumen.getCitasCompletadas() : 0L);
+            stats.put("ingresos", resumen != null ? resumen.getIngresos() : 0.0);
             estadisticasPsicologos.put(psicologo.getNombre(), stats);
         });
         
@@ -640,10 +781,10 @@ public ResponseEntity<ClinicalNote> createClinicalNote(@RequestBody Map<String,
         reports.put("totalPsicologos", totalPsicologos);
         reports.put("totalPacientes", totalPacientes);
         reports.put("totalCitas", totalAppointments);
-        reports.put("citasPendientes", pendingAppointments.size());
-        reports.put("citasCompletadas", completedAppointments.size());
-        reports.put("citasCanceladas", cancelledAppointments.size());
-        reports.put("citasPagadas", paidAppointments.size());
+        reports.put("citasPendientes", citasPendientes);
+        reports.put("citasCompletadas", citasCompletadas);
+        reports.put("citasCanceladas", citasCanceladas);
+        reports.put("citasPagadas", citasPagadas);
         reports.put("ingresoTotal", totalIngresos);
         reports.put("ingresosPendientes", ingresosPendientes);
         reports.put("estadisticasPsicologos", estadisticasPsicologos);
@@ -657,48 +798,69 @@ public ResponseEntity<ClinicalNote> createClinicalNote(@RequestBody Map<String,
     public ResponseEntity<Map<String, Object>> getDetailedReports() {
         Map<String, Object> reports = new HashMap<>();
         
-        // Estadísticas básicas
-        long totalUsers = userRepository.count();
-        long totalAppointments = appointmentRepository.count();
-        long totalPayments = paymentRepository.count();
-        long totalClinicalNotes = clinicalNoteRepository.count();
-        
-        // Estadísticas financieras detalladas
-        Double totalIngresos = paymentRepository.sumTotalIngresos();
-        List<Payment> pagosPendientes = paymentRepository.findPagosPendientes();
-        
-        // Estadísticas clínicas
-        List<ClinicalNote> notasRecientes = clinicalNoteRepository.findAll().stream()
-            .sorted((a, b) -> b.getFechaCreacion().compareTo(a.getFechaCreacion()))
-            .limit(10)
-            .collect(Collectors.toList());
-        
-        reports.put("totalUsers", totalUsers);
-        reports.put("totalAppointments", totalAppointments);
-        reports.put("totalPayments", totalPayments);
-        reports.put("totalClinicalNotes", totalClinicalNotes);
-        reports.put("totalIngresos", totalIngresos != null ? totalIngresos : 0.0);
-        reports.put("pagosPendientes", pagosPendientes.size());
-        reports.put("notasRecientes", notasRecientes);
-        
-        // Estadísticas por psicólogo con pagos
-        Map<String, Object> estadisticasPsicologos = new HashMap<>();
-        userRepository.findByRole("PSICOLOGO").forEach(psicologo -> {
-            List<Appointment> citasPsicologo = appointmentRepository.findByPsicologoId(psicologo.getId());
-            List<Payment> pagosPsicologo = paymentRepository.findByPsicologoIdAndEstado(psicologo.getId(), "COMPLETADO");
-            List<ClinicalNote> notasPsicologo = clinicalNoteRepository.findByPsicologoIdOrderByFechaCreacionDesc(psicologo.getId());
+        // Consultas independientes en paralelo: la respuesta tarda lo que la más lenta
+        try (ParallelQueryService.Scope scope = parallelQueryService.open("reports.detailed")) {
+            // Estadísticas básicas
+            ParallelQueryService.Subtask<Long> totalUsers = scope.fork("users.count", userRepository::count);
+            ParallelQueryService.Subtask<Long> totalAppointments =
+                scope.fork("appointments.count", appointmentRepository::count);
+            ParallelQueryService.Subtask<Long> totalPayments = scope.fork("payments.count", paymentRepository::count);
+            ParallelQueryService.Subtask<Long> totalClinicalNotes =
+                scope.fork("clinicalNotes.count", clinicalNoteRepository::count);
             
-            Map<String, Object> stats = new HashMap<>();
-            stats.put("totalCitas", citasPsicologo.size());
-            stats.put("citasCompletadas", citasPsicologo.stream().filter(a -> "COMPLETADA".equals(a.getEstado())).count());
-            stats.put("totalPagos", pagosPsicologo.size());
-            stats.put("ingresos", pagosPsicologo.stream().mapToDouble(Payment::getMonto).sum());
-            stats.put("totalNotasClinicas", notasPsicologo.size());
+            // Estadísticas financieras detalladas
+            ParallelQueryService.Subtask<Double> totalIngresos =
+                scope.fork("payments.ingresos", paymentRepository::sumTotalIngresos);
+            ParallelQueryService.Subtask<Long> pagosPendientes =
+                scope.fork("payments.pendientes", () -> paymentRepository.countByEstado("PENDIENTE"));
             
-            estadisticasPsicologos.put(psicologo.getNombre(), stats);
-        });
-        
-        reports.put("estadisticasPsicologos", estadisticasPsicologos);
+            // Estadísticas clínicas: las 10 notas más recientes, sin contenido LOB
+            ParallelQueryService.Subtask<List<ClinicalNoteRepository.NotaResumen>> notasRecientes =
+                scope.fork("clinicalNotes.recientes", () -> clinicalNoteRepository.findRecentSummaries(PageRequest.of(0, 10)));
+            
+            // Estadísticas por psicólogo con pagos: una consulta agrupada por tabla
+            ParallelQueryService.Subtask<List<UserRepository.UsuarioResumen>> psicologos =
+                scope.fork("users.psicologos", () -> userRepository.findResumenByRole("PSICOLOGO"));
+            ParallelQueryService.Subtask<List<AppointmentRepository.PsicologoResumen>> citasResumen =
+                scope.fork("appointments.porPsicologo", appointmentRepository::resumenPorPsicologo);
+            ParallelQueryService.Subtask<List<PaymentRepository.PsicologoPagos>> pagosResumen =
+                scope.fork("payments.porPsicologo", () -> paymentRepository.resumenPorPsicologoAndEstado("COMPLETADO"));
+            ParallelQueryService.Subtask<List<ClinicalNoteRepository.PsicologoNotas>> notasResumen =
+                scope.fork("clinicalNotes.porPsicologo", clinicalNoteRepository::countGroupByPsicologo);
+            scope.join();
+            
+            reports.put("totalUsers", totalUsers.get());
+            reports.put("totalAppointments", totalAppointments.get());
+            reports.put("totalPayments", totalPayments.get());
+            reports.put("totalClinicalNotes", totalClinicalNotes.get());
+            reports.put("totalIngresos", totalIngresos.get() != null ? totalIngresos.get() : 0.0);
+            reports.put("pagosPendientes", pagosPendientes.get());
+            reports.put("notasRecientes", notasRecientes.get());
+            
+            Map<Long, AppointmentRepository.PsicologoResumen> citasPorPsicologo = new HashMap<>();
+            citasResumen.get().forEach(r -> citasPorPsicologo.put(r.getPsicologoId(), r));
+            Map<Long, PaymentRepository.PsicologoPagos> pagosPorPsicologo = new HashMap<>();
+            pagosResumen.get().forEach(r -> pagosPorPsicologo.put(r.getPsicologoId(), r));
+            Map<Long, Long> notasPorPsicologo = new HashMap<>();
+            notasResumen.get().forEach(r -> notasPorPsicologo.put(r.getPsicologoId(), r.getTotal()));
+            
+            Map<String, Object> estadisticasPsicologos = new HashMap<>();
+            psicologos.get().forEach(psicologo -> {
+                AppointmentRepository.PsicologoResumen citas = citasPorPsicologo.get(psicologo.getId());
+                PaymentRepository.PsicologoPagos pagos = pagosPorPsicologo.get(psicologo.getId());
+                
+                Map<String, Object> stats = new HashMap<>();
+                stats.put("totalCitas", citas != null ? citas.getTotalCitas() : 0L);
+                stats.put("citasCompletadas", citas != null ? citas.getCitasCompletadas() : 0L);
+                stats.put("totalPagos", pagos != null ? pagos.getTotalPagos() : 0L);
+                stats.put("ingresos", pagos != null ? pagos.getIngresos() : 0.0);
+                stats.put("totalNotasClinicas", notasPorPsicologo.getOrDefault(psicologo.getId(), 0L));
+                
+                estadisticasPsicologos.put(psicologo.getNombre(), stats);
+            });
+            
+            reports.put("estadisticasPsicologos", estadisticasPsicologos);
+        }
         
         return ResponseEntity.ok(reports);
     }
@@ -706,73 +868,79 @@ public ResponseEntity<ClinicalNote> createClinicalNote(@RequestBody Map<String,
     // ============= HISTORIAL COMPLETO DEL PACIENTE =============
     
     @GetMapping("/patients/{id}/complete-history")
-    public ResponseEntity<Map<String, Object>> getCompletePatientHistory(@PathVariable Long id) {
+    public ResponseEntity<Map<String, Object>> getCompletePatientHistory(
+            @PathVariable Long id,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime desde,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime hasta) {
         Map<String, Object> history = new HashMap<>();
         
-        // Información del paciente
-        Optional<User> patient = userRepository.findById(id);
-        if (!patient.isPresent()) {
-            return ResponseEntity.notFound().build();
-        }
-        
-        // Historial de citas
-        List<Appointment> appointments = appointmentRepository.findByPacienteId(id);
+        // Ventana de tiempo opcional para los listados (los totales cubren todo el historial)
+        LocalDateTime inicio = desdeOrMin(desde);
+        LocalDateTime fin = hastaOrMax(hasta);
         
-        // Historial de pagos
-        List<Payment> payments = paymentRepository.findByPacienteId(id);
-        
-        // Historial de notas clínicas
-        List<ClinicalNote> clinicalNotes = clinicalNoteRepository.findByPacienteIdOrderByFechaCreacionDesc(id);
-        
-        // Estadísticas del paciente
-        long totalSesiones = appointments.size();
-        long sesionesCompletadas = appointments.stream().filter(a -> "COMPLETADA".equals(a.getEstado())).count();
-        double totalGastado = payments.stream().filter(p -> "COMPLETADO".equals(p.getEstado())).mapToDouble(Payment::getMonto).sum();
-        double pendientePagar = payments.stream().filter(p -> "PENDIENTE".equals(p.getEstado())).mapToDouble(Payment::getMonto).sum();
-        
-        history.put("paciente", patient.get());
-        history.put("appointments", appointments);
-        history.put("payments", payments);
-        history.put("clinicalNotes", clinicalNotes);
-        history.put("totalSesiones", totalSesiones);
-        history.put("sesionesCompletadas", sesionesCompletadas);
-        history.put("totalGastado", totalGastado);
-        history.put("pendientePagar", pendientePagar);
+        // Las cuatro consultas en paralelo; si el paciente no existe los listados se descartan
+        try (ParallelQueryService.Scope scope = parallelQueryService.open("patients.completeHistory")) {
+            // Información del paciente y estadísticas en una sola consulta
+            ParallelQueryService.Subtask<Optional<UserRepository.HistorialResumen>> resumen =
+                scope.fork("users.historialResumen", () -> userRepository.findHistorialResumen(id));
+            ParallelQueryService.Subtask<List<Appointment>> appointments =
+                scope.fork("appointments.paciente",
+                           () -> appointmentRepository.findByPacienteIdAndFechaHoraBetweenOrderByFechaHoraDesc(id, inicio, fin));
+            ParallelQueryService.Subtask<List<Payment>> payments =
+                scope.fork("payments.paciente",
+                           () -> paymentRepository.findByPacienteIdAndFechaPagoBetweenOrderByFechaPagoDesc(id, inicio, fin));
+            // Notas como resumen; el contenido completo se obtiene con GET /clinical-notes/{id}
+            ParallelQueryService.Subtask<List<ClinicalNoteRepository.NotaResumen>> clinicalNotes =
+                scope.fork("clinicalNotes.paciente", () -> clinicalNoteRepository.findSummariesByPacienteId(id, inicio, fin));
+            scope.join();
+            
+            if (!resumen.get().isPresent()) {
+                return ResponseEntity.notFound().build();
+            }
+            UserRepository.HistorialResumen datos = resumen.get().get();
+            history.put("paciente", datos.getPaciente());
+            history.put("appointments", appointments.get());
+            history.put("payments", payments.get());
+            history.put("clinicalNotes", clinicalNotes.get());
+            history.put("totalSesiones", datos.getTotalSesiones());
+            history.put("sesionesCompletadas", datos.getSesionesCompletadas());
+            history.put("totalGastado", datos.getTotalGastado());
+            history.put("pendientePagar", datos.getPendientePagar());
+            history.put("totalNotasClinicas", datos.getTotalNotasClinicas());
+        }
         
         return ResponseEntity.ok(history);
     }
     
     @GetMapping("/reports/psychologist/{id}")
-    public ResponseEntity<Map<String, Object>> getPsychologistReports(@PathVariable Long id) {
-        List<Appointment> appointments = appointmentRepository.findByPsicologoId(id);
-        
-        long totalCitas = appointments.size();
-        long citasCompletadas = appointments.stream().filter(a -> "COMPLETADA".equals(a.getEstado())).count();
-        long citasPendientes = appointments.stream().filter(a -> "RESERVADA".equals(a.getEstado())).count();
-        long citasCanceladas = appointments.stream().filter(a -> "CANCELADA".equals(a.getEstado())).count();
-        
-        double ingresoTotal = appointments.stream()
-            .filter(a -> a.getPagado())
-            .mapToDouble(a -> a.getPrecio() != null ? a.getPrecio() : 0.0)
-            .sum();
-        
-        long pacientesUnicos = appointments.stream()
-            .map(Appointment::getPacienteId)
-            .distinct()
-            .count();
+    public ResponseEntity<Map<String, Object>> getPsychologistReports(@PathVariable Long id,
+                                                                      @RequestParam(defaultValue = "false") boolean incluirCitas) {
+        // Lectura directa de las estadísticas materializadas
+        PsychologistStats stats = psychologistStatsService.getStats(id);
         
         Map<String, Object> report = new HashMap<>();
-        report.put("totalCitas", totalCitas);
-        report.put("citasCompletadas", citasCompletadas);
-        report.put("citasPendientes", citasPendientes);
-        report.put("citasCanceladas", citasCanceladas);
-        report.put("ingresoTotal", ingresoTotal);
-        report.put("pacientesUnicos", pacientesUnicos);
-        report.put("appointments", appointments);
+        report.put("totalCitas", stats.getTotalCitas());
+        report.put("citasCompletadas", stats.getCitasCompletadas());
+        report.put("citasPendientes", stats.getCitasPendientes());
+        report.put("citasCanceladas", stats.getCitasCanceladas());
+        report.put("ingresoTotal", stats.getIngresoTotal());
+        report.put("pacientesUnicos", stats.getPacientesUnicos());
+        // El listado completo de citas es opcional; para recorrerlo usar /appointments/psychologist/{id}/page
+        if (incluirCitas) {
+            report.put("appointments", appointmentRepository.findByPsicologoId(id));
+        }
         
         return ResponseEntity.ok(report);
     }
     
+    // Reparación tras cargar citas por SQL directo: estadísticas e índice de reservas salen de appointments
+    @PostMapping("/reports/psychologist-stats/rebuild")
+    public ResponseEntity<?> rebuildPsychologistStats() {
+        psychologistStatsService.rebuild();
+        reservationService.invalidate();
+        return ResponseEntity.ok(Map.of("message", "Estadísticas reconstruidas e índice de reservas recargado"));
+    }
+    
     @GetMapping("/reports/patient/{id}")
     public ResponseEntity<Map<String, Object>> getPatientReports(@PathVariable Long id) {
         List<Appointment> appointments = appointmentRepository.findByPacienteId(id);
@@ -802,39 +970,160 @@ public ResponseEntity<ClinicalNote> createClinicalNote(@RequestBody Map<String,
     // ============= BÚSQUEDAS Y FILTROS =============
     
     @GetMapping("/appointments/search")
-    public List<Appointment> searchAppointments(
+    public ResponseEntity<?> searchAppointments(
             @RequestParam(required = false) String estado,
             @RequestParam(required = false) String modalidad,
             @RequestParam(required = false) Long psicologoId,
-            @RequestParam(required = false) Long pacienteId) {
+            @RequestParam(required = false) Long pacienteId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime desde,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime hasta,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size) {
         
-        List<Appointment> appointments = appointmentRepository.findAll();
+        // Solo los filtros informados llegan al WHERE de la consulta
+        Specification<Appointment> filtros = AppointmentSpecifications.buscar(
+            estado, modalidad, psicologoId, pacienteId, desde, hasta);
+        Sort orden = Sort.by("fechaHora", "id");
         
-        if (estado != null && !estado.isEmpty()) {
-            appointments = appointments.stream()
-                .filter(a -> estado.equals(a.getEstado()))
-                .collect(Collectors.toList());
+        // Sin parámetros de paginación se mantiene la respuesta como lista
+        if (cursor == null && size == null) {
+            return ResponseEntity.ok(appointmentRepository.findAll(filtros, orden));
         }
         
-        if (modalidad != null && !modalidad.isEmpty()) {
-            appointments = appointments.stream()
-                .filter(a -> modalidad.equals(a.getModalidad()))
-                .collect(Collectors.toList());
+        if (cursor != null) {
+            filtros = filtros.and(AppointmentSpecifications.despuesDe(KeysetCursor.decodeWithFecha(cursor)));
         }
-        
-        if (psicologoId != null) {
-            appointments = appointments.stream()
-                .filter(a -> psicologoId.equals(a.getPsicologoId()))
-                .collect(Collectors.toList());
+        Pageable pageable = pageOf(size != null ? size : 50);
+        // Se pide un registro extra para saber si existe una página siguiente
+        List<Appointment> resultados = appointmentRepository.findBy(filtros,
+            q -> q.sortBy(orden).limit(pageable.getPageSize() + 1).all());
+        boolean hasNext = resultados.size() > pageable.getPageSize();
+        Slice<Appointment> slice = new SliceImpl<>(
+            hasNext ? resultados.subList(0, pageable.getPageSize()) : resultados, pageable, hasNext);
+        return ResponseEntity.ok(toKeysetPage(slice, a -> KeysetCursor.encode(a.getFechaHora(), a.getId())));
+    }
+    
+    // ============= EXPORTACIÓN EN STREAMING =============
+    
+    @GetMapping("/export/appointments")
+    public ResponseEntity<StreamingResponseBody> exportAppointments(
+            @RequestParam(defaultValue = "ndjson") String formato,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime desde,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime hasta) {
+        ExportService.Formato f = exportFormat(formato);
+        return exportResponse("citas", f, exportService.appointments(f, desdeOrMin(desde), hastaOrMax(hasta)));
+    }
+    
+    @GetMapping("/export/payments")
+    public ResponseEntity<StreamingResponseBody> exportPayments(
+            @RequestParam(defaultValue = "ndjson") String formato,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime desde,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime hasta) {
+        ExportService.Formato f = exportFormat(formato);
+        return exportResponse("pagos", f, exportService.payments(f, desdeOrMin(desde), hastaOrMax(hasta)));
+    }
+    
+    @GetMapping("/export/clinical-notes")
+    public ResponseEntity<StreamingResponseBody> exportClinicalNotes(
+            @RequestParam(defaultValue = "ndjson") String formato,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime desde,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime hasta) {
+        ExportService.Formato f = exportFormat(formato);
+        return exportResponse("notas-clinicas", f, exportService.clinicalNotes(f, desdeOrMin(desde), hastaOrMax(hasta)));
+    }
+    
+    private ExportService.Formato exportFormat(String formato) {
+        return "csv".equalsIgnoreCase(formato) ? ExportService.Formato.CSV : ExportService.Formato.NDJSON;
+    }
+    
+    private ResponseEntity<StreamingResponseBody> exportResponse(String nombre, ExportService.Formato formato,
+                                                                 StreamingResponseBody body) {
+        // Una exportación dura lo que tarde en recorrer la tabla: sin plazo asíncrono
+        RequestContextHolder.currentRequestAttributes()
+            .setAttribute(WebConfig.SIN_PLAZO_ASINCRONO, Boolean.TRUE, RequestAttributes.SCOPE_REQUEST);
+        boolean csv = formato == ExportService.Formato.CSV;
+        return ResponseEntity.ok()
+            .contentType(csv ? new MediaType("text", "csv", StandardCharsets.UTF_8)
+                             : MediaType.APPLICATION_NDJSON)
+            .header(HttpHeaders.CONTENT_DISPOSITION,
+                    "attachment; filename=\"" + nombre + (csv ? ".csv" : ".ndjson") + "\"")
+            .body(body);
+    }
+    
+    private LocalDateTime desdeOrMin(LocalDateTime desde) {
+        return desde != null ? desde : FECHA_MINIMA;
+    }
+    
+    private LocalDateTime hastaOrMax(LocalDateTime hasta) {
+        return hasta != null ? hasta : FECHA_MAXIMA;
+    }
+    
+    // ============= PAGINACIÓN =============
+    
+    // Primera "página" de una consulta por keyset; el desplazamiento siempre es 0
+    private Pageable pageOf(int size) {
+        return PageRequest.of(0, Math.max(1, Math.min(size, MAX_PAGE_SIZE)));
+    }
+    
+    private <T> Map<String, Object> toKeysetPage(Slice<T> slice, Function<T, String> cursorOf) {
+        List<T> content = slice.getContent();
+        Map<String, Object> page = new HashMap<>();
+        page.put("content", content);
+        page.put("size", content.size());
+        page.put("next", slice.hasNext() ? cursorOf.apply(content.get(content.size() - 1)) : null);
+        return page;
+    }
+    
+    // ============= ERRORES DE PETICIÓN =============
+    
+    // Campos que no pasan las restricciones de los DTO (@NotNull, @NotBlank, ...)
+    @ExceptionHandler(MethodArgumentNotValidException.class)
+    public ResponseEntity<?> handleInvalidBody(MethodArgumentNotValidException e) {
+        Map<String, String> campos = new LinkedHashMap<>();
+        for (FieldError error : e.getBindingResult().getFieldErrors()) {
+            campos.putIfAbsent(error.getField(), error.getDefaultMessage());
         }
-        
-        if (pacienteId != null) {
-            appointments = appointments.stream()
-                .filter(a -> pacienteId.equals(a.getPacienteId()))
-                .collect(Collectors.toList());
+        return ResponseEntity.badRequest().body(Map.of("error", "Datos inválidos", "campos", campos));
+    }
+    
+    // Cursor inválido o de otro listado, lote demasiado grande, ...
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<?> handleIllegalArgument(IllegalArgumentException e) {
+        return ResponseEntity.badRequest().body(Map.of("error", e.getMessage() != null ? e.getMessage() : "Petición inválida"));
+    }
+    
+    // Un reporte compuesto cuya consulta más lenta superó app.fanout.call-timeout
+    @ExceptionHandler(ParallelQueryService.PlazoExcedidoException.class)
+    public ResponseEntity<?> handleQueryTimeout(ParallelQueryService.PlazoExcedidoException e) {
+        return ResponseEntity.status(HttpStatus.GATEWAY_TIMEOUT).body(Map.of("error", e.getMessage()));
+    }
+    
+    // JSON mal formado o con un tipo incorrecto: se indica el campo (con índice en los lotes)
+    @ExceptionHandler(HttpMessageNotReadableException.class)
+    public ResponseEntity<?> handleUnreadableBody(HttpMessageNotReadableException e) {
+        if (!(e.getCause() instanceof JsonMappingException)) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Cuerpo JSON inválido"));
         }
-        
-        return appointments;
+        JsonMappingException jme = (JsonMappingException) e.getCause();
+        StringBuilder campo = new StringBuilder();
+        for (JsonMappingException.Reference ref : jme.getPath()) {
+            if (ref.getFieldName() != null) {
+                campo.append(campo.length() > 0 ? "." : "").append(ref.getFieldName());
+            } else if (ref.getIndex() >= 0) {
+                campo.append('[').append(ref.getIndex()).append(']');
+            }
+        }
+        String mensaje;
+        if (jme.getCause() instanceof IllegalArgumentException) {
+            // Validación de los setters de PartialUpdate
+            mensaje = jme.getCause().getMessage();
+        } else if (jme instanceof MismatchedInputException && ((MismatchedInputException) jme).getTargetType() != null) {
+            mensaje = "Valor inválido para '" + campo + "': se esperaba "
+                + ((MismatchedInputException) jme).getTargetType().getSimpleName();
+        } else {
+            mensaje = "Valor inválido para '" + campo + "'";
+        }
+        return ResponseEntity.badRequest().body(Map.of("error", mensaje));
     }
     
     // ============= ENDPOINT DE VERIFICACIÓN =============
@@ -846,7 +1135,7 @@ public ResponseEntity<ClinicalNote> createClinicalNote(@RequestBody Map<String,
         result.put("appointments", appointmentRepository.count());
         result.put("payments", paymentRepository.count());
         result.put("clinicalNotes", clinicalNoteRepository.count());
-        result.put("admin_exists", userRepository.findByUsername("admin").isPresent());
+        result.put("admin_exists", userCacheService.findByUsername("admin").isPresent());
         return ResponseEntity.ok(result);
     }
 }
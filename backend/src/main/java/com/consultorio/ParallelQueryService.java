@@ -0,0 +1,250 @@
+package com.consultorio;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Consultas independientes en paralelo para los endpoints compuestos: el tiempo de
+ * respuesta pasa a ser el de la consulta más lenta y no la suma. Se usa con un Scope:
+ * <pre>
+ * try (Scope scope = parallelQueryService.open("reports.detailed")) {
+ *     Subtask&lt;Long&gt; total = scope.fork("users.count", userRepository::count);
+ *     scope.join();
+ *     total.get();
+ * }
+ * </pre>
+ * Cada consulta corre en el pool acotado "fanout-", en su propia transacción de solo
+ * lectura con el timeout por consulta (la base la cancela al vencer). Si una falla o
+ * vence, join() cancela las demás. La interrupción no detiene una consulta JDBC ya
+ * enviada, así que close() espera a que terminen las que llegaron a empezar (como mucho
+ * hasta su plazo más el redondeo a segundos del timeout de la base); las que seguían en
+ * cola se descartan sin ejecutarse.
+ * Cada scope es una observación "consultorio.fanout" con una hija "consultorio.fanout.call"
+ * por consulta (métricas y, con un tracer configurado, spans).
+ */
+@Service
+public class ParallelQueryService {
+
+    private static final Logger log = LoggerFactory.getLogger(ParallelQueryService.class);
+
+    // El timeout de la transacción va en segundos enteros: la base puede cancelar hasta 1 s después del plazo
+    private static final long MARGEN_CIERRE_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final ThreadPoolTaskExecutor executor;
+    private final TransactionTemplate lectura;
+    private final ObservationRegistry observaciones;
+    private final Duration plazo;
+
+    public ParallelQueryService(PlatformTransactionManager transactionManager,
+                                ObjectProvider<ObservationRegistry> observaciones,
+                                @Value("${app.fanout.threads:4}") int hilos,
+                                @Value("${app.fanout.queue-capacity:200}") int capacidadCola,
+                                @Value("${app.fanout.call-timeout:PT5S}") Duration plazo) {
+        this.executor = new ThreadPoolTaskExecutor();
+        this.executor.setCorePoolSize(hilos);
+        this.executor.setMaxPoolSize(hilos);
+        this.executor.setQueueCapacity(capacidadCola);
+        this.executor.setThreadNamePrefix("fanout-");
+        this.executor.initialize();
+        this.lectura = new TransactionTemplate(transactionManager);
+        this.lectura.setReadOnly(true);
+        this.lectura.setTimeout((int) Math.max(1, (plazo.toMillis() + 999) / 1000));
+        this.observaciones = observaciones.getIfAvailable(() -> ObservationRegistry.NOOP);
+        this.plazo = plazo;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    public static class PlazoExcedidoException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        public PlazoExcedidoException(String message) {
+            super(message);
+        }
+    }
+
+    public Scope open(String operacion) {
+        return new Scope(operacion);
+    }
+
+    public final class Scope implements AutoCloseable {
+        private final String operacion;
+        private final Observation observacion;
+        private final long inicio = System.nanoTime();
+        private final List<Subtask<?>> tareas = new ArrayList<>();
+        // Dentro de una transacción del llamador las consultas van en ella, una tras otra
+        private final boolean enLinea = TransactionSynchronizationManager.isActualTransactionActive();
+
+        private Scope(String operacion) {
+            this.operacion = operacion;
+            this.observacion = Observation.createNotStarted("consultorio.fanout", observaciones)
+                                          .contextualName(operacion)
+                                          .lowCardinalityKeyValue("operation", operacion)
+                                          .start();
+        }
+
+        public <T> Subtask<T> fork(String nombre, Supplier<T> consulta) {
+            Subtask<T> tarea = new Subtask<>(nombre, System.nanoTime() + plazo.toNanos());
+            Supplier<T> observada = () -> {
+                long desde = System.nanoTime();
+                try {
+                    return Observation.createNotStarted("consultorio.fanout.call", observaciones)
+                                      .contextualName(operacion + " " + nombre)
+                                      .parentObservation(observacion)
+                                      .lowCardinalityKeyValue("operation", operacion)
+                                      .lowCardinalityKeyValue("call", nombre)
+                                      .observe(consulta);
+                } finally {
+                    tarea.nanos = System.nanoTime() - desde;
+                }
+            };
+            if (enLinea) {
+                tarea.future = CompletableFuture.completedFuture(tarea.ejecutar(observada));
+            } else {
+                Supplier<T> enTransaccion = () -> lectura.execute(status -> observada.get());
+                try {
+                    tarea.future = executor.submit(() -> tarea.ejecutar(enTransaccion));
+                } catch (TaskRejectedException e) {
+                    // Pool saturado: se consulta en el hilo de la petición
+                    tarea.future = CompletableFuture.completedFuture(tarea.ejecutar(enTransaccion));
+                }
+            }
+            tareas.add(tarea);
+            return tarea;
+        }
+
+        // Espera todas las consultas; ante el primer error o plazo vencido cancela el resto
+        public void join() {
+            for (Subtask<?> tarea : tareas) {
+                try {
+                    tarea.await();
+                } catch (TimeoutException e) {
+                    cancelAll();
+                    observacion.error(e);
+                    throw new PlazoExcedidoException("La consulta " + tarea.nombre + " de " + operacion +
+                                                     " superó " + plazo.toMillis() + " ms");
+                } catch (ExecutionException e) {
+                    cancelAll();
+                    observacion.error(e.getCause());
+                    if (e.getCause() instanceof RuntimeException runtime) {
+                        throw runtime;
+                    }
+                    throw new IllegalStateException(e.getCause());
+                } catch (InterruptedException e) {
+                    cancelAll();
+                    Thread.currentThread().interrupt();
+                    throw new CancellationException("Interrumpido esperando " + operacion);
+                }
+            }
+        }
+
+        private void cancelAll() {
+            for (Subtask<?> tarea : tareas) {
+                tarea.future.cancel(true);
+            }
+        }
+
+        // Las canceladas que ya estaban en la base siguen ocupando hilo y conexión hasta terminar
+        private void awaitAll() {
+            for (Subtask<?> tarea : tareas) {
+                try {
+                    if (!tarea.awaitFin(tarea.deadline + MARGEN_CIERRE_NANOS)) {
+                        log.warn("La consulta {} de {} sigue en curso al cerrar el scope", tarea.nombre, operacion);
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+
+        @Override
+        public void close() {
+            cancelAll();
+            awaitAll();
+            observacion.stop();
+            if (log.isDebugEnabled()) {
+                StringBuilder detalle = new StringBuilder();
+                for (Subtask<?> tarea : tareas) {
+                    detalle.append(detalle.length() > 0 ? ", " : "").append(tarea.nombre).append('=')
+                           .append(TimeUnit.NANOSECONDS.toMillis(tarea.nanos)).append(" ms");
+                }
+                log.debug("{} en {} ms ({}): {}", operacion, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - inicio),
+                          enLinea ? "secuencial" : "paralelo", detalle);
+            }
+        }
+    }
+
+    public static final class Subtask<T> {
+        private final String nombre;
+        private final long deadline;
+        private Future<T> future;
+        private T valor;
+        private volatile long nanos;
+        // La toma la consulta al empezar o el cierre del scope si sigue en cola: solo corre una de las dos
+        private final AtomicBoolean reclamada = new AtomicBoolean();
+        private final CountDownLatch fin = new CountDownLatch(1);
+
+        private Subtask(String nombre, long deadline) {
+            this.nombre = nombre;
+            this.deadline = deadline;
+        }
+
+        private T ejecutar(Supplier<T> consulta) {
+            if (!reclamada.compareAndSet(false, true)) {
+                return null;
+            }
+            try {
+                return consulta.get();
+            } finally {
+                fin.countDown();
+            }
+        }
+
+        // true si terminó (o no llegó a empezar) antes del límite
+        private boolean awaitFin(long limite) throws InterruptedException {
+            if (reclamada.compareAndSet(false, true)) {
+                return true;
+            }
+            return fin.await(Math.max(0, limite - System.nanoTime()), TimeUnit.NANOSECONDS);
+        }
+
+        private void await() throws InterruptedException, ExecutionException, TimeoutException {
+            valor = future.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+        }
+
+        // Solo después de Scope.join()
+        public T get() {
+            return valor;
+        }
+    }
+}
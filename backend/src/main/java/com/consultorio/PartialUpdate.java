@@ -0,0 +1,33 @@
+package com.consultorio;
+
+/**
+ * Base de los cuerpos de actualización parcial (PUT). Jackson solo llama al setter
+ * de los campos presentes en el JSON; cada setter marca su bit y applyTo copia a la
+ * entidad únicamente esos campos, sin mapas ni reflexión por petición.
+ * Un null explícito en un campo obligatorio falla al deserializar con el nombre del campo.
+ */
+public abstract class PartialUpdate<E> {
+
+    private long presentes;
+
+    protected final void mark(int campo) {
+        presentes |= 1L << campo;
+    }
+
+    protected final boolean has(int campo) {
+        return (presentes & (1L << campo)) != 0;
+    }
+
+    public final boolean isEmpty() {
+        return presentes == 0;
+    }
+
+    public abstract void applyTo(E entity);
+
+    protected static <T> T notNull(String campo, T valor) {
+        if (valor == null) {
+            throw new IllegalArgumentException("El campo '" + campo + "' no admite null");
+        }
+        return valor;
+    }
+}
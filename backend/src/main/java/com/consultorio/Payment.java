@@ -7,13 +7,15 @@ import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.SequenceGenerator;
 import jakarta.persistence.Table;
 
 @Entity
 @Table(name = "payments")
 public class Payment {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "payments_seq")
+    @SequenceGenerator(name = "payments_seq", sequenceName = "payments_seq", allocationSize = 50)
     private Long id;
     
     @Column(nullable = false)
@@ -46,6 +48,10 @@ public class Payment {
     private String nombrePaciente;
     private String nombrePsicologo;
     
+    // Cabecera Idempotency-Key de la petición que creó el pago (única)
+    @Column(unique = true, length = 100)
+    private String idempotencyKey;
+    
     // Constructors
     public Payment() {}
     
@@ -105,4 +111,7 @@ public class Payment {
     
     public String getNombrePsicologo() { return nombrePsicologo; }
     public void setNombrePsicologo(String nombrePsicologo) { this.nombrePsicologo = nombrePsicologo; }
+    
+    public String getIdempotencyKey() { return idempotencyKey; }
+    public void setIdempotencyKey(String idempotencyKey) { this.idempotencyKey = idempotencyKey; }
 }
\ No newline at end of file
@@ -1,13 +1,23 @@
 package com.consultorio;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
+import org.hibernate.jpa.HibernateHints;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import jakarta.persistence.QueryHint;
+
 @Repository
 public interface PaymentRepository extends JpaRepository<Payment, Long> {
     
@@ -29,6 +39,19 @@ public interface PaymentRepository extends JpaRepository<Payment, Long> {
     // Buscar pagos por rango de fechas
     List<Payment> findByFechaPagoBetween(LocalDateTime fechaInicio, LocalDateTime fechaFin);
     
+    // Pagos de un paciente en una ventana de tiempo (historial)
+    List<Payment> findByPacienteIdAndFechaPagoBetweenOrderByFechaPagoDesc(Long pacienteId, LocalDateTime desde,
+                                                                         LocalDateTime hasta);
+    
+    Optional<Payment> findByIdempotencyKey(String idempotencyKey);
+    
+    List<Payment> findByIdempotencyKeyIn(Collection<String> idempotencyKeys);
+    
+    // Cursor para exportaciones: se recorre dentro de una transacción de solo lectura
+    @QueryHints({@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+                 @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")})
+    Stream<Payment> streamByFechaPagoBetweenOrderByIdAsc(LocalDateTime desde, LocalDateTime hasta);
+    
     // Buscar pagos completados por paciente
     List<Payment> findByPacienteIdAndEstado(Long pacienteId, String estado);
     
@@ -46,18 +69,32 @@ public interface PaymentRepository extends JpaRepository<Payment, Long> {
     // Obtener pagos pendientes
     @Query("SELECT p FROM Payment p WHERE p.estado = 'PENDIENTE' ORDER BY p.fechaPago ASC")
     List<Payment> findPagosPendientes();
+    
+    // Solo la cantidad, para los reportes (usa idx_payments_estado_fecha)
+    Long countByEstado(String estado);
+    
+    // Paginación por keyset sobre id
+    Slice<Payment> findByIdGreaterThanOrderByIdAsc(Long id, Pageable pageable);
+    Slice<Payment> findByPacienteIdAndIdGreaterThanOrderByIdAsc(Long pacienteId, Long id, Pageable pageable);
+    Slice<Payment> findByPsicologoIdAndIdGreaterThanOrderByIdAsc(Long psicologoId, Long id, Pageable pageable);
+    
+    // Pagos de un estado ordenados por (fechaPago, id), como findPagosPendientes: primera página y siguientes
+    Slice<Payment> findByEstadoOrderByFechaPagoAscIdAsc(String estado, Pageable pageable);
+    
+    @Query("SELECT p FROM Payment p WHERE p.estado = :estado " +
+           "AND (p.fechaPago > :fechaPago OR (p.fechaPago = :fechaPago AND p.id > :id)) " +
+           "ORDER BY p.fechaPago ASC, p.id ASC")
+    Slice<Payment> findByEstadoAfter(@Param("estado") String estado, @Param("fechaPago") LocalDateTime fechaPago,
+                                     @Param("id") Long id, Pageable pageable);
+    
+    // Pagos por psicólogo y estado agrupados (cantidad y monto)
+    @Query("SELECT p.psicologoId AS psicologoId, COUNT(p) AS totalPagos, COALESCE(SUM(p.monto), 0.0) AS ingresos " +
+           "FROM Payment p WHERE p.estado = :estado GROUP BY p.psicologoId")
+    List<PsicologoPagos> resumenPorPsicologoAndEstado(@Param("estado") String estado);
+    
+    interface PsicologoPagos {
+        Long getPsicologoId();
+        Long getTotalPagos();
+        Double getIngresos();
+    }
 }
-
-
-
-
-
-
-
-
-
-
-
-
-
-
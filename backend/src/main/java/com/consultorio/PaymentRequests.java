@@ -0,0 +1,104 @@
+package com.consultorio;
+
+import java.time.LocalDateTime;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.PositiveOrZero;
+import jakarta.validation.constraints.Size;
+
+/**
+ * Cuerpos de las peticiones de pagos, deserializados directamente por Jackson.
+ */
+public final class PaymentRequests {
+
+    private PaymentRequests() {
+    }
+
+    // POST /payments y cada ítem de /payments/batch
+    public static final class Crear {
+        @NotNull(message = "es obligatorio")
+        private Long appointmentId;
+
+        @NotNull(message = "es obligatorio")
+        private Long pacienteId;
+
+        @NotNull(message = "es obligatorio")
+        private Long psicologoId;
+
+        @NotNull(message = "es obligatorio")
+        @PositiveOrZero(message = "no puede ser negativo")
+        private Double monto;
+
+        @NotBlank(message = "es obligatorio")
+        private String metodoPago;
+
+        private String nombrePaciente;
+        private String nombrePsicologo;
+
+        // Solo en /payments/batch; en POST /payments se usa la cabecera Idempotency-Key
+        @Size(min = 1, max = 100, message = "debe tener entre 1 y 100 caracteres")
+        private String idempotencyKey;
+
+        public Long getAppointmentId() { return appointmentId; }
+        public void setAppointmentId(Long appointmentId) { this.appointmentId = appointmentId; }
+
+        public Long getPacienteId() { return pacienteId; }
+        public void setPacienteId(Long pacienteId) { this.pacienteId = pacienteId; }
+
+        public Long getPsicologoId() { return psicologoId; }
+        public void setPsicologoId(Long psicologoId) { this.psicologoId = psicologoId; }
+
+        public Double getMonto() { return monto; }
+        public void setMonto(Double monto) { this.monto = monto; }
+
+        public String getMetodoPago() { return metodoPago; }
+        public void setMetodoPago(String metodoPago) { this.metodoPago = metodoPago; }
+
+        public String getNombrePaciente() { return nombrePaciente; }
+        public void setNombrePaciente(String nombrePaciente) { this.nombrePaciente = nombrePaciente; }
+
+        public String getNombrePsicologo() { return nombrePsicologo; }
+        public void setNombrePsicologo(String nombrePsicologo) { this.nombrePsicologo = nombrePsicologo; }
+
+        public String getIdempotencyKey() { return idempotencyKey; }
+        public void setIdempotencyKey(String idempotencyKey) { this.idempotencyKey = idempotencyKey; }
+
+        public Payment toPayment() {
+            Payment payment = new Payment();
+            payment.setAppointmentId(appointmentId);
+            payment.setPacienteId(pacienteId);
+            payment.setPsicologoId(psicologoId);
+            payment.setMonto(monto);
+            payment.setMetodoPago(metodoPago);
+            payment.setEstado("COMPLETADO");
+            payment.setNombrePaciente(nombrePaciente);
+            payment.setNombrePsicologo(nombrePsicologo);
+            payment.setConceptoPago("Consulta psicológica");
+            payment.setFechaPago(LocalDateTime.now());
+            return payment;
+        }
+    }
+
+    // PUT /payments/{id}: solo se modifican los campos enviados
+    public static final class Actualizar extends PartialUpdate<Payment> {
+        private static final int ESTADO = 0;
+        private static final int NUMERO_TRANSACCION = 1;
+        private static final int OBSERVACIONES = 2;
+
+        private String estado;
+        private String numeroTransaccion;
+        private String observaciones;
+
+        public void setEstado(String estado) { this.estado = notNull("estado", estado); mark(ESTADO); }
+        public void setNumeroTransaccion(String numeroTransaccion) { this.numeroTransaccion = numeroTransaccion; mark(NUMERO_TRANSACCION); }
+        public void setObservaciones(String observaciones) { this.observaciones = observaciones; mark(OBSERVACIONES); }
+
+        @Override
+        public void applyTo(Payment payment) {
+            if (has(ESTADO)) payment.setEstado(estado);
+            if (has(NUMERO_TRANSACCION)) payment.setNumeroTransaccion(numeroTransaccion);
+            if (has(OBSERVACIONES)) payment.setObservaciones(observaciones);
+        }
+    }
+}
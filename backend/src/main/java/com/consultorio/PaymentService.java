@@ -0,0 +1,125 @@
+package com.consultorio;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.Optional;
+
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * Registro de pagos en una sola transacción: inserta el pago, marca la cita como
+ * pagada con un UPDATE y actualiza los ingresos del psicólogo. Con Idempotency-Key
+ * un reintento devuelve el pago original en lugar de crear otro.
+ */
+@Service
+public class PaymentService {
+
+    private static final Logger log = LoggerFactory.getLogger(PaymentService.class);
+
+    private static final int BLOQUE_SECUENCIA = 50;
+    private static final DateTimeFormatter FORMATO_FECHA = DateTimeFormatter.BASIC_ISO_DATE;
+
+    private final PaymentRepository paymentRepository;
+    private final AppointmentRepository appointmentRepository;
+    private final PsychologistStatsService psychologistStatsService;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transaction;
+    private final String siguienteBloqueSql;
+
+    // Bloque de la secuencia payment_txn_seq reservado por esta instancia
+    private long siguienteNumero;
+    private long ultimoNumero = -1;
+
+    public PaymentService(PaymentRepository paymentRepository, AppointmentRepository appointmentRepository,
+                          PsychologistStatsService psychologistStatsService, JdbcTemplate jdbcTemplate,
+                          PlatformTransactionManager transactionManager, EntityManagerFactory entityManagerFactory) {
+        this.paymentRepository = paymentRepository;
+        this.appointmentRepository = appointmentRepository;
+        this.psychologistStatsService = psychologistStatsService;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transaction = new TransactionTemplate(transactionManager);
+        // nextval en la sintaxis de la base actual (H2 o PostgreSQL)
+        this.siguienteBloqueSql = entityManagerFactory.unwrap(SessionFactoryImplementor.class).getJdbcServices()
+            .getDialect().getSequenceSupport().getSequenceNextValString("payment_txn_seq");
+    }
+
+    public static final class Resultado {
+        private final Payment payment;
+        private final boolean repetido;
+
+        private Resultado(Payment payment, boolean repetido) {
+            this.payment = payment;
+            this.repetido = repetido;
+        }
+
+        public Payment getPayment() { return payment; }
+        // true si la Idempotency-Key ya tenía un pago y no se creó otro
+        public boolean isRepetido() { return repetido; }
+    }
+
+    public static class ClaveReutilizadaException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        public ClaveReutilizadaException(String message) {
+            super(message);
+        }
+    }
+
+    public Resultado process(Payment payment, String idempotencyKey) {
+        if (idempotencyKey != null) {
+            Optional<Payment> existente = paymentRepository.findByIdempotencyKey(idempotencyKey);
+            if (existente.isPresent()) {
+                return replay(existente.get(), payment);
+            }
+            payment.setIdempotencyKey(idempotencyKey);
+        }
+        payment.setNumeroTransaccion(nextTransactionNumber());
+        try {
+            return new Resultado(transaction.execute(status -> insert(payment)), false);
+        } catch (DataIntegrityViolationException e) {
+            // Dos reintentos simultáneos: el índice único deja pasar solo uno
+            if (idempotencyKey == null) {
+                throw e;
+            }
+            log.debug("Idempotency-Key {} registrada en paralelo", idempotencyKey);
+            return replay(paymentRepository.findByIdempotencyKey(idempotencyKey).orElseThrow(() -> e), payment);
+        }
+    }
+
+    private Payment insert(Payment payment) {
+        Payment saved = paymentRepository.save(payment);
+        if (appointmentRepository.markPaid(saved.getAppointmentId()) > 0) {
+            psychologistStatsService.recordPaid(saved.getAppointmentId());
+        }
+        return saved;
+    }
+
+    private Resultado replay(Payment existente, Payment solicitado) {
+        if (!existente.getAppointmentId().equals(solicitado.getAppointmentId())) {
+            throw new ClaveReutilizadaException("La Idempotency-Key ya se usó para el pago de otra cita");
+        }
+        return new Resultado(existente, true);
+    }
+
+    // TXN-{fecha}-{n}: n sale de una secuencia de base de datos, único entre instancias y reinicios
+    public String nextTransactionNumber() {
+        long numero;
+        synchronized (this) {
+            if (siguienteNumero > ultimoNumero) {
+                ultimoNumero = jdbcTemplate.queryForObject(siguienteBloqueSql, Long.class);
+                siguienteNumero = ultimoNumero - BLOQUE_SECUENCIA + 1;
+            }
+            numero = siguienteNumero++;
+        }
+        return "TXN-" + LocalDate.now().format(FORMATO_FECHA) + "-" + String.format("%08d", numero);
+    }
+}
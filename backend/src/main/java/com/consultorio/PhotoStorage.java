@@ -0,0 +1,73 @@
+package com.consultorio;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.Optional;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+import org.springframework.core.io.Resource;
+
+/**
+ * Almacén de fotos de perfil. Las claves son nombres de archivo planos; las que
+ * empiezan por un SHA-256 se reparten en subdirectorios ab/cd/ para que ningún
+ * directorio crezca sin límite.
+ */
+public interface PhotoStorage {
+
+    Pattern CLAVE_VALIDA = Pattern.compile("[A-Za-z0-9][A-Za-z0-9._-]{0,199}");
+    Pattern PREFIJO_HASH = Pattern.compile("^[0-9a-f]{64}");
+
+    boolean exists(String key) throws IOException;
+
+    // Renueva la fecha de modificación de una clave existente (una foto reutilizada vuelve a
+    // contar como recién subida para la recolección de huérfanos); false si no existe
+    boolean touch(String key) throws IOException;
+
+    // Copia el archivo temporal al almacén; una clave existente se reemplaza de forma atómica
+    void put(String key, Path source, String contentType) throws IOException;
+
+    Optional<StoredObject> stat(String key) throws IOException;
+
+    InputStream open(String key) throws IOException;
+
+    void delete(String key) throws IOException;
+
+    // Recorre todo el almacén (para la recolección de huérfanos); el stream debe cerrarse
+    Stream<StoredObject> list() throws IOException;
+
+    static boolean isValidKey(String key) {
+        return key != null && CLAVE_VALIDA.matcher(key).matches();
+    }
+
+    static String shardedPath(String key) {
+        if (PREFIJO_HASH.matcher(key).find()) {
+            return key.substring(0, 2) + "/" + key.substring(2, 4) + "/" + key;
+        }
+        return key;
+    }
+
+    final class StoredObject {
+        private final String key;
+        private final long size;
+        private final long lastModified;
+        private final Resource resource;
+        private final Path localPath;
+
+        public StoredObject(String key, long size, long lastModified, Resource resource, Path localPath) {
+            this.key = key;
+            this.size = size;
+            this.lastModified = lastModified;
+            this.resource = resource;
+            this.localPath = localPath;
+        }
+
+        public String getKey() { return key; }
+        public long getSize() { return size; }
+        public long getLastModified() { return lastModified; }
+        public Resource getResource() { return resource; }
+        // Solo en el almacén local; permite servir el archivo con sendfile
+        public Path getLocalPath() { return localPath; }
+    }
+}
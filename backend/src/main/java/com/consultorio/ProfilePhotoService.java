@@ -0,0 +1,236 @@
+package com.consultorio;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+/**
+ * Fotos de perfil direccionadas por contenido: el nombre es el SHA-256 del
+ * archivo, así dos subidas iguales comparten almacenamiento y el ETag es fuerte
+ * por construcción. Los archivos que ningún usuario referencia se eliminan
+ * periódicamente.
+ */
+@Service
+public class ProfilePhotoService {
+
+    private static final Logger log = LoggerFactory.getLogger(ProfilePhotoService.class);
+
+    private static final MediaType IMAGE_WEBP = MediaType.parseMediaType("image/webp");
+
+    // Formatos aceptados y la extensión con la que se guardan
+    private static final Map<MediaType, String> FORMATOS = Map.of(
+        MediaType.IMAGE_JPEG, "jpg",
+        MediaType.IMAGE_PNG, "png",
+        MediaType.IMAGE_GIF, "gif",
+        IMAGE_WEBP, "webp");
+
+    private final PhotoStorage storage;
+    private final UserRepository userRepository;
+    private final Duration gcGracia;
+
+    public ProfilePhotoService(PhotoStorage storage, UserRepository userRepository,
+                               @Value("${app.storage.gc-grace:PT1H}") Duration gcGracia) {
+        this.storage = storage;
+        this.userRepository = userRepository;
+        this.gcGracia = gcGracia;
+    }
+
+    public static class FormatoNoPermitidoException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        public FormatoNoPermitidoException(String message) {
+            super(message);
+        }
+    }
+
+    public static final class StoredPhoto {
+        private final PhotoStorage.StoredObject objeto;
+        private final MediaType mediaType;
+
+        private StoredPhoto(PhotoStorage.StoredObject objeto, MediaType mediaType) {
+            this.objeto = objeto;
+            this.mediaType = mediaType;
+        }
+
+        public Path getPath() { return objeto.getLocalPath(); }
+        public Resource getResource() { return objeto.getResource(); }
+        public long getSize() { return objeto.getSize(); }
+        public long getLastModified() { return objeto.getLastModified(); }
+        public MediaType getMediaType() { return mediaType; }
+
+        // Fotos antiguas (profile_{id}_{uuid}) usan tamaño + fecha; nunca se reescriben
+        public String getETag() {
+            String key = objeto.getKey();
+            if (PhotoStorage.PREFIJO_HASH.matcher(key).find()) {
+                return "\"" + stripExtension(key) + "\"";
+            }
+            return "\"" + Long.toHexString(getSize()) + "-" + Long.toHexString(getLastModified()) + "\"";
+        }
+    }
+
+    // Guarda la subida y devuelve su nombre ({sha256}.{ext}); si ya existía no se vuelve a escribir.
+    // Solo se aceptan JPEG, PNG, GIF y WebP reconocidos por su cabecera.
+    public String store(MultipartFile file) throws IOException {
+        Path temporal = Files.createTempFile("foto", ".upload");
+        try {
+            MessageDigest sha256 = sha256();
+            try (InputStream in = new DigestInputStream(file.getInputStream(), sha256)) {
+                Files.copy(in, temporal, StandardCopyOption.REPLACE_EXISTING);
+            }
+            MediaType tipo = detectMediaType(temporal)
+                .orElseThrow(() -> new FormatoNoPermitidoException("Formato de imagen no permitido (solo JPEG, PNG, GIF o WebP)"));
+            String key = HexFormat.of().formatHex(sha256.digest()) + "." + FORMATOS.get(tipo);
+            // Una foto reutilizada se renueva con sus miniaturas: la recolección no debe borrarla
+            // aunque llevara tiempo huérfana, ya que el usuario está por referenciarla
+            if (storage.touch(key)) {
+                log.debug("Foto duplicada, se reutiliza {}", key);
+                for (int tamano : ThumbnailService.TAMANOS) {
+                    storage.touch(ThumbnailService.variantKey(key, tamano));
+                }
+            } else {
+                storage.put(key, temporal, tipo.toString());
+            }
+            return key;
+        } finally {
+            Files.deleteIfExists(temporal);
+        }
+    }
+
+    // Vacío si el archivo no existe o el nombre no es una clave válida
+    public Optional<StoredPhoto> find(String filename) throws IOException {
+        if (!PhotoStorage.isValidKey(filename)) {
+            return Optional.empty();
+        }
+        return storage.stat(filename).map(objeto -> new StoredPhoto(objeto, mediaTypeOf(objeto.getKey())));
+    }
+
+    // Elimina archivos (y miniaturas) que ningún usuario referencia. La gracia evita
+    // borrar una subida cuyo usuario todavía no se ha guardado.
+    @Scheduled(fixedDelayString = "${app.storage.gc-interval:PT6H}",
+               initialDelayString = "${app.storage.gc-initial-delay:PT10M}")
+    public void collectGarbage() {
+        long inicio = System.currentTimeMillis();
+        long limite = inicio - gcGracia.toMillis();
+        Set<String> referenciados = new HashSet<>();
+        for (String url : userRepository.findFotosPerfil()) {
+            referenciados.add(baseName(url.substring(url.lastIndexOf('/') + 1)));
+        }
+        int borrados = 0;
+        try (Stream<PhotoStorage.StoredObject> objetos = storage.list()) {
+            for (PhotoStorage.StoredObject objeto : (Iterable<PhotoStorage.StoredObject>) objetos::iterator) {
+                if (objeto.getLastModified() < limite && !referenciados.contains(baseName(objeto.getKey()))
+                        && !renewedSince(objeto.getKey(), limite)) {
+                    storage.delete(objeto.getKey());
+                    borrados++;
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            log.warn("Recolección de fotos huérfanas interrumpida: {}", e.getMessage());
+        }
+        log.info("Recolección de fotos: {} archivos huérfanos eliminados en {} ms",
+                 borrados, System.currentTimeMillis() - inicio);
+    }
+
+    // El listado puede ser anterior a una subida duplicada que renovó el archivo: se vuelve a
+    // consultar justo antes de borrar
+    private boolean renewedSince(String key, long limite) throws IOException {
+        return storage.stat(key).map(objeto -> objeto.getLastModified() >= limite).orElse(true);
+    }
+
+    // Nombre sin extensión ni sufijo de miniatura: foto_64.jpg y foto.png comparten "foto"
+    static String baseName(String filename) {
+        String base = stripExtension(filename);
+        for (int tamano : ThumbnailService.TAMANOS) {
+            String sufijo = "_" + tamano;
+            if (base.endsWith(sufijo)) {
+                return base.substring(0, base.length() - sufijo.length());
+            }
+        }
+        return base;
+    }
+
+    private static String stripExtension(String filename) {
+        int punto = filename.lastIndexOf('.');
+        return punto > 0 ? filename.substring(0, punto) : filename;
+    }
+
+    // Solo los formatos aceptados; cualquier otra extensión (fotos antiguas) se sirve como binario
+    private MediaType mediaTypeOf(String key) {
+        String extension = key.substring(key.lastIndexOf('.') + 1).toLowerCase(Locale.ROOT);
+        switch (extension) {
+            case "jpg":
+            case "jpeg":
+                return MediaType.IMAGE_JPEG;
+            case "png":
+                return MediaType.IMAGE_PNG;
+            case "gif":
+                return MediaType.IMAGE_GIF;
+            case "webp":
+                return IMAGE_WEBP;
+            default:
+                return MediaType.APPLICATION_OCTET_STREAM;
+        }
+    }
+
+    // Por la cabecera del archivo; ni el nombre ni el Content-Type del cliente cuentan
+    static Optional<MediaType> detectMediaType(Path path) throws IOException {
+        byte[] cabecera = new byte[12];
+        int leidos;
+        try (InputStream in = Files.newInputStream(path)) {
+            leidos = in.readNBytes(cabecera, 0, cabecera.length);
+        }
+        if (leidos >= 3 && startsWith(cabecera, 0, 0xFF, 0xD8, 0xFF)) {
+            return Optional.of(MediaType.IMAGE_JPEG);
+        }
+        if (leidos >= 8 && startsWith(cabecera, 0, 0x89, 'P', 'N', 'G', 0x0D, 0x0A, 0x1A, 0x0A)) {
+            return Optional.of(MediaType.IMAGE_PNG);
+        }
+        if (leidos >= 6 && (startsWith(cabecera, 0, 'G', 'I', 'F', '8', '7', 'a')
+                            || startsWith(cabecera, 0, 'G', 'I', 'F', '8', '9', 'a'))) {
+            return Optional.of(MediaType.IMAGE_GIF);
+        }
+        if (leidos >= 12 && startsWith(cabecera, 0, 'R', 'I', 'F', 'F') && startsWith(cabecera, 8, 'W', 'E', 'B', 'P')) {
+            return Optional.of(IMAGE_WEBP);
+        }
+        return Optional.empty();
+    }
+
+    private static boolean startsWith(byte[] datos, int desde, int... firma) {
+        for (int i = 0; i < firma.length; i++) {
+            if ((datos[desde + i] & 0xFF) != firma[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
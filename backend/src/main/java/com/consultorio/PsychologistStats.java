@@ -0,0 +1,61 @@
+package com.consultorio;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+
+// Estadísticas materializadas por psicólogo, actualizadas en cada escritura de citas
+@Entity
+@Table(name = "psychologist_stats")
+public class PsychologistStats {
+    @Id
+    private Long psicologoId;
+    
+    @Column(nullable = false)
+    private Long totalCitas = 0L;
+    
+    @Column(nullable = false)
+    private Long citasCompletadas = 0L;
+    
+    @Column(nullable = false)
+    private Long citasPendientes = 0L; // RESERVADA
+    
+    @Column(nullable = false)
+    private Long citasCanceladas = 0L;
+    
+    @Column(nullable = false)
+    private Double ingresoTotal = 0.0; // Suma de precio de citas pagadas
+    
+    @Column(nullable = false)
+    private Long pacientesUnicos = 0L;
+    
+    // Constructors
+    public PsychologistStats() {}
+    
+    public PsychologistStats(Long psicologoId) {
+        this.psicologoId = psicologoId;
+    }
+    
+    // Getters and Setters
+    public Long getPsicologoId() { return psicologoId; }
+    public void setPsicologoId(Long psicologoId) { this.psicologoId = psicologoId; }
+    
+    public Long getTotalCitas() { return totalCitas; }
+    public void setTotalCitas(Long totalCitas) { this.totalCitas = totalCitas; }
+    
+    public Long getCitasCompletadas() { return citasCompletadas; }
+    public void setCitasCompletadas(Long citasCompletadas) { this.citasCompletadas = citasCompletadas; }
+    
+    public Long getCitasPendientes() { return citasPendientes; }
+    public void setCitasPendientes(Long citasPendientes) { this.citasPendientes = citasPendientes; }
+    
+    public Long getCitasCanceladas() { return citasCanceladas; }
+    public void setCitasCanceladas(Long citasCanceladas) { this.citasCanceladas = citasCanceladas; }
+    
+    public Double getIngresoTotal() { return ingresoTotal; }
+    public void setIngresoTotal(Double ingresoTotal) { this.ingresoTotal = ingresoTotal; }
+    
+    public Long getPacientesUnicos() { return pacientesUnicos; }
+    public void setPacientesUnicos(Long pacientesUnicos) { this.pacientesUnicos = pacientesUnicos; }
+}
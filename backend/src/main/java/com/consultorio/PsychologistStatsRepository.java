@@ -0,0 +1,91 @@
+package com.consultorio;
+
+import java.util.Optional;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import jakarta.persistence.LockModeType;
+
+@Repository
+public interface PsychologistStatsRepository extends JpaRepository<PsychologistStats, Long> {
+    
+    // Bloquea la fila del psicólogo: serializa las actualizaciones incrementales de sus estadísticas
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM PsychologistStats s WHERE s.psicologoId = :psicologoId")
+    Optional<PsychologistStats> findForUpdate(@Param("psicologoId") Long psicologoId);
+    
+    // Crea la fila vacía si no existe; si otra transacción la está creando espera a que termine
+    // y no hace nada (nunca sobrescribe contadores). PostgreSQL:
+    @Modifying
+    @Query(value = "INSERT INTO psychologist_stats (psicologo_id, total_citas, citas_completadas, citas_pendientes, " +
+                   "citas_canceladas, ingreso_total, pacientes_unicos) VALUES (:psicologoId, 0, 0, 0, 0, 0, 0) " +
+                   "ON CONFLICT (psicologo_id) DO NOTHING", nativeQuery = true)
+    int insertEmptyIfAbsentPostgres(@Param("psicologoId") Long psicologoId);
+    
+    // Lo mismo en H2 (desarrollo), que no admite ON CONFLICT fuera del modo PostgreSQL
+    @Modifying
+    @Query(value = "MERGE INTO psychologist_stats s USING (SELECT CAST(:psicologoId AS BIGINT) AS psicologo_id) v " +
+                   "ON s.psicologo_id = v.psicologo_id WHEN NOT MATCHED THEN INSERT (psicologo_id, total_citas, " +
+                   "citas_completadas, citas_pendientes, citas_canceladas, ingreso_total, pacientes_unicos) " +
+                   "VALUES (v.psicologo_id, 0, 0, 0, 0, 0, 0)", nativeQuery = true)
+    int insertEmptyIfAbsentH2(@Param("psicologoId") Long psicologoId);
+    
+    // Suma el precio de una cita recién pagada a los ingresos de su psicólogo sin cargar la cita
+    @Modifying
+    @Query(value = "UPDATE psychologist_stats SET ingreso_total = ingreso_total + " +
+                   "COALESCE((SELECT a.precio FROM appointments a WHERE a.id = :appointmentId), 0) " +
+                   "WHERE psicologo_id = (SELECT a.psicologo_id FROM appointments a WHERE a.id = :appointmentId)",
+           nativeQuery = true)
+    int addIngresoCita(@Param("appointmentId") Long appointmentId);
+    
+    // ============= PARES PSICÓLOGO-PACIENTE (conteo de pacientes únicos) =============
+    
+    @Modifying
+    @Query(value = "UPDATE psychologist_patients SET citas = citas + :delta " +
+                   "WHERE psicologo_id = :psicologoId AND paciente_id = :pacienteId", nativeQuery = true)
+    int addCitasPaciente(@Param("psicologoId") Long psicologoId, @Param("pacienteId") Long pacienteId,
+                         @Param("delta") long delta);
+    
+    @Modifying
+    @Query(value = "INSERT INTO psychologist_patients (psicologo_id, paciente_id, citas) " +
+                   "VALUES (:psicologoId, :pacienteId, 1)", nativeQuery = true)
+    int insertPaciente(@Param("psicologoId") Long psicologoId, @Param("pacienteId") Long pacienteId);
+    
+    @Modifying
+    @Query(value = "DELETE FROM psychologist_patients " +
+                   "WHERE psicologo_id = :psicologoId AND paciente_id = :pacienteId AND citas <= 0", nativeQuery = true)
+    int deletePacienteSinCitas(@Param("psicologoId") Long psicologoId, @Param("pacienteId") Long pacienteId);
+    
+    // ============= RECONSTRUCCIÓN COMPLETA =============
+    
+    @Modifying
+    @Query(value = "DELETE FROM psychologist_patients", nativeQuery = true)
+    int deleteAllPacientes();
+    
+    @Modifying
+    @Query(value = "DELETE FROM psychologist_stats", nativeQuery = true)
+    int deleteAllStats();
+    
+    @Modifying
+    @Query(value = "INSERT INTO psychologist_patients (psicologo_id, paciente_id, citas) " +
+                   "SELECT psicologo_id, paciente_id, COUNT(*) FROM appointments " +
+                   "GROUP BY psicologo_id, paciente_id", nativeQuery = true)
+    int rebuildPacientes();
+    
+    @Modifying
+    @Query(value = "INSERT INTO psychologist_stats (psicologo_id, total_citas, citas_completadas, citas_pendientes, " +
+                   "citas_canceladas, ingreso_total, pacientes_unicos) " +
+                   "SELECT a.psicologo_id, COUNT(*), " +
+                   "SUM(CASE WHEN a.estado = 'COMPLETADA' THEN 1 ELSE 0 END), " +
+                   "SUM(CASE WHEN a.estado = 'RESERVADA' THEN 1 ELSE 0 END), " +
+                   "SUM(CASE WHEN a.estado = 'CANCELADA' THEN 1 ELSE 0 END), " +
+                   "COALESCE(SUM(CASE WHEN a.pagado = true THEN a.precio ELSE 0 END), 0), " +
+                   "(SELECT COUNT(*) FROM psychologist_patients pp WHERE pp.psicologo_id = a.psicologo_id) " +
+                   "FROM appointments a GROUP BY a.psicologo_id", nativeQuery = true)
+    int rebuildStats();
+}
@@ -0,0 +1,189 @@
+package com.consultorio;
+
+import java.sql.DatabaseMetaData;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import javax.sql.DataSource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.support.JdbcUtils;
+import org.springframework.jdbc.support.MetaDataAccessException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Mantiene psychologist_stats de forma incremental. Cada escritura de citas
+ * informa la cita antes y después del cambio y se aplica solo la diferencia.
+ */
+@Service
+public class PsychologistStatsService {
+
+    private static final Logger log = LoggerFactory.getLogger(PsychologistStatsService.class);
+
+    private final PsychologistStatsRepository statsRepository;
+    private final boolean postgres;
+
+    @Value("${app.stats.rebuild-on-startup:false}")
+    private boolean rebuildOnStartup;
+
+    public PsychologistStatsService(PsychologistStatsRepository statsRepository, DataSource dataSource)
+            throws MetaDataAccessException {
+        this.statsRepository = statsRepository;
+        this.postgres = "PostgreSQL".equals(
+            JdbcUtils.extractDatabaseMetaData(dataSource, DatabaseMetaData::getDatabaseProductName));
+    }
+
+    // Lo que aporta una cita a las estadísticas; se toma antes de modificarla
+    public static final class Snapshot {
+        private final Long psicologoId;
+        private final Long pacienteId;
+        private final String estado;
+        private final boolean pagado;
+        private final double precio;
+
+        private Snapshot(Appointment appointment) {
+            this.psicologoId = appointment.getPsicologoId();
+            this.pacienteId = appointment.getPacienteId();
+            this.estado = appointment.getEstado();
+            this.pagado = Boolean.TRUE.equals(appointment.getPagado());
+            this.precio = appointment.getPrecio() != null ? appointment.getPrecio() : 0.0;
+        }
+
+        public static Snapshot of(Appointment appointment) {
+            return new Snapshot(appointment);
+        }
+    }
+
+    public PsychologistStats getStats(Long psicologoId) {
+        return statsRepository.findById(psicologoId).orElseGet(() -> new PsychologistStats(psicologoId));
+    }
+
+    // antes == null para citas nuevas, despues == null para citas eliminadas
+    @Transactional
+    public void record(Snapshot antes, Snapshot despues) {
+        recordAll(Collections.singletonList(antes), Collections.singletonList(despues));
+    }
+
+    // Igual que record para varias citas (antes.get(i) -> despues.get(i)): cada psicólogo y cada
+    // par psicólogo-paciente se actualiza una sola vez, así las altas en lote no se intercalan
+    // con UPDATEs por cita
+    @Transactional
+    public void recordAll(List<Snapshot> antes, List<Snapshot> despues) {
+        // TreeMap: las filas se bloquean siempre en el mismo orden y dos lotes no se bloquean mutuamente
+        Map<Long, PsychologistStats> porPsicologo = new TreeMap<>();
+        for (int i = 0; i < antes.size(); i++) {
+            for (Snapshot cita : Arrays.asList(antes.get(i), despues.get(i))) {
+                if (cita != null) {
+                    porPsicologo.put(cita.psicologoId, null);
+                }
+            }
+        }
+        porPsicologo.replaceAll((psicologoId, stats) -> lockStats(psicologoId));
+
+        Map<Long, Map<Long, Long>> citasPorPaciente = new TreeMap<>();
+        for (int i = 0; i < antes.size(); i++) {
+            Snapshot anterior = antes.get(i);
+            Snapshot nueva = despues.get(i);
+            if (anterior != null) {
+                apply(porPsicologo.get(anterior.psicologoId), anterior, -1);
+            }
+            if (nueva != null) {
+                apply(porPsicologo.get(nueva.psicologoId), nueva, 1);
+            }
+            boolean mismoPar = anterior != null && nueva != null && anterior.psicologoId.equals(nueva.psicologoId)
+                && anterior.pacienteId.equals(nueva.pacienteId);
+            if (!mismoPar) {
+                if (anterior != null) {
+                    citasPorPaciente.computeIfAbsent(anterior.psicologoId, id -> new TreeMap<>())
+                        .merge(anterior.pacienteId, -1L, Long::sum);
+                }
+                if (nueva != null) {
+                    citasPorPaciente.computeIfAbsent(nueva.psicologoId, id -> new TreeMap<>())
+                        .merge(nueva.pacienteId, 1L, Long::sum);
+                }
+            }
+        }
+
+        citasPorPaciente.forEach((psicologoId, pacientes) -> {
+            PsychologistStats stats = porPsicologo.get(psicologoId);
+            pacientes.forEach((pacienteId, delta) -> {
+                if (delta < 0) {
+                    statsRepository.addCitasPaciente(psicologoId, pacienteId, delta);
+                    if (statsRepository.deletePacienteSinCitas(psicologoId, pacienteId) > 0) {
+                        stats.setPacientesUnicos(stats.getPacientesUnicos() - 1);
+                    }
+                } else if (delta > 0 && statsRepository.addCitasPaciente(psicologoId, pacienteId, delta) == 0) {
+                    statsRepository.insertPaciente(psicologoId, pacienteId);
+                    if (delta > 1) {
+                        statsRepository.addCitasPaciente(psicologoId, pacienteId, delta - 1);
+                    }
+                    stats.setPacientesUnicos(stats.getPacientesUnicos() + 1);
+                }
+            });
+        });
+        statsRepository.saveAll(porPsicologo.values());
+    }
+
+    // La cita pasó a pagada con un UPDATE directo (PaymentService): solo cambian los ingresos
+    @Transactional
+    public void recordPaid(Long appointmentId) {
+        if (statsRepository.addIngresoCita(appointmentId) == 0) {
+            log.warn("Sin fila de estadísticas para la cita pagada {}; ejecute el rebuild", appointmentId);
+        }
+    }
+
+    // Recalcula todas las estadísticas desde appointments (reparación de desvíos)
+    @Transactional
+    public void rebuild() {
+        long inicio = System.currentTimeMillis();
+        statsRepository.deleteAllStats();
+        statsRepository.deleteAllPacientes();
+        statsRepository.rebuildPacientes();
+        int psicologos = statsRepository.rebuildStats();
+        log.info("Estadísticas de {} psicólogos reconstruidas en {} ms", psicologos, System.currentTimeMillis() - inicio);
+    }
+
+    // data.sql se ejecuta después de Flyway, así que en desarrollo hay que recalcular al iniciar
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void rebuildOnStartup() {
+        if (rebuildOnStartup) {
+            rebuild();
+        }
+    }
+
+    private void apply(PsychologistStats stats, Snapshot cita, int signo) {
+        stats.setTotalCitas(stats.getTotalCitas() + signo);
+        if ("COMPLETADA".equals(cita.estado)) {
+            stats.setCitasCompletadas(stats.getCitasCompletadas() + signo);
+        } else if ("RESERVADA".equals(cita.estado)) {
+            stats.setCitasPendientes(stats.getCitasPendientes() + signo);
+        } else if ("CANCELADA".equals(cita.estado)) {
+            stats.setCitasCanceladas(stats.getCitasCanceladas() + signo);
+        }
+        if (cita.pagado) {
+            stats.setIngresoTotal(stats.getIngresoTotal() + signo * cita.precio);
+        }
+    }
+
+    // La primera escritura de un psicólogo crea su fila en la misma transacción con un upsert
+    // que no falla si otra petición la creó antes; después se bloquea la fila
+    private PsychologistStats lockStats(Long psicologoId) {
+        return statsRepository.findForUpdate(psicologoId).orElseGet(() -> {
+            if (postgres) {
+                statsRepository.insertEmptyIfAbsentPostgres(psicologoId);
+            } else {
+                statsRepository.insertEmptyIfAbsentH2(psicologoId);
+            }
+            return statsRepository.findForUpdate(psicologoId).orElseThrow();
+        });
+    }
+}
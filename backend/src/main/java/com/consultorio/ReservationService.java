@@ -0,0 +1,361 @@
+package com.consultorio;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Objects;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Evita reservas solapadas para un mismo psicólogo. Cada psicólogo tiene un
+ * índice en memoria con los horarios ocupados (citas no canceladas) actuales y
+ * futuros, cargado desde la base al primer uso; las ventanas anteriores al índice
+ * (reservas con fecha pasada) se consultan a la base. La comprobación y el alta se
+ * hacen bajo un lock por franja de psicologoId, así que psicólogos distintos no
+ * compiten entre sí. El índice es local a la instancia: supone un único backend
+ * escribiendo citas.
+ */
+@Service
+public class ReservationService {
+
+    private static final int FRANJAS = 64;
+
+    private final AppointmentRepository appointmentRepository;
+    private final TransactionTemplate lecturaAislada;
+    private final Duration duracion;
+    private final ReentrantLock[] locks = new ReentrantLock[FRANJAS];
+    private final Map<Long, Indice> indices = new ConcurrentHashMap<>();
+    // Mapas de bits por día (bloques de HorarioAtencion.MINUTOS_BLOQUE) derivados del índice
+    private final Map<Long, Map<LocalDate, Long>> mascaras = new ConcurrentHashMap<>();
+
+    public ReservationService(AppointmentRepository appointmentRepository,
+                              PlatformTransactionManager transactionManager,
+                              @Value("${app.citas.duracion-minutos:60}") long duracionMinutos) {
+        this.appointmentRepository = appointmentRepository;
+        this.lecturaAislada = new TransactionTemplate(transactionManager);
+        this.lecturaAislada.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.lecturaAislada.setReadOnly(true);
+        this.duracion = Duration.ofMinutes(duracionMinutos);
+        for (int i = 0; i < FRANJAS; i++) {
+            locks[i] = new ReentrantLock();
+        }
+    }
+
+    public static class ConflictoHorarioException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        public ConflictoHorarioException(String message) {
+            super(message);
+        }
+    }
+
+    // Horario que ocupa una cita; null si está cancelada
+    public static final class Slot {
+        private static final Comparator<Slot> ORDEN =
+            Comparator.comparing((Slot s) -> s.inicio).thenComparing(s -> s.citaId);
+
+        private final Long citaId;
+        private final Long psicologoId;
+        private final LocalDateTime inicio;
+
+        private Slot(Long citaId, Long psicologoId, LocalDateTime inicio) {
+            this.citaId = citaId;
+            this.psicologoId = psicologoId;
+            this.inicio = inicio;
+        }
+
+        public static Slot of(Appointment appointment) {
+            if ("CANCELADA".equals(appointment.getEstado())) {
+                return null;
+            }
+            return new Slot(appointment.getId(), appointment.getPsicologoId(), appointment.getFechaHora());
+        }
+
+        public Long getCitaId() { return citaId; }
+        public LocalDateTime getInicio() { return inicio; }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Slot)) {
+                return false;
+            }
+            Slot otro = (Slot) o;
+            return Objects.equals(citaId, otro.citaId) && Objects.equals(psicologoId, otro.psicologoId)
+                && Objects.equals(inicio, otro.inicio);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(citaId, psicologoId, inicio);
+        }
+    }
+
+    // Horarios ocupados de un psicólogo con inicio desde "desde" (el momento de la carga
+    // menos una duración: lo anterior ya no puede solaparse con una reserva nueva)
+    private static final class Indice {
+        private final NavigableSet<Slot> slots = new ConcurrentSkipListSet<>(Slot.ORDEN);
+        private final LocalDateTime desde;
+
+        private Indice(LocalDateTime desde) {
+            this.desde = desde;
+        }
+    }
+
+    public Duration getDuracion() {
+        return duracion;
+    }
+
+    // Guarda la cita ocupando su horario. "anterior" es el horario antes de modificarla
+    // (null para citas nuevas); se libera cuando la transacción confirma.
+    public Appointment reserve(Slot anterior, Appointment cita, Function<Appointment, Appointment> guardar) {
+        Slot nuevo = Slot.of(cita);
+        if (nuevo == null || nuevo.equals(anterior)) {
+            Appointment saved = guardar.apply(cita);
+            if (nuevo == null) {
+                release(anterior);
+            }
+            return saved;
+        }
+
+        ReentrantLock lock = lockFor(nuevo.psicologoId);
+        lock.lock();
+        try {
+            Indice indice = indexFor(nuevo.psicologoId);
+            Slot conflicto = findConflict(nuevo.psicologoId, indice, nuevo.inicio, cita.getId());
+            if (conflicto != null) {
+                throw new ConflictoHorarioException("El psicólogo ya tiene una cita a las " + conflicto.inicio);
+            }
+            Appointment saved = guardar.apply(cita);
+            Slot reservado = new Slot(saved.getId(), saved.getPsicologoId(), saved.getFechaHora());
+            indice.slots.add(reservado);
+            invalidateMasks(reservado);
+            onRollback(() -> remove(reservado));
+            release(anterior);
+            return saved;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Libera el horario de una cita eliminada o cancelada cuando la transacción confirma
+    public void release(Slot slot) {
+        if (slot != null) {
+            onCommit(() -> remove(slot));
+        }
+    }
+
+    public boolean isAvailable(Long psicologoId, LocalDateTime inicio) {
+        return findConflict(psicologoId, indexFor(psicologoId), inicio, null) == null;
+    }
+
+    // Inicios de las citas que se solapan con [desde, hasta)
+    public List<LocalDateTime> occupiedBetween(Long psicologoId, LocalDateTime desde, LocalDateTime hasta) {
+        List<LocalDateTime> ocupados = new ArrayList<>();
+        for (Slot slot : slotsBetween(psicologoId, indexFor(psicologoId), desde.minus(duracion), hasta)) {
+            ocupados.add(slot.inicio);
+        }
+        return ocupados;
+    }
+
+    // Bloques ocupados del día; se calcula una vez y se descarta cuando cambia una cita de ese día
+    public long occupiedMask(Long psicologoId, LocalDate dia) {
+        Map<LocalDate, Long> porDia = mascaras.computeIfAbsent(psicologoId, id -> new ConcurrentHashMap<>());
+        Long mascara = porDia.get(dia);
+        if (mascara != null) {
+            return mascara;
+        }
+        Indice indice = indexFor(psicologoId);
+        ReentrantLock lock = lockFor(psicologoId);
+        lock.lock();
+        try {
+            return porDia.computeIfAbsent(dia, d -> buildMask(psicologoId, indice, d));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Carga en una sola consulta los índices que falten (búsquedas sobre muchos psicólogos)
+    public void ensureLoaded(Collection<Long> psicologoIds) {
+        List<Long> faltantes = new ArrayList<>();
+        for (Long id : psicologoIds) {
+            if (!indices.containsKey(id)) {
+                faltantes.add(id);
+            }
+        }
+        if (faltantes.size() <= 1) {
+            return;
+        }
+        LocalDateTime desde = LocalDateTime.now().minus(duracion);
+        Map<Long, Indice> cargados = new HashMap<>();
+        lecturaAislada.executeWithoutResult(status -> {
+            for (Long id : faltantes) {
+                cargados.put(id, new Indice(desde));
+            }
+            for (AppointmentRepository.HorarioOcupado h : appointmentRepository.findHorariosOcupados(faltantes, desde)) {
+                cargados.get(h.getPsicologoId()).slots.add(new Slot(h.getId(), h.getPsicologoId(), h.getFechaHora()));
+            }
+        });
+        cargados.forEach((id, indice) -> {
+            ReentrantLock lock = lockFor(id);
+            lock.lock();
+            try {
+                indices.putIfAbsent(id, indice);
+            } finally {
+                lock.unlock();
+            }
+        });
+    }
+
+    // Descarta los índices; se recargan al siguiente uso. Hace falta tras escribir citas sin
+    // pasar por reserve (SQL directo, DataGeneratorRunner): POST /reports/psychologist-stats/rebuild
+    public void invalidate() {
+        indices.clear();
+        mascaras.clear();
+    }
+
+    private long buildMask(Long psicologoId, Indice indice, LocalDate dia) {
+        LocalDateTime inicioDia = dia.atStartOfDay();
+        LocalDateTime finDia = inicioDia.plusDays(1);
+        long mascara = 0;
+        for (Slot slot : slotsBetween(psicologoId, indice, inicioDia.minus(duracion), finDia)) {
+            LocalDateTime desde = slot.inicio.isBefore(inicioDia) ? inicioDia : slot.inicio;
+            LocalDateTime hasta = slot.inicio.plus(duracion).isAfter(finDia) ? finDia : slot.inicio.plus(duracion);
+            long minutosDesde = Duration.between(inicioDia, desde).toMinutes();
+            long minutosHasta = Duration.between(inicioDia, hasta).toMinutes();
+            int bloqueDesde = (int) (minutosDesde / HorarioAtencion.MINUTOS_BLOQUE);
+            int bloqueHasta = (int) ((minutosHasta + HorarioAtencion.MINUTOS_BLOQUE - 1) / HorarioAtencion.MINUTOS_BLOQUE);
+            mascara |= HorarioAtencion.rangoBits(bloqueDesde, bloqueHasta);
+        }
+        return mascara;
+    }
+
+    private void invalidateMasks(Slot slot) {
+        Map<LocalDate, Long> porDia = mascaras.get(slot.psicologoId);
+        if (porDia != null) {
+            porDia.remove(slot.inicio.toLocalDate());
+            porDia.remove(slot.inicio.plus(duracion).toLocalDate());
+        }
+    }
+
+    // Solapa si el otro inicio cae en (inicio - duración, inicio + duración)
+    private Slot findConflict(Long psicologoId, Indice indice, LocalDateTime inicio, Long excluirCitaId) {
+        for (Slot slot : slotsBetween(psicologoId, indice, inicio.minus(duracion), inicio.plus(duracion))) {
+            if (!slot.citaId.equals(excluirCitaId)) {
+                return slot;
+            }
+        }
+        return null;
+    }
+
+    // Horarios con inicio en (desde, hasta); lo anterior al índice se lee de la base
+    private NavigableSet<Slot> slotsBetween(Long psicologoId, Indice indice, LocalDateTime desde, LocalDateTime hasta) {
+        NavigableSet<Slot> slots = new TreeSet<>(Slot.ORDEN);
+        if (desde.isBefore(indice.desde)) {
+            LocalDateTime tope = hasta.isBefore(indice.desde) ? hasta : indice.desde;
+            for (AppointmentRepository.HorarioOcupado h :
+                     read(() -> appointmentRepository.findHorariosOcupadosEntre(psicologoId, desde, tope))) {
+                slots.add(new Slot(h.getId(), psicologoId, h.getFechaHora()));
+            }
+        }
+        slots.addAll(indice.slots.subSet(new Slot(Long.MAX_VALUE, null, desde), false,
+                                         new Slot(Long.MIN_VALUE, null, hasta), false));
+        return slots;
+    }
+
+    private Indice indexFor(Long psicologoId) {
+        Indice indice = indices.get(psicologoId);
+        if (indice != null) {
+            return indice;
+        }
+        ReentrantLock lock = lockFor(psicologoId);
+        lock.lock();
+        try {
+            return indices.computeIfAbsent(psicologoId, id -> read(() -> load(id)));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private Indice load(Long psicologoId) {
+        Indice cargado = new Indice(LocalDateTime.now().minus(duracion));
+        for (AppointmentRepository.HorarioOcupado h : appointmentRepository.findHorariosOcupados(psicologoId, cargado.desde)) {
+            cargado.slots.add(new Slot(h.getId(), psicologoId, h.getFechaHora()));
+        }
+        return cargado;
+    }
+
+    // Dentro de una reserva se lee en la transacción actual (las consultas no hacen flush):
+    // una transacción aparte pediría una segunda conexión con la primera retenida y,
+    // con tantas reservas simultáneas como conexiones, el pool se bloquearía
+    private <T> T read(Supplier<T> consulta) {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            return consulta.get();
+        }
+        return lecturaAislada.execute(status -> consulta.get());
+    }
+
+    private void remove(Slot slot) {
+        ReentrantLock lock = lockFor(slot.psicologoId);
+        lock.lock();
+        try {
+            Indice indice = indices.get(slot.psicologoId);
+            if (indice != null) {
+                indice.slots.remove(slot);
+                invalidateMasks(slot);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private ReentrantLock lockFor(Long psicologoId) {
+        return locks[Math.floorMod(psicologoId.hashCode(), FRANJAS)];
+    }
+
+    private void onCommit(Runnable accion) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            accion.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                accion.run();
+            }
+        });
+    }
+
+    private void onRollback(Runnable accion) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status != STATUS_COMMITTED) {
+                    accion.run();
+                }
+            }
+        });
+    }
+}
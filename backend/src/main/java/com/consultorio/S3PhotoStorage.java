@@ -0,0 +1,204 @@
+package com.consultorio;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.file.Path;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.io.AbstractResource;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PreDestroy;
+import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
+import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.http.urlconnection.UrlConnectionHttpClient;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.S3ClientBuilder;
+import software.amazon.awssdk.services.s3.model.HeadObjectResponse;
+import software.amazon.awssdk.services.s3.model.MetadataDirective;
+import software.amazon.awssdk.services.s3.model.S3Exception;
+
+/**
+ * Almacén en un bucket compatible con S3 (AWS, MinIO, etc.). Con un endpoint
+ * propio y path-style se puede probar contra un MinIO local.
+ */
+@Component
+@ConditionalOnProperty(name = "app.storage.type", havingValue = "s3")
+public class S3PhotoStorage implements PhotoStorage {
+
+    private final S3Client s3;
+    private final String bucket;
+    private final String prefix;
+
+    public S3PhotoStorage(@Value("${app.storage.s3.bucket}") String bucket,
+                          @Value("${app.storage.s3.prefix:profile-images/}") String prefix,
+                          @Value("${app.storage.s3.region:us-east-1}") String region,
+                          @Value("${app.storage.s3.endpoint:}") String endpoint,
+                          @Value("${app.storage.s3.path-style:true}") boolean pathStyle,
+                          @Value("${app.storage.s3.access-key:}") String accessKey,
+                          @Value("${app.storage.s3.secret-key:}") String secretKey) {
+        S3ClientBuilder builder = S3Client.builder()
+            .region(Region.of(region))
+            .httpClientBuilder(UrlConnectionHttpClient.builder())
+            .forcePathStyle(pathStyle);
+        if (!endpoint.isEmpty()) {
+            builder.endpointOverride(URI.create(endpoint));
+        }
+        if (!accessKey.isEmpty()) {
+            builder.credentialsProvider(StaticCredentialsProvider.create(AwsBasicCredentials.create(accessKey, secretKey)));
+        }
+        this.s3 = builder.build();
+        this.bucket = bucket;
+        this.prefix = prefix;
+    }
+
+    @PreDestroy
+    public void close() {
+        s3.close();
+    }
+
+    @Override
+    public boolean exists(String key) throws IOException {
+        return head(key) != null;
+    }
+
+    // S3 no permite cambiar la fecha de un objeto: se copia sobre sí mismo reemplazando los
+    // metadatos (los mismos), lo que crea una versión nueva con LastModified actual
+    @Override
+    public boolean touch(String key) throws IOException {
+        HeadObjectResponse head = head(key);
+        if (head == null) {
+            return false;
+        }
+        try {
+            s3.copyObject(b -> b.sourceBucket(bucket).sourceKey(objectKey(key))
+                                .destinationBucket(bucket).destinationKey(objectKey(key))
+                                .metadataDirective(MetadataDirective.REPLACE)
+                                .contentType(head.contentType())
+                                .metadata(head.metadata()));
+            return true;
+        } catch (S3Exception e) {
+            if (e.statusCode() == 404) {
+                return false;
+            }
+            throw new IOException("Error al renovar " + key + " en S3", e);
+        }
+    }
+
+    @Override
+    public void put(String key, Path source, String contentType) throws IOException {
+        try {
+            s3.putObject(b -> b.bucket(bucket).key(objectKey(key)).contentType(contentType),
+                         RequestBody.fromFile(source));
+        } catch (S3Exception e) {
+            throw new IOException("Error al subir " + key + " a S3", e);
+        }
+    }
+
+    @Override
+    public Optional<StoredObject> stat(String key) throws IOException {
+        HeadObjectResponse head = head(key);
+        if (head == null) {
+            return Optional.empty();
+        }
+        long size = head.contentLength();
+        long lastModified = head.lastModified().toEpochMilli();
+        return Optional.of(new StoredObject(key, size, lastModified, new S3Resource(key, size, lastModified), null));
+    }
+
+    @Override
+    public InputStream open(String key) throws IOException {
+        try {
+            return s3.getObject(b -> b.bucket(bucket).key(objectKey(key)));
+        } catch (S3Exception e) {
+            throw new IOException("Error al leer " + key + " de S3", e);
+        }
+    }
+
+    @Override
+    public void delete(String key) throws IOException {
+        try {
+            s3.deleteObject(b -> b.bucket(bucket).key(objectKey(key)));
+        } catch (S3Exception e) {
+            throw new IOException("Error al borrar " + key + " de S3", e);
+        }
+    }
+
+    @Override
+    public Stream<StoredObject> list() throws IOException {
+        try {
+            return s3.listObjectsV2Paginator(b -> b.bucket(bucket).prefix(prefix)).contents().stream()
+                .filter(objeto -> PhotoStorage.isValidKey(keyOf(objeto.key())))
+                .map(objeto -> new StoredObject(keyOf(objeto.key()), objeto.size(),
+                                                objeto.lastModified().toEpochMilli(), null, null));
+        } catch (S3Exception e) {
+            throw new IOException("Error al listar el bucket " + bucket, e);
+        }
+    }
+
+    private String keyOf(String objectKey) {
+        return objectKey.substring(objectKey.lastIndexOf('/') + 1);
+    }
+
+    private HeadObjectResponse head(String key) throws IOException {
+        try {
+            return s3.headObject(b -> b.bucket(bucket).key(objectKey(key)));
+        } catch (S3Exception e) {
+            if (e.statusCode() == 404) {
+                return null;
+            }
+            throw new IOException("Error al consultar " + key + " en S3", e);
+        }
+    }
+
+    private String objectKey(String key) {
+        if (!PhotoStorage.isValidKey(key)) {
+            throw new IllegalArgumentException("Clave de foto inválida: " + key);
+        }
+        return prefix + PhotoStorage.shardedPath(key);
+    }
+
+    // Cada lectura abre un GET nuevo, así Spring puede servir rangos sobre el recurso
+    private final class S3Resource extends AbstractResource {
+        private final String key;
+        private final long size;
+        private final long lastModified;
+
+        private S3Resource(String key, long size, long lastModified) {
+            this.key = key;
+            this.size = size;
+            this.lastModified = lastModified;
+        }
+
+        @Override
+        public InputStream getInputStream() throws IOException {
+            return open(key);
+        }
+
+        @Override
+        public long contentLength() {
+            return size;
+        }
+
+        @Override
+        public long lastModified() {
+            return lastModified;
+        }
+
+        @Override
+        public String getFilename() {
+            return key;
+        }
+
+        @Override
+        public String getDescription() {
+            return "s3://" + bucket + "/" + objectKey(key);
+        }
+    }
+}
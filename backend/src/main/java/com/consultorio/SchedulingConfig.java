@@ -0,0 +1,10 @@
+package com.consultorio;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+// Tareas periódicas (recolección de fotos huérfanas, escritura de última conexión)
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
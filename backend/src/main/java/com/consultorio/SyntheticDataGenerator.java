@@ -0,0 +1,277 @@
+package com.consultorio;
+
+import java.math.BigInteger;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Genera datos sintéticos con integridad referencial (psicólogos, pacientes,
+ * citas, pagos y notas clínicas) para pruebas de carga.
+ *
+ * Usuarios y citas se insertan con lotes JDBC; pagos y notas se derivan de las
+ * citas con INSERT ... SELECT por rangos de id, sin pasar filas por la JVM.
+ * Las citas de un mismo psicólogo nunca se solapan. En PostgreSQL conviene
+ * agregar reWriteBatchedInserts=true a la URL JDBC.
+ */
+public class SyntheticDataGenerator {
+
+    private static final Logger log = LoggerFactory.getLogger(SyntheticDataGenerator.class);
+
+    // BCrypt (factor 10) de "gen123", la contraseña de todos los usuarios generados
+    private static final String PASSWORD_GENERADA = "$2a$10$Q2hWqo3/nZXGkYBbCIzKme3p2oNEN3.J6tPUOWonbd3b3QgJJ0fK2";
+
+    private static final String[] NOMBRES = {"Ana", "Carlos", "María", "Luis", "Lucía", "Jorge", "Rosa",
+        "Miguel", "Carmen", "José", "Elena", "Pedro", "Sofía", "Diego", "Valeria", "Andrés"};
+    private static final String[] APELLIDOS = {"García", "López", "Rodríguez", "Pérez", "Torres", "Ramírez",
+        "Mendoza", "Vargas", "Flores", "Castillo", "Rojas", "Quispe", "Huamán", "Chávez"};
+    private static final String[] ESPECIALIDADES = {"Psicología Clínica", "Terapia Familiar",
+        "Psicología Infantil", "Terapia de Pareja", "Neuropsicología"};
+    private static final String[] HORARIOS = {"Lunes a Viernes 9AM-6PM", "Lunes a Viernes 2PM-8PM",
+        "Lunes a Viernes 8AM-4PM", "Lunes a Sábado 10AM-2PM"};
+    private static final String[] MODALIDADES = {"PRESENCIAL", "VIDEOLLAMADA"};
+
+    // Turnos de 1 hora entre 8:00 y 19:00 a lo largo de 2 años y medio (2 hacia atrás, 6 meses hacia adelante)
+    private static final int DIAS = 365 * 2 + 182;
+    private static final int TURNOS_POR_DIA = 11;
+    private static final int TURNOS = DIAS * TURNOS_POR_DIA;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final int batchSize;
+    private final int hilos;
+    private final boolean postgres;
+
+    public SyntheticDataGenerator(JdbcTemplate jdbcTemplate, int batchSize, int hilos) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.batchSize = batchSize;
+        this.hilos = hilos;
+        this.postgres = "PostgreSQL".equals(jdbcTemplate.execute(
+            (ConnectionCallback<String>) conexion -> conexion.getMetaData().getDatabaseProductName()));
+    }
+
+    public void generate(int psicologos, int pacientes, long citas, long semilla) {
+        if (citas > (long) psicologos * TURNOS) {
+            throw new IllegalArgumentException("Con " + psicologos + " psicólogos caben como máximo " +
+                                               (long) psicologos * TURNOS + " citas sin solaparse");
+        }
+        long inicio = System.currentTimeMillis();
+        insertUsers("PSICOLOGO", psicologos, new Random(semilla));
+        insertUsers("PACIENTE", pacientes, new Random(semilla + 1));
+        // Solo los psicólogos generados: sus agendas están vacías, así ninguna cita choca con otra existente
+        long[] psicologoIds = ids("PSICOLOGO", "gen_psi_%");
+        long[] pacienteIds = ids("PACIENTE", "%");
+        double[] tarifas = tarifas();
+        log.info("Usuarios generados: {} psicólogos, {} pacientes ({} ms)",
+                 psicologos, pacientes, System.currentTimeMillis() - inicio);
+
+        Long maxIdAntes = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) FROM appointments", Long.class);
+        insertAppointments(citas, psicologoIds, tarifas, pacienteIds, semilla);
+        log.info("Citas generadas: {} ({} ms)", citas, System.currentTimeMillis() - inicio);
+
+        Long maxIdDespues = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) FROM appointments", Long.class);
+        deriveByIdRange(maxIdAntes + 1, maxIdDespues);
+        log.info("Pagos y notas clínicas derivados ({} ms)", System.currentTimeMillis() - inicio);
+    }
+
+    // ============= USUARIOS =============
+
+    private void insertUsers(String role, int count, Random random) {
+        String prefijo = "PSICOLOGO".equals(role) ? "gen_psi_" : "gen_pac_";
+        List<Object[]> batch = new ArrayList<>(batchSize);
+        for (int i = 0; i < count; i++) {
+            String nombre = NOMBRES[random.nextInt(NOMBRES.length)] + " " + APELLIDOS[random.nextInt(APELLIDOS.length)]
+                + " " + APELLIDOS[random.nextInt(APELLIDOS.length)];
+            boolean psicologo = "PSICOLOGO".equals(role);
+            batch.add(new Object[] {
+                prefijo + i, PASSWORD_GENERADA, prefijo + i + "@consultorio.test", role,
+                psicologo ? "Dr(a). " + nombre : nombre,
+                String.valueOf(900000000 + random.nextInt(99999999)),
+                psicologo ? ESPECIALIDADES[random.nextInt(ESPECIALIDADES.length)] : null,
+                psicologo ? null : String.format("%08d", random.nextInt(100000000)),
+                psicologo ? "CMP-" + (10000 + i) : null,
+                psicologo ? 1 + random.nextInt(30) : null,
+                psicologo ? 50.0 + 5 * random.nextInt(15) : null,
+                psicologo ? HORARIOS[random.nextInt(HORARIOS.length)] : null
+            });
+            if (batch.size() == batchSize) {
+                flushUsers(batch);
+            }
+        }
+        flushUsers(batch);
+    }
+
+    private void flushUsers(List<Object[]> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO users (username, password, email, role, nombre, telefono, especialidad, " +
+                                 "dni, colegiatura, anios_experiencia, tarifa_consulta, horario_atencion, activo, " +
+                                 "fecha_creacion) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, true, CURRENT_TIMESTAMP)",
+                                 batch);
+        batch.clear();
+    }
+
+    private long[] ids(String role, String username) {
+        return jdbcTemplate.queryForList("SELECT id FROM users WHERE role = ? AND username LIKE ? ORDER BY id",
+                                         Long.class, role, username)
+            .stream().mapToLong(Long::longValue).toArray();
+    }
+
+    // Alineadas con ids("PSICOLOGO", "gen_psi_%") por el mismo ORDER BY id
+    private double[] tarifas() {
+        return jdbcTemplate.queryForList("SELECT tarifa_consulta FROM users WHERE role = 'PSICOLOGO' " +
+                                         "AND username LIKE 'gen_psi_%' ORDER BY id", Double.class)
+            .stream().mapToDouble(t -> t != null ? t : 70.0).toArray();
+    }
+
+    // ============= CITAS =============
+
+    // Cada bloque usa su propio Random (semilla + bloque) para que el resultado no dependa de los hilos.
+    // La cita número n es del psicólogo n % P y ocupa su turno n / P, así ningún turno se repite.
+    private void insertAppointments(long citas, long[] psicologoIds, double[] tarifas, long[] pacienteIds, long semilla) {
+        LocalDateTime ahora = LocalDateTime.now().withSecond(0).withNano(0);
+        LocalDateTime desde = ahora.minusYears(2).withHour(0).withMinute(0);
+        long bloque = (long) batchSize * 10;
+        int paso = pasoCoprimo(TURNOS);
+        ExecutorService executor = Executors.newFixedThreadPool(hilos);
+        try {
+            List<Future<?>> tareas = new ArrayList<>();
+            for (long offset = 0; offset < citas; offset += bloque) {
+                long primera = offset;
+                long cantidad = Math.min(bloque, citas - offset);
+                long semillaBloque = semilla + offset;
+                tareas.add(executor.submit(() -> insertAppointmentBlock(primera, cantidad, new Random(semillaBloque),
+                    psicologoIds, tarifas, pacienteIds, desde, ahora, paso)));
+            }
+            for (Future<?> tarea : tareas) {
+                tarea.get();
+            }
+        } catch (Exception e) {
+            throw new IllegalStateException("Error generando citas", e);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private void insertAppointmentBlock(long primera, long cantidad, Random random, long[] psicologoIds, double[] tarifas,
+                                        long[] pacienteIds, LocalDateTime desde, LocalDateTime ahora, int paso) {
+        List<Object[]> batch = new ArrayList<>(batchSize);
+        for (long n = primera; n < primera + cantidad; n++) {
+            int psicologo = (int) (n % psicologoIds.length);
+            LocalDateTime fechaHora = turno(n / psicologoIds.length, psicologo, desde, paso);
+            String estado;
+            boolean pagado;
+            if (fechaHora.isAfter(ahora)) {
+                estado = random.nextInt(10) == 0 ? "CANCELADA" : "RESERVADA";
+                pagado = random.nextInt(3) == 0;
+            } else {
+                estado = random.nextInt(8) == 0 ? "CANCELADA" : "COMPLETADA";
+                pagado = "COMPLETADA".equals(estado) && random.nextInt(20) != 0;
+            }
+            batch.add(new Object[] {
+                pacienteIds[random.nextInt(pacienteIds.length)], psicologoIds[psicologo],
+                Timestamp.valueOf(fechaHora), estado, MODALIDADES[random.nextInt(MODALIDADES.length)],
+                tarifas[psicologo], pagado
+            });
+            if (batch.size() == batchSize) {
+                flushAppointments(batch);
+            }
+        }
+        flushAppointments(batch);
+    }
+
+    // El j-ésimo turno de un psicólogo: (j * paso + desfase) mod TURNOS es una permutación de los
+    // turnos porque el paso es coprimo con TURNOS; las citas quedan repartidas en todo el período
+    static LocalDateTime turno(long j, int psicologo, LocalDateTime desde, int paso) {
+        long indice = (j * paso + psicologo * 7919L) % TURNOS;
+        return desde.plusDays(indice / TURNOS_POR_DIA).withHour(8 + (int) (indice % TURNOS_POR_DIA));
+    }
+
+    static int pasoCoprimo(int turnos) {
+        int paso = (int) (turnos * 0.618);
+        while (BigInteger.valueOf(paso).gcd(BigInteger.valueOf(turnos)).intValue() != 1) {
+            paso++;
+        }
+        return paso;
+    }
+
+    private void flushAppointments(List<Object[]> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO appointments (paciente_id, psicologo_id, fecha_hora, estado, modalidad, " +
+                                 "precio, pagado) VALUES (?, ?, ?, ?, ?, ?, ?)", batch);
+        batch.clear();
+    }
+
+    // ============= PAGOS Y NOTAS =============
+
+    private void deriveByIdRange(long desdeId, long hastaId) {
+        long rango = (long) batchSize * 50;
+        ExecutorService executor = Executors.newFixedThreadPool(hilos);
+        try {
+            List<Future<?>> tareas = new ArrayList<>();
+            for (long inicio = desdeId; inicio <= hastaId; inicio += rango) {
+                long desde = inicio;
+                long hasta = Math.min(inicio + rango - 1, hastaId);
+                tareas.add(executor.submit(() -> {
+                    insertPayments(desde, hasta);
+                    insertClinicalNotes(desde, hasta);
+                }));
+            }
+            for (Future<?> tarea : tareas) {
+                tarea.get();
+            }
+        } catch (Exception e) {
+            throw new IllegalStateException("Error generando pagos y notas clínicas", e);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private void insertPayments(long desdeId, long hastaId) {
+        jdbcTemplate.update(
+            "INSERT INTO payments (appointment_id, paciente_id, psicologo_id, monto, metodo_pago, estado, fecha_pago, " +
+            "numero_transaccion, concepto_pago) " +
+            "SELECT id, paciente_id, psicologo_id, precio, " +
+            "CASE MOD(id, 5) WHEN 0 THEN 'EFECTIVO' WHEN 1 THEN 'TARJETA' WHEN 2 THEN 'YAPE' " +
+            "WHEN 3 THEN 'PLIN' ELSE 'TRANSFERENCIA' END, 'COMPLETADO', fecha_hora, " +
+            "CONCAT('GEN-', CAST(id AS VARCHAR(20))), 'Consulta psicológica' " +
+            "FROM appointments WHERE id BETWEEN ? AND ? AND pagado = true AND precio IS NOT NULL",
+            desdeId, hastaId);
+    }
+
+    // Los textos de la nota son LOB: en PostgreSQL las columnas son oid y cada fila necesita su propio
+    // large object, que lo_from_bytea crea en el servidor; en H2 son CLOB y se enlaza el texto
+    private void insertClinicalNotes(long desdeId, long hastaId) {
+        String lob = postgres ? "lo_from_bytea(0, convert_to(CAST(? AS TEXT), 'UTF8'))" : "?";
+        jdbcTemplate.update(
+            "INSERT INTO clinical_notes (appointment_id, paciente_id, psicologo_id, fecha_creacion, tipo_nota, contenido, " +
+            "observaciones_generales, plan_tratamiento, tareas_paciente, estado_emocional, nivel_funcionalidad, " +
+            "requiere_seguimiento, proxima_revision, modalidad_sesion) " +
+            "SELECT id, paciente_id, psicologo_id, fecha_hora, " +
+            "CASE WHEN MOD(id, 7) = 0 THEN 'EVALUACION_INICIAL' ELSE 'SEGUIMIENTO' END, " +
+            lob + ", " + lob + ", " + lob + ", " + lob + ", " +
+            "CASE MOD(id, 4) WHEN 0 THEN 'ESTABLE' WHEN 1 THEN 'ANSIOSO' WHEN 2 THEN 'DEPRIMIDO' ELSE 'ESTABLE' END, " +
+            "CASE MOD(id, 3) WHEN 0 THEN 'ALTO' WHEN 1 THEN 'MEDIO' ELSE 'BAJO' END, " +
+            "MOD(id, 5) = 0, fecha_hora + INTERVAL '7' DAY, modalidad " +
+            "FROM appointments WHERE id BETWEEN ? AND ? AND estado = 'COMPLETADA'",
+            "MOTIVO: Seguimiento de objetivos terapéuticos.\n\nTRABAJO EN SESIÓN: Revisión de tareas, " +
+            "reestructuración cognitiva y entrenamiento en técnicas de regulación emocional.\n\n" +
+            "ESTADO ACTUAL: Paciente colaborador, con avances graduales.",
+            "Evolución acorde al plan terapéutico.",
+            "1. Continuar con técnicas cognitivo-conductuales\n2. Reforzar hábitos de autocuidado",
+            "1. Registro diario de pensamientos\n2. Práctica de respiración diafragmática",
+            desdeId, hastaId);
+    }
+}
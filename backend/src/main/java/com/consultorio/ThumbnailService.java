@@ -0,0 +1,173 @@
+package com.consultorio;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Iterator;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Genera miniaturas JPEG cuadradas (64 y 256 px) de las fotos de perfil en un
+ * pool acotado, fuera del hilo de la petición de subida. Mientras una miniatura
+ * no existe se sirve la foto original.
+ */
+@Service
+public class ThumbnailService {
+
+    private static final Logger log = LoggerFactory.getLogger(ThumbnailService.class);
+
+    public static final int[] TAMANOS = {64, 256};
+
+    private static final float CALIDAD_JPEG = 0.8f;
+
+    private final PhotoStorage storage;
+    private final ThreadPoolTaskExecutor executor;
+
+    public ThumbnailService(PhotoStorage storage,
+                            @Value("${app.thumbnails.threads:2}") int hilos,
+                            @Value("${app.thumbnails.queue-capacity:200}") int capacidadCola) {
+        this.storage = storage;
+        this.executor = new ThreadPoolTaskExecutor();
+        this.executor.setCorePoolSize(hilos);
+        this.executor.setMaxPoolSize(hilos);
+        this.executor.setQueueCapacity(capacidadCola);
+        this.executor.setThreadNamePrefix("thumbnails-");
+        this.executor.initialize();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    // Nombre de la variante más pequeña que cubre el tamaño pedido; null si hay que servir el original
+    public String variantFilename(String filename, Integer size) {
+        if (size == null) {
+            return null;
+        }
+        for (int tamano : TAMANOS) {
+            if (size <= tamano) {
+                return variantKey(filename, tamano);
+            }
+        }
+        return null;
+    }
+
+    // Clave de la miniatura de un tamaño: foto.png -> foto_64.jpg
+    static String variantKey(String filename, int tamano) {
+        int punto = filename.lastIndexOf('.');
+        String base = punto > 0 ? filename.substring(0, punto) : filename;
+        return base + "_" + tamano + ".jpg";
+    }
+
+    // Si la cola está llena la subida no espera: la foto se sigue sirviendo en tamaño original.
+    // Una foto duplicada ya tiene sus miniaturas y no se vuelve a procesar.
+    public void generateAsync(String filename) {
+        try {
+            if (storage.exists(variantFilename(filename, TAMANOS[TAMANOS.length - 1]))) {
+                return;
+            }
+            executor.execute(() -> generate(filename));
+        } catch (TaskRejectedException e) {
+            log.warn("Cola de miniaturas llena, se omite {}", filename);
+        } catch (IOException e) {
+            log.warn("No se pudo consultar el almacén para {}: {}", filename, e.getMessage());
+        }
+    }
+
+    private void generate(String filename) {
+        try {
+            BufferedImage imagen = readSubsampled(filename, TAMANOS[TAMANOS.length - 1]);
+            if (imagen == null) {
+                log.warn("Formato de imagen no soportado para miniaturas: {}", filename);
+                return;
+            }
+            for (int tamano : TAMANOS) {
+                write(cropAndScale(imagen, tamano), variantFilename(filename, tamano));
+            }
+        } catch (IOException | RuntimeException e) {
+            log.warn("No se pudo generar miniaturas de {}: {}", filename, e.getMessage());
+        }
+    }
+
+    // Decodifica saltando píxeles: una foto de 10MB no se carga entera para reducirla a 256 px
+    private BufferedImage readSubsampled(String filename, int tamanoMaximo) throws IOException {
+        try (InputStream original = storage.open(filename);
+             ImageInputStream in = ImageIO.createImageInputStream(original)) {
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(in);
+            if (!readers.hasNext()) {
+                return null;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(in, true, true);
+                int lado = Math.min(reader.getWidth(0), reader.getHeight(0));
+                int paso = Math.max(1, lado / (tamanoMaximo * 2));
+                ImageReadParam param = reader.getDefaultReadParam();
+                param.setSourceSubsampling(paso, paso, 0, 0);
+                return reader.read(0, param);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    // Recorte cuadrado centrado y escalado; el fondo blanco cubre la transparencia de PNG/GIF
+    private BufferedImage cropAndScale(BufferedImage imagen, int tamano) {
+        int lado = Math.min(imagen.getWidth(), imagen.getHeight());
+        int x = (imagen.getWidth() - lado) / 2;
+        int y = (imagen.getHeight() - lado) / 2;
+        BufferedImage destino = new BufferedImage(tamano, tamano, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = destino.createGraphics();
+        try {
+            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            g.drawImage(imagen, 0, 0, tamano, tamano, x, y, x + lado, y + lado, Color.WHITE, null);
+        } finally {
+            g.dispose();
+        }
+        return destino;
+    }
+
+    // Se codifica a un temporal local y el almacén lo publica de forma atómica
+    private void write(BufferedImage imagen, String key) throws IOException {
+        Path temporal = Files.createTempFile("miniatura", ".jpg");
+        try {
+            ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+            try (ImageOutputStream out = ImageIO.createImageOutputStream(temporal.toFile())) {
+                ImageWriteParam param = writer.getDefaultWriteParam();
+                param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+                param.setCompressionQuality(CALIDAD_JPEG);
+                writer.setOutput(out);
+                writer.write(null, new IIOImage(imagen, null, null), param);
+            } finally {
+                writer.dispose();
+            }
+            storage.put(key, temporal, "image/jpeg");
+        } finally {
+            Files.deleteIfExists(temporal);
+        }
+    }
+}
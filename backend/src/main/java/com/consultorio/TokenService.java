@@ -0,0 +1,124 @@
+package com.consultorio;
+
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Optional;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+/**
+ * Tokens de sesión sin estado: "{userId}:{role}:{expira}" en base64url más su firma
+ * HMAC-SHA256. Validarlos no consulta la base ni guarda nada en memoria; un token
+ * vale hasta su expiración aunque el usuario cambie de rol o se elimine.
+ */
+@Service
+public class TokenService {
+
+    private static final Logger log = LoggerFactory.getLogger(TokenService.class);
+
+    private static final String ALGORITMO = "HmacSHA256";
+    private static final Base64.Encoder B64 = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder B64_DECODER = Base64.getUrlDecoder();
+
+    private final SecretKeySpec clave;
+    private final Duration vigencia;
+    // Mac no es thread-safe: cada hilo clona este prototipo ya inicializado
+    private final Mac prototipo;
+    private final ThreadLocal<Mac> macs;
+
+    public TokenService(@Value("${app.auth.token-secret:}") String secreto,
+                        @Value("${app.auth.token-ttl:PT12H}") Duration vigencia) throws GeneralSecurityException {
+        byte[] bytes;
+        if (secreto == null || secreto.isBlank()) {
+            bytes = new byte[32];
+            new SecureRandom().nextBytes(bytes);
+            log.warn("app.auth.token-secret no configurado: clave aleatoria, los tokens no sobreviven a un reinicio " +
+                     "ni sirven entre instancias");
+        } else {
+            bytes = secreto.getBytes(StandardCharsets.UTF_8);
+        }
+        this.clave = new SecretKeySpec(bytes, ALGORITMO);
+        this.vigencia = vigencia;
+        this.prototipo = Mac.getInstance(ALGORITMO);
+        this.prototipo.init(clave);
+        this.macs = ThreadLocal.withInitial(this::newMac);
+    }
+
+    public static final class Sesion {
+        private final Long userId;
+        private final String role;
+        private final Instant expira;
+
+        private Sesion(Long userId, String role, Instant expira) {
+            this.userId = userId;
+            this.role = role;
+            this.expira = expira;
+        }
+
+        public Long getUserId() { return userId; }
+        public String getRole() { return role; }
+        public Instant getExpira() { return expira; }
+    }
+
+    public String issue(User user) {
+        Instant expira = Instant.now().plus(vigencia);
+        String datos = user.getId() + ":" + user.getRole() + ":" + expira.getEpochSecond();
+        String payload = B64.encodeToString(datos.getBytes(StandardCharsets.UTF_8));
+        return payload + "." + B64.encodeToString(sign(payload));
+    }
+
+    // Vacío si el token está mal formado, la firma no coincide o ya expiró
+    public Optional<Sesion> verify(String token) {
+        int punto = token.indexOf('.');
+        if (punto <= 0 || punto == token.length() - 1) {
+            return Optional.empty();
+        }
+        try {
+            String payload = token.substring(0, punto);
+            byte[] firma = B64_DECODER.decode(token.substring(punto + 1));
+            if (!MessageDigest.isEqual(firma, sign(payload))) {
+                return Optional.empty();
+            }
+            String[] partes = new String(B64_DECODER.decode(payload), StandardCharsets.UTF_8).split(":");
+            if (partes.length != 3) {
+                return Optional.empty();
+            }
+            Instant expira = Instant.ofEpochSecond(Long.parseLong(partes[2]));
+            if (expira.isBefore(Instant.now())) {
+                return Optional.empty();
+            }
+            return Optional.of(new Sesion(Long.valueOf(partes[0]), partes[1], expira));
+        } catch (IllegalArgumentException e) {
+            return Optional.empty();
+        }
+    }
+
+    private byte[] sign(String payload) {
+        return macs.get().doFinal(payload.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    private Mac newMac() {
+        try {
+            return (Mac) prototipo.clone();
+        } catch (CloneNotSupportedException e) {
+            try {
+                Mac mac = Mac.getInstance(ALGORITMO);
+                mac.init(clave);
+                return mac;
+            } catch (GeneralSecurityException ex) {
+                throw new IllegalStateException(ex);
+            }
+        }
+    }
+}
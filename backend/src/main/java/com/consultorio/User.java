@@ -3,23 +3,29 @@ package com.consultorio;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 
+import com.fasterxml.jackson.annotation.JsonProperty;
+
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.SequenceGenerator;
 import jakarta.persistence.Table;
 
 @Entity
 @Table(name = "users")
 public class User {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "users_seq")
+    @SequenceGenerator(name = "users_seq", sequenceName = "users_seq", allocationSize = 50)
     private Long id;
     
     @Column(unique = true, nullable = false)
     private String username;
     
+    // Hash BCrypt; se recibe en las altas pero nunca se devuelve en las respuestas
+    @JsonProperty(access = JsonProperty.Access.WRITE_ONLY)
     @Column(nullable = false)
     private String password;
     
@@ -76,6 +82,37 @@ public class User {
         this.fechaCreacion = LocalDateTime.now();
     }
     
+    // Copia desconectada de JPA; para modificar usuarios que vienen de la caché compartida
+    public User copia() {
+        User copia = new User();
+        copia.id = id;
+        copia.username = username;
+        copia.password = password;
+        copia.email = email;
+        copia.role = role;
+        copia.nombre = nombre;
+        copia.telefono = telefono;
+        copia.especialidad = especialidad;
+        copia.dni = dni;
+        copia.fechaNacimiento = fechaNacimiento;
+        copia.direccion = direccion;
+        copia.telefonoEmergencia = telefonoEmergencia;
+        copia.genero = genero;
+        copia.estadoCivil = estadoCivil;
+        copia.colegiatura = colegiatura;
+        copia.universidad = universidad;
+        copia.aniosExperiencia = aniosExperiencia;
+        copia.descripcion = descripcion;
+        copia.tarifaConsulta = tarifaConsulta;
+        copia.fotoPerfil = fotoPerfil;
+        copia.activo = activo;
+        copia.fechaCreacion = fechaCreacion;
+        copia.ultimaConexion = ultimaConexion;
+        copia.configuracionNotificaciones = configuracionNotificaciones;
+        copia.horarioAtencion = horarioAtencion;
+        return copia;
+    }
+    
     // Getters and Setters - TODOS los métodos necesarios
     public Long getId() { return id; }
     public void setId(Long id) { this.id = id; }
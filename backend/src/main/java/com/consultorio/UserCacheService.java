@@ -0,0 +1,53 @@
+package com.consultorio;
+
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.Caching;
+import org.springframework.stereotype.Service;
+
+/**
+ * Caché de lectura de usuarios (Caffeine, límites en spring.cache.caffeine.spec).
+ * Los objetos devueltos son compartidos entre peticiones: solo para lectura.
+ * Para modificar un usuario se carga desde UserRepository y luego se llama a evict().
+ */
+@Service
+public class UserCacheService {
+
+    public static final String POR_ID = "usuarios";
+    public static final String POR_USERNAME = "usuariosPorUsername";
+    public static final String POR_ROL = "usuariosPorRol";
+
+    private final UserRepository userRepository;
+
+    public UserCacheService(UserRepository userRepository) {
+        this.userRepository = userRepository;
+    }
+
+    @Cacheable(value = POR_ID, key = "#id")
+    public Optional<User> findById(Long id) {
+        return userRepository.findById(id);
+    }
+
+    @Cacheable(value = POR_USERNAME, key = "#username")
+    public Optional<User> findByUsername(String username) {
+        return userRepository.findByUsername(username);
+    }
+
+    // Solo el directorio de psicólogos va a memoria; la lista de pacientes puede ser muy grande
+    @Cacheable(value = POR_ROL, key = "#role", condition = "#role == 'PSICOLOGO'")
+    public List<User> findByRole(String role) {
+        return userRepository.findByRole(role);
+    }
+
+    @Caching(evict = {
+        @CacheEvict(value = POR_ID, key = "#user.id"),
+        @CacheEvict(value = POR_USERNAME, key = "#user.username"),
+        @CacheEvict(value = POR_ROL, key = "#user.role")
+    })
+    public void evict(User user) {
+        // Solo invalida las entradas del usuario
+    }
+}
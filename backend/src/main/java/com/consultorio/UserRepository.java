@@ -1,37 +1,75 @@
 package com.consultorio;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 @Repository
 public interface UserRepository extends JpaRepository<User, Long> {
     Optional<User> findByUsername(String username);
     List<User> findByRole(String role);
-    Optional<User> findByUsernameAndPassword(String username, String password);
+    
+    // Escritura de una sola columna desde el login (fuera de cualquier transacción de servicio)
+    @Transactional
+    @Modifying
+    @Query("UPDATE User u SET u.password = :password WHERE u.id = :id")
+    int updatePassword(@Param("id") Long id, @Param("password") String password);
+    
+    // Usernames ya registrados de un lote de altas
+    @Query("SELECT u.username FROM User u WHERE u.username IN :usernames")
+    List<String> findExistingUsernames(@Param("usernames") Collection<String> usernames);
+    
+    // Paginación por keyset sobre id
+    Slice<User> findByIdGreaterThanOrderByIdAsc(Long id, Pageable pageable);
+    Slice<User> findByRoleAndIdGreaterThanOrderByIdAsc(String role, Long id, Pageable pageable);
+    
+    // Conteo de usuarios agrupados por rol
+    @Query("SELECT u.role AS role, COUNT(u) AS total FROM User u GROUP BY u.role")
+    List<RolResumen> countGroupByRole();
+    
+    // Solo id y nombre, para armar reportes sin cargar el perfil completo
+    @Query("SELECT u.id AS id, u.nombre AS nombre FROM User u WHERE u.role = :role")
+    List<UsuarioResumen> findResumenByRole(@Param("role") String role);
+    
+    // URLs de fotos en uso, para la recolección de archivos huérfanos
+    @Query("SELECT u.fotoPerfil FROM User u WHERE u.fotoPerfil IS NOT NULL")
+    List<String> findFotosPerfil();
+    
+    // Paciente y totales de su historial en una sola consulta
+    @Query("SELECT u AS paciente, " +
+           "(SELECT COUNT(a) FROM Appointment a WHERE a.pacienteId = u.id) AS totalSesiones, " +
+           "(SELECT COUNT(a) FROM Appointment a WHERE a.pacienteId = u.id AND a.estado = 'COMPLETADA') AS sesionesCompletadas, " +
+           "(SELECT COALESCE(SUM(p.monto), 0.0) FROM Payment p WHERE p.pacienteId = u.id AND p.estado = 'COMPLETADO') AS totalGastado, " +
+           "(SELECT COALESCE(SUM(p.monto), 0.0) FROM Payment p WHERE p.pacienteId = u.id AND p.estado = 'PENDIENTE') AS pendientePagar, " +
+           "(SELECT COUNT(cn) FROM ClinicalNote cn WHERE cn.pacienteId = u.id) AS totalNotasClinicas " +
+           "FROM User u WHERE u.id = :id")
+    Optional<HistorialResumen> findHistorialResumen(@Param("id") Long id);
+    
+    interface HistorialResumen {
+        User getPaciente();
+        Long getTotalSesiones();
+        Long getSesionesCompletadas();
+        Double getTotalGastado();
+        Double getPendientePagar();
+        Long getTotalNotasClinicas();
+    }
+    
+    interface RolResumen {
+        String getRole();
+        Long getTotal();
+    }
+    
+    interface UsuarioResumen {
+        Long getId();
+        String getNombre();
+    }
 }
-
-
-
-
-
-
-
-
-
-
-
-
-
-
-
-
-
-
-
-
-
-
-
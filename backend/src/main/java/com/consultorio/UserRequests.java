@@ -0,0 +1,108 @@
+package com.consultorio;
+
+import java.time.LocalDate;
+
+/**
+ * Cuerpos de las peticiones de usuarios, deserializados directamente por Jackson.
+ */
+public final class UserRequests {
+
+    private UserRequests() {
+    }
+
+    // PUT /users/{id}: solo se modifican los campos enviados. En fechaNacimiento,
+    // aniosExperiencia y tarifaConsulta un valor vacío ("" o null) deja el actual,
+    // como hacía el formulario de perfil; un valor mal formado es un 400.
+    public static final class Actualizar extends PartialUpdate<User> {
+        private static final int NOMBRE = 0;
+        private static final int EMAIL = 1;
+        private static final int TELEFONO = 2;
+        private static final int DIRECCION = 3;
+        private static final int DNI = 4;
+        private static final int FECHA_NACIMIENTO = 5;
+        private static final int GENERO = 6;
+        private static final int ESTADO_CIVIL = 7;
+        private static final int TELEFONO_EMERGENCIA = 8;
+        private static final int ESPECIALIDAD = 9;
+        private static final int COLEGIATURA = 10;
+        private static final int UNIVERSIDAD = 11;
+        private static final int ANIOS_EXPERIENCIA = 12;
+        private static final int DESCRIPCION = 13;
+        private static final int TARIFA_CONSULTA = 14;
+        private static final int HORARIO_ATENCION = 15;
+
+        private String nombre;
+        private String email;
+        private String telefono;
+        private String direccion;
+        private String dni;
+        private LocalDate fechaNacimiento;
+        private String genero;
+        private String estadoCivil;
+        private String telefonoEmergencia;
+        private String especialidad;
+        private String colegiatura;
+        private String universidad;
+        private Integer aniosExperiencia;
+        private String descripcion;
+        private Double tarifaConsulta;
+        private String horarioAtencion;
+
+        // Campos básicos
+        public void setNombre(String nombre) { this.nombre = notNull("nombre", nombre); mark(NOMBRE); }
+        public void setEmail(String email) { this.email = notNull("email", email); mark(EMAIL); }
+        public void setTelefono(String telefono) { this.telefono = telefono; mark(TELEFONO); }
+        public void setDireccion(String direccion) { this.direccion = direccion; mark(DIRECCION); }
+
+        // Campos personales
+        public void setDni(String dni) { this.dni = dni; mark(DNI); }
+        public void setFechaNacimiento(LocalDate fechaNacimiento) {
+            if (fechaNacimiento != null) {
+                this.fechaNacimiento = fechaNacimiento;
+                mark(FECHA_NACIMIENTO);
+            }
+        }
+        public void setGenero(String genero) { this.genero = genero; mark(GENERO); }
+        public void setEstadoCivil(String estadoCivil) { this.estadoCivil = estadoCivil; mark(ESTADO_CIVIL); }
+        public void setTelefonoEmergencia(String telefonoEmergencia) { this.telefonoEmergencia = telefonoEmergencia; mark(TELEFONO_EMERGENCIA); }
+
+        // Campos específicos para psicólogos
+        public void setEspecialidad(String especialidad) { this.especialidad = especialidad; mark(ESPECIALIDAD); }
+        public void setColegiatura(String colegiatura) { this.colegiatura = colegiatura; mark(COLEGIATURA); }
+        public void setUniversidad(String universidad) { this.universidad = universidad; mark(UNIVERSIDAD); }
+        public void setAniosExperiencia(Integer aniosExperiencia) {
+            if (aniosExperiencia != null) {
+                this.aniosExperiencia = aniosExperiencia;
+                mark(ANIOS_EXPERIENCIA);
+            }
+        }
+        public void setDescripcion(String descripcion) { this.descripcion = descripcion; mark(DESCRIPCION); }
+        public void setTarifaConsulta(Double tarifaConsulta) {
+            if (tarifaConsulta != null) {
+                this.tarifaConsulta = tarifaConsulta;
+                mark(TARIFA_CONSULTA);
+            }
+        }
+        public void setHorarioAtencion(String horarioAtencion) { this.horarioAtencion = horarioAtencion; mark(HORARIO_ATENCION); }
+
+        @Override
+        public void applyTo(User user) {
+            if (has(NOMBRE)) user.setNombre(nombre);
+            if (has(EMAIL)) user.setEmail(email);
+            if (has(TELEFONO)) user.setTelefono(telefono);
+            if (has(DIRECCION)) user.setDireccion(direccion);
+            if (has(DNI)) user.setDni(dni);
+            if (has(FECHA_NACIMIENTO)) user.setFechaNacimiento(fechaNacimiento);
+            if (has(GENERO)) user.setGenero(genero);
+            if (has(ESTADO_CIVIL)) user.setEstadoCivil(estadoCivil);
+            if (has(TELEFONO_EMERGENCIA)) user.setTelefonoEmergencia(telefonoEmergencia);
+            if (has(ESPECIALIDAD)) user.setEspecialidad(especialidad);
+            if (has(COLEGIATURA)) user.setColegiatura(colegiatura);
+            if (has(UNIVERSIDAD)) user.setUniversidad(universidad);
+            if (has(ANIOS_EXPERIENCIA)) user.setAniosExperiencia(aniosExperiencia);
+            if (has(DESCRIPCION)) user.setDescripcion(descripcion);
+            if (has(TARIFA_CONSULTA)) user.setTarifaConsulta(tarifaConsulta);
+            if (has(HORARIO_ATENCION)) user.setHorarioAtencion(horarioAtencion);
+        }
+    }
+}
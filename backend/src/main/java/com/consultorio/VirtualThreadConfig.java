@@ -0,0 +1,94 @@
+package com.consultorio;
+
+import java.sql.SQLException;
+import java.time.Duration;
+
+import javax.sql.DataSource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+/**
+ * Modo opcional de hilos virtuales (spring.threads.virtual.enabled=true):
+ * Spring Boot atiende cada petición de Tomcat, las tareas @Scheduled y las respuestas
+ * asíncronas en un hilo virtual. BCrypt y las miniaturas siguen en sus pools de
+ * plataforma acotados porque son trabajo de CPU. Como ya no hay un tope de hilos que
+ * frene las peticiones, el acceso a la base se limita con ConnectionLimitedDataSource.
+ */
+@Configuration
+public class VirtualThreadConfig {
+
+    private static final Logger log = LoggerFactory.getLogger(VirtualThreadConfig.class);
+
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean virtuales;
+
+    // Se aplica antes que InstrumentedDataSource, así la espera del semáforo cuenta como adquisición
+    @Bean
+    static BeanPostProcessor connectionLimitPostProcessor(
+            @Value("${app.datasource.connection-limit.enabled:false}") boolean activo,
+            @Value("${app.datasource.connection-limit.permits:10}") int permisos,
+            @Value("${app.datasource.connection-limit.timeout:PT30S}") Duration espera) {
+        return new ConnectionLimitPostProcessor(activo, permisos, espera);
+    }
+
+    @Bean
+    MeterBinder connectionLimitMetrics(ObjectProvider<DataSource> dataSources) {
+        return registry -> dataSources.orderedStream().forEach(dataSource -> {
+            try {
+                if (dataSource.isWrapperFor(ConnectionLimitedDataSource.class)) {
+                    ConnectionLimitedDataSource limitado = dataSource.unwrap(ConnectionLimitedDataSource.class);
+                    Gauge.builder("consultorio.db.connection.waiting", limitado, ConnectionLimitedDataSource::getEnEspera)
+                         .description("Peticiones esperando un permiso de conexión")
+                         .register(registry);
+                }
+            } catch (SQLException e) {
+                log.debug("No se pudo inspeccionar el DataSource: {}", e.getMessage());
+            }
+        });
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void logMode() {
+        if (virtuales) {
+            log.info("Peticiones atendidas en hilos virtuales");
+        }
+    }
+
+    private static final class ConnectionLimitPostProcessor implements BeanPostProcessor, Ordered {
+        private final boolean activo;
+        private final int permisos;
+        private final Duration espera;
+
+        private ConnectionLimitPostProcessor(boolean activo, int permisos, Duration espera) {
+            this.activo = activo;
+            this.permisos = permisos;
+            this.espera = espera;
+        }
+
+        @Override
+        public Object postProcessAfterInitialization(Object bean, String beanName) {
+            if (activo && bean instanceof DataSource dataSource && !(bean instanceof ConnectionLimitedDataSource)) {
+                log.info("Conexiones a la base limitadas a {} simultáneas", permisos);
+                return new ConnectionLimitedDataSource(dataSource, permisos, espera);
+            }
+            return bean;
+        }
+
+        @Override
+        public int getOrder() {
+            return Ordered.HIGHEST_PRECEDENCE;
+        }
+    }
+}
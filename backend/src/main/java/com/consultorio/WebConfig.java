@@ -1,19 +1,25 @@
 package com.consultorio;
 
-import java.nio.file.Paths;
+import java.util.concurrent.Callable;
 
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.async.AsyncWebRequest;
+import org.springframework.web.context.request.async.CallableProcessingInterceptor;
 import org.springframework.web.multipart.MultipartResolver;
 import org.springframework.web.multipart.support.StandardServletMultipartResolver;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
 import org.springframework.web.servlet.config.annotation.CorsRegistry;
-import org.springframework.web.servlet.config.annotation.ResourceHandlerRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
+// Las fotos de perfil se sirven solo desde MainController.getProfilePhoto (ETag, 304, Range)
 @Configuration
 public class WebConfig implements WebMvcConfigurer {
 
-    private final String UPLOAD_DIR = "uploads/profile-images/";
+    // Atributo de petición que quita el plazo de spring.mvc.async.request-timeout (exportaciones)
+    static final String SIN_PLAZO_ASINCRONO = WebConfig.class.getName() + ".SIN_PLAZO_ASINCRONO";
 
     @Override
     public void addCorsMappings(CorsRegistry registry) {
@@ -21,23 +27,23 @@ public class WebConfig implements WebMvcConfigurer {
                 .allowedOriginPatterns("http://localhost:3000", "http://127.0.0.1:3000")
                 .allowedMethods("GET", "POST", "PUT", "DELETE", "OPTIONS", "HEAD")
                 .allowedHeaders("*")
+                .exposedHeaders(MainController.AUTH_TOKEN, "Idempotent-Replayed")
                 .allowCredentials(true)
                 .maxAge(3600);
     }
 
+    // El plazo global sigue valiendo para el login y demás respuestas asíncronas
     @Override
-    public void addResourceHandlers(ResourceHandlerRegistry registry) {
-        // Configurar el manejo de archivos estáticos para fotos de perfil
-        String uploadPath = Paths.get(UPLOAD_DIR).toAbsolutePath().toString();
-        
-        registry.addResourceHandler("/api/users/*/photo/**")
-                .addResourceLocations("file:" + uploadPath + "/")
-                .setCachePeriod(3600);
-                
-        // Recursos estáticos adicionales
-        registry.addResourceHandler("/uploads/**")
-                .addResourceLocations("file:" + uploadPath + "/")
-                .setCachePeriod(3600);
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        configurer.registerCallableInterceptors(new CallableProcessingInterceptor() {
+            @Override
+            public <T> void beforeConcurrentHandling(NativeWebRequest request, Callable<T> task) {
+                if (request instanceof AsyncWebRequest asincrona
+                        && request.getAttribute(SIN_PLAZO_ASINCRONO, RequestAttributes.SCOPE_REQUEST) != null) {
+                    asincrona.setTimeout(-1L);
+                }
+            }
+        });
     }
 
     @Bean
@@ -45,4 +51,4 @@ public class WebConfig implements WebMvcConfigurer {
         StandardServletMultipartResolver resolver = new StandardServletMultipartResolver();
         return resolver;
     }
-}
\ No newline at end of file
+}
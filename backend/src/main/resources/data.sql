@@ -1,91 +1,92 @@
 -- BASE DE DATOS COMPLETA PARA CENTRO PSICOLÓGICO BIENESTAR
 -- Incluye: Usuarios, Citas, Pagos y Notas Clínicas
+-- Contraseñas en BCrypt (factor 10): admin123, psi123 y pac123 según el rol
 
 -- ===============================================
 -- ADMINISTRADORES
 -- ===============================================
-INSERT INTO users (username, password, email, role, nombre, telefono, activo, fecha_creacion) VALUES 
-('admin', 'admin123', 'admin@consultorio.com', 'ADMIN', 'Administrador Sistema', '123456789', true, CURRENT_TIMESTAMP);
+INSERT INTO users (id, username, password, email, role, nombre, telefono, activo, fecha_creacion) VALUES 
+(1, 'admin', '$2a$10$qROBSOGbgukX3poEyosuYe6xXsV1M7CtpHdVhVwPO3dOACvSZq6eC', 'admin@consultorio.com', 'ADMIN', 'Administrador Sistema', '123456789', true, CURRENT_TIMESTAMP);
 
 -- ===============================================
 -- PSICÓLOGOS
 -- ===============================================
-INSERT INTO users (username, password, email, role, nombre, telefono, especialidad, activo, fecha_creacion, colegiatura, universidad, anios_experiencia, descripcion, tarifa_consulta, horario_atencion) VALUES 
-('psicologo1', 'psi123', 'juan.perez@consultorio.com', 'PSICOLOGO', 'Dr. Juan Pérez', '987654321', 'Psicología Clínica', true, CURRENT_TIMESTAMP, 'CMP-12345', 'UNMSM', 10, 'Especialista en ansiedad y depresión', 80.00, 'Lunes a Viernes 9AM-6PM');
+INSERT INTO users (id, username, password, email, role, nombre, telefono, especialidad, activo, fecha_creacion, colegiatura, universidad, anios_experiencia, descripcion, tarifa_consulta, horario_atencion) VALUES 
+(2, 'psicologo1', '$2a$10$cK697C06H8flgjxWiROahuQO2gIq2cvq00hk6tXn/ZOSydRnn0wRO', 'juan.perez@consultorio.com', 'PSICOLOGO', 'Dr. Juan Pérez', '987654321', 'Psicología Clínica', true, CURRENT_TIMESTAMP, 'CMP-12345', 'UNMSM', 10, 'Especialista en ansiedad y depresión', 80.00, 'Lunes a Viernes 9AM-6PM');
 
-INSERT INTO users (username, password, email, role, nombre, telefono, especialidad, activo, fecha_creacion, colegiatura, universidad, anios_experiencia, descripcion, tarifa_consulta, horario_atencion) VALUES 
-('psicologo2', 'psi123', 'maria.rodriguez@consultorio.com', 'PSICOLOGO', 'Dra. María Rodríguez', '987654322', 'Terapia Familiar', true, CURRENT_TIMESTAMP, 'CMP-23456', 'PUCP', 8, 'Experta en terapia familiar y de pareja', 70.00, 'Lunes a Viernes 2PM-8PM');
+INSERT INTO users (id, username, password, email, role, nombre, telefono, especialidad, activo, fecha_creacion, colegiatura, universidad, anios_experiencia, descripcion, tarifa_consulta, horario_atencion) VALUES 
+(3, 'psicologo2', '$2a$10$cK697C06H8flgjxWiROahuQO2gIq2cvq00hk6tXn/ZOSydRnn0wRO', 'maria.rodriguez@consultorio.com', 'PSICOLOGO', 'Dra. María Rodríguez', '987654322', 'Terapia Familiar', true, CURRENT_TIMESTAMP, 'CMP-23456', 'PUCP', 8, 'Experta en terapia familiar y de pareja', 70.00, 'Lunes a Viernes 2PM-8PM');
 
-INSERT INTO users (username, password, email, role, nombre, telefono, especialidad, activo, fecha_creacion, colegiatura, universidad, anios_experiencia, descripcion, tarifa_consulta, horario_atencion) VALUES 
-('psicologo3', 'psi123', 'carlos.mendoza@consultorio.com', 'PSICOLOGO', 'Dr. Carlos Mendoza', '987654323', 'Psicología Infantil', true, CURRENT_TIMESTAMP, 'CMP-34567', 'UPCH', 12, 'Especialista en niños y adolescentes', 75.00, 'Lunes a Viernes 8AM-4PM');
+INSERT INTO users (id, username, password, email, role, nombre, telefono, especialidad, activo, fecha_creacion, colegiatura, universidad, anios_experiencia, descripcion, tarifa_consulta, horario_atencion) VALUES 
+(4, 'psicologo3', '$2a$10$cK697C06H8flgjxWiROahuQO2gIq2cvq00hk6tXn/ZOSydRnn0wRO', 'carlos.mendoza@consultorio.com', 'PSICOLOGO', 'Dr. Carlos Mendoza', '987654323', 'Psicología Infantil', true, CURRENT_TIMESTAMP, 'CMP-34567', 'UPCH', 12, 'Especialista en niños y adolescentes', 75.00, 'Lunes a Viernes 8AM-4PM');
 
 -- ===============================================
 -- PACIENTES
 -- ===============================================
-INSERT INTO users (username, password, email, role, nombre, telefono, activo, fecha_creacion, dni, fecha_nacimiento, direccion, genero, telefono_emergencia) VALUES 
-('paciente1', 'pac123', 'ana.garcia@email.com', 'PACIENTE', 'Ana García Mendoza', '456789123', true, CURRENT_TIMESTAMP, '12345678', '1990-05-15', 'Av. Javier Prado 123, San Isidro', 'Femenino', '999888777');
+INSERT INTO users (id, username, password, email, role, nombre, telefono, activo, fecha_creacion, dni, fecha_nacimiento, direccion, genero, telefono_emergencia) VALUES 
+(5, 'paciente1', '$2a$10$z5bTyDdVnOKTKV4kiedIReGHzeWUuHzwJWC0CXB9UEGillnvrVZuC', 'ana.garcia@email.com', 'PACIENTE', 'Ana García Mendoza', '456789123', true, CURRENT_TIMESTAMP, '12345678', '1990-05-15', 'Av. Javier Prado 123, San Isidro', 'Femenino', '999888777');
 
-INSERT INTO users (username, password, email, role, nombre, telefono, activo, fecha_creacion, dni, fecha_nacimiento, direccion, genero, telefono_emergencia) VALUES 
-('paciente2', 'pac123', 'carlos.lopez@email.com', 'PACIENTE', 'Carlos López Vargas', '456789124', true, CURRENT_TIMESTAMP, '87654321', '1985-08-22', 'Calle Las Flores 456, Miraflores', 'Masculino', '988777666');
+INSERT INTO users (id, username, password, email, role, nombre, telefono, activo, fecha_creacion, dni, fecha_nacimiento, direccion, genero, telefono_emergencia) VALUES 
+(6, 'paciente2', '$2a$10$z5bTyDdVnOKTKV4kiedIReGHzeWUuHzwJWC0CXB9UEGillnvrVZuC', 'carlos.lopez@email.com', 'PACIENTE', 'Carlos López Vargas', '456789124', true, CURRENT_TIMESTAMP, '87654321', '1985-08-22', 'Calle Las Flores 456, Miraflores', 'Masculino', '988777666');
 
-INSERT INTO users (username, password, email, role, nombre, telefono, activo, fecha_creacion, dni, fecha_nacimiento, direccion, genero, telefono_emergencia) VALUES 
-('paciente3', 'pac123', 'lucia.torres@email.com', 'PACIENTE', 'Lucía Torres Ramírez', '456789125', true, CURRENT_TIMESTAMP, '11223344', '1992-12-03', 'Jr. Amazonas 789, Lima', 'Femenino', '977666555');
+INSERT INTO users (id, username, password, email, role, nombre, telefono, activo, fecha_creacion, dni, fecha_nacimiento, direccion, genero, telefono_emergencia) VALUES 
+(7, 'paciente3', '$2a$10$z5bTyDdVnOKTKV4kiedIReGHzeWUuHzwJWC0CXB9UEGillnvrVZuC', 'lucia.torres@email.com', 'PACIENTE', 'Lucía Torres Ramírez', '456789125', true, CURRENT_TIMESTAMP, '11223344', '1992-12-03', 'Jr. Amazonas 789, Lima', 'Femenino', '977666555');
 
 -- ===============================================
 -- CITAS MÉDICAS
 -- ===============================================
 
 -- Citas RESERVADAS (futuras)
-INSERT INTO appointments (paciente_id, psicologo_id, fecha_hora, estado, modalidad, precio, pagado, nombre_paciente, nombre_psicologo) VALUES 
-((SELECT id FROM users WHERE username = 'paciente1'), (SELECT id FROM users WHERE username = 'psicologo1'), DATEADD('HOUR', 24, CURRENT_TIMESTAMP), 'RESERVADA', 'PRESENCIAL', 80.00, false, 'Ana García Mendoza', 'Dr. Juan Pérez');
+INSERT INTO appointments (id, paciente_id, psicologo_id, fecha_hora, estado, modalidad, precio, pagado, nombre_paciente, nombre_psicologo) VALUES 
+(1, (SELECT id FROM users WHERE username = 'paciente1'), (SELECT id FROM users WHERE username = 'psicologo1'), DATEADD('HOUR', 24, CURRENT_TIMESTAMP), 'RESERVADA', 'PRESENCIAL', 80.00, false, 'Ana García Mendoza', 'Dr. Juan Pérez');
 
-INSERT INTO appointments (paciente_id, psicologo_id, fecha_hora, estado, modalidad, precio, pagado, nombre_paciente, nombre_psicologo) VALUES 
-((SELECT id FROM users WHERE username = 'paciente2'), (SELECT id FROM users WHERE username = 'psicologo2'), DATEADD('HOUR', 48, CURRENT_TIMESTAMP), 'RESERVADA', 'VIDEOLLAMADA', 70.00, false, 'Carlos López Vargas', 'Dra. María Rodríguez');
+INSERT INTO appointments (id, paciente_id, psicologo_id, fecha_hora, estado, modalidad, precio, pagado, nombre_paciente, nombre_psicologo) VALUES 
+(2, (SELECT id FROM users WHERE username = 'paciente2'), (SELECT id FROM users WHERE username = 'psicologo2'), DATEADD('HOUR', 48, CURRENT_TIMESTAMP), 'RESERVADA', 'VIDEOLLAMADA', 70.00, false, 'Carlos López Vargas', 'Dra. María Rodríguez');
 
-INSERT INTO appointments (paciente_id, psicologo_id, fecha_hora, estado, modalidad, precio, pagado, nombre_paciente, nombre_psicologo) VALUES 
-((SELECT id FROM users WHERE username = 'paciente3'), (SELECT id FROM users WHERE username = 'psicologo3'), DATEADD('HOUR', 72, CURRENT_TIMESTAMP), 'RESERVADA', 'PRESENCIAL', 75.00, true, 'Lucía Torres Ramírez', 'Dr. Carlos Mendoza');
+INSERT INTO appointments (id, paciente_id, psicologo_id, fecha_hora, estado, modalidad, precio, pagado, nombre_paciente, nombre_psicologo) VALUES 
+(3, (SELECT id FROM users WHERE username = 'paciente3'), (SELECT id FROM users WHERE username = 'psicologo3'), DATEADD('HOUR', 72, CURRENT_TIMESTAMP), 'RESERVADA', 'PRESENCIAL', 75.00, true, 'Lucía Torres Ramírez', 'Dr. Carlos Mendoza');
 
 -- Citas COMPLETADAS (con historia clínica)
-INSERT INTO appointments (paciente_id, psicologo_id, fecha_hora, estado, modalidad, precio, pagado, nombre_paciente, nombre_psicologo, notas) VALUES 
-((SELECT id FROM users WHERE username = 'paciente1'), (SELECT id FROM users WHERE username = 'psicologo1'), DATEADD('DAY', -7, CURRENT_TIMESTAMP), 'COMPLETADA', 'PRESENCIAL', 80.00, true, 'Ana García Mendoza', 'Dr. Juan Pérez', 'Sesión completada - Ver nota clínica detallada');
+INSERT INTO appointments (id, paciente_id, psicologo_id, fecha_hora, estado, modalidad, precio, pagado, nombre_paciente, nombre_psicologo, notas) VALUES 
+(4, (SELECT id FROM users WHERE username = 'paciente1'), (SELECT id FROM users WHERE username = 'psicologo1'), DATEADD('DAY', -7, CURRENT_TIMESTAMP), 'COMPLETADA', 'PRESENCIAL', 80.00, true, 'Ana García Mendoza', 'Dr. Juan Pérez', 'Sesión completada - Ver nota clínica detallada');
 
-INSERT INTO appointments (paciente_id, psicologo_id, fecha_hora, estado, modalidad, precio, pagado, nombre_paciente, nombre_psicologo, notas) VALUES 
-((SELECT id FROM users WHERE username = 'paciente1'), (SELECT id FROM users WHERE username = 'psicologo1'), DATEADD('DAY', -14, CURRENT_TIMESTAMP), 'COMPLETADA', 'VIDEOLLAMADA', 80.00, true, 'Ana García Mendoza', 'Dr. Juan Pérez', 'Segunda sesión - Progreso notable');
+INSERT INTO appointments (id, paciente_id, psicologo_id, fecha_hora, estado, modalidad, precio, pagado, nombre_paciente, nombre_psicologo, notas) VALUES 
+(5, (SELECT id FROM users WHERE username = 'paciente1'), (SELECT id FROM users WHERE username = 'psicologo1'), DATEADD('DAY', -14, CURRENT_TIMESTAMP), 'COMPLETADA', 'VIDEOLLAMADA', 80.00, true, 'Ana García Mendoza', 'Dr. Juan Pérez', 'Segunda sesión - Progreso notable');
 
-INSERT INTO appointments (paciente_id, psicologo_id, fecha_hora, estado, modalidad, precio, pagado, nombre_paciente, nombre_psicologo, notas) VALUES 
-((SELECT id FROM users WHERE username = 'paciente2'), (SELECT id FROM users WHERE username = 'psicologo2'), DATEADD('DAY', -10, CURRENT_TIMESTAMP), 'COMPLETADA', 'PRESENCIAL', 70.00, true, 'Carlos López Vargas', 'Dra. María Rodríguez', 'Terapia de pareja - Primera sesión');
+INSERT INTO appointments (id, paciente_id, psicologo_id, fecha_hora, estado, modalidad, precio, pagado, nombre_paciente, nombre_psicologo, notas) VALUES 
+(6, (SELECT id FROM users WHERE username = 'paciente2'), (SELECT id FROM users WHERE username = 'psicologo2'), DATEADD('DAY', -10, CURRENT_TIMESTAMP), 'COMPLETADA', 'PRESENCIAL', 70.00, true, 'Carlos López Vargas', 'Dra. María Rodríguez', 'Terapia de pareja - Primera sesión');
 
-INSERT INTO appointments (paciente_id, psicologo_id, fecha_hora, estado, modalidad, precio, pagado, nombre_paciente, nombre_psicologo, notas) VALUES 
-((SELECT id FROM users WHERE username = 'paciente3'), (SELECT id FROM users WHERE username = 'psicologo3'), DATEADD('DAY', -5, CURRENT_TIMESTAMP), 'COMPLETADA', 'PRESENCIAL', 75.00, true, 'Lucía Torres Ramírez', 'Dr. Carlos Mendoza', 'Trabajo con autoestima - Resultados positivos');
+INSERT INTO appointments (id, paciente_id, psicologo_id, fecha_hora, estado, modalidad, precio, pagado, nombre_paciente, nombre_psicologo, notas) VALUES 
+(7, (SELECT id FROM users WHERE username = 'paciente3'), (SELECT id FROM users WHERE username = 'psicologo3'), DATEADD('DAY', -5, CURRENT_TIMESTAMP), 'COMPLETADA', 'PRESENCIAL', 75.00, true, 'Lucía Torres Ramírez', 'Dr. Carlos Mendoza', 'Trabajo con autoestima - Resultados positivos');
 
 -- Citas con PAGOS PENDIENTES
-INSERT INTO appointments (paciente_id, psicologo_id, fecha_hora, estado, modalidad, precio, pagado, nombre_paciente, nombre_psicologo, notas) VALUES 
-((SELECT id FROM users WHERE username = 'paciente2'), (SELECT id FROM users WHERE username = 'psicologo2'), DATEADD('DAY', -3, CURRENT_TIMESTAMP), 'COMPLETADA', 'VIDEOLLAMADA', 70.00, false, 'Carlos López Vargas', 'Dra. María Rodríguez', 'Segunda sesión de pareja - Pago pendiente');
+INSERT INTO appointments (id, paciente_id, psicologo_id, fecha_hora, estado, modalidad, precio, pagado, nombre_paciente, nombre_psicologo, notas) VALUES 
+(8, (SELECT id FROM users WHERE username = 'paciente2'), (SELECT id FROM users WHERE username = 'psicologo2'), DATEADD('DAY', -3, CURRENT_TIMESTAMP), 'COMPLETADA', 'VIDEOLLAMADA', 70.00, false, 'Carlos López Vargas', 'Dra. María Rodríguez', 'Segunda sesión de pareja - Pago pendiente');
 
 -- Citas CANCELADAS
-INSERT INTO appointments (paciente_id, psicologo_id, fecha_hora, estado, modalidad, precio, pagado, nombre_paciente, nombre_psicologo, notas) VALUES 
-((SELECT id FROM users WHERE username = 'paciente3'), (SELECT id FROM users WHERE username = 'psicologo1'), DATEADD('DAY', -6, CURRENT_TIMESTAMP), 'CANCELADA', 'PRESENCIAL', 80.00, false, 'Lucía Torres Ramírez', 'Dr. Juan Pérez', 'Cancelada por motivos de salud del paciente');
+INSERT INTO appointments (id, paciente_id, psicologo_id, fecha_hora, estado, modalidad, precio, pagado, nombre_paciente, nombre_psicologo, notas) VALUES 
+(9, (SELECT id FROM users WHERE username = 'paciente3'), (SELECT id FROM users WHERE username = 'psicologo1'), DATEADD('DAY', -6, CURRENT_TIMESTAMP), 'CANCELADA', 'PRESENCIAL', 80.00, false, 'Lucía Torres Ramírez', 'Dr. Juan Pérez', 'Cancelada por motivos de salud del paciente');
 
 -- ===============================================
 -- PAGOS (Historial de pagos por paciente)
 -- ===============================================
 
 -- Pagos COMPLETADOS (usando IDs fijos)
-INSERT INTO payments (appointment_id, paciente_id, psicologo_id, monto, metodo_pago, estado, fecha_pago, numero_transaccion, numero_comprobante, concepto_pago, nombre_paciente, nombre_psicologo) VALUES 
-(4, 2, 2, 80.00, 'YAPE', 'COMPLETADO', DATEADD('DAY', -6, CURRENT_TIMESTAMP), 'YPE-20250107-001', 'F001-0001', 'Consulta psicológica', 'Ana García Mendoza', 'Dr. Juan Pérez');
+INSERT INTO payments (id, appointment_id, paciente_id, psicologo_id, monto, metodo_pago, estado, fecha_pago, numero_transaccion, numero_comprobante, concepto_pago, nombre_paciente, nombre_psicologo) VALUES 
+(1, 4, 2, 2, 80.00, 'YAPE', 'COMPLETADO', DATEADD('DAY', -6, CURRENT_TIMESTAMP), 'YPE-20250107-001', 'F001-0001', 'Consulta psicológica', 'Ana García Mendoza', 'Dr. Juan Pérez');
 
-INSERT INTO payments (appointment_id, paciente_id, psicologo_id, monto, metodo_pago, estado, fecha_pago, numero_transaccion, numero_comprobante, concepto_pago, nombre_paciente, nombre_psicologo) VALUES 
-(5, 2, 2, 80.00, 'TARJETA', 'COMPLETADO', DATEADD('DAY', -13, CURRENT_TIMESTAMP), 'VISA-20250101-002', 'F001-0002', 'Consulta psicológica videollamada', 'Ana García Mendoza', 'Dr. Juan Pérez');
+INSERT INTO payments (id, appointment_id, paciente_id, psicologo_id, monto, metodo_pago, estado, fecha_pago, numero_transaccion, numero_comprobante, concepto_pago, nombre_paciente, nombre_psicologo) VALUES 
+(2, 5, 2, 2, 80.00, 'TARJETA', 'COMPLETADO', DATEADD('DAY', -13, CURRENT_TIMESTAMP), 'VISA-20250101-002', 'F001-0002', 'Consulta psicológica videollamada', 'Ana García Mendoza', 'Dr. Juan Pérez');
 
-INSERT INTO payments (appointment_id, paciente_id, psicologo_id, monto, metodo_pago, estado, fecha_pago, numero_transaccion, numero_comprobante, concepto_pago, nombre_paciente, nombre_psicologo) VALUES 
-(6, 3, 3, 70.00, 'PLIN', 'COMPLETADO', DATEADD('DAY', -9, CURRENT_TIMESTAMP), 'PLN-20250102-001', 'F001-0003', 'Terapia familiar', 'Carlos López Vargas', 'Dra. María Rodríguez');
+INSERT INTO payments (id, appointment_id, paciente_id, psicologo_id, monto, metodo_pago, estado, fecha_pago, numero_transaccion, numero_comprobante, concepto_pago, nombre_paciente, nombre_psicologo) VALUES 
+(3, 6, 3, 3, 70.00, 'PLIN', 'COMPLETADO', DATEADD('DAY', -9, CURRENT_TIMESTAMP), 'PLN-20250102-001', 'F001-0003', 'Terapia familiar', 'Carlos López Vargas', 'Dra. María Rodríguez');
 
-INSERT INTO payments (appointment_id, paciente_id, psicologo_id, monto, metodo_pago, estado, fecha_pago, numero_transaccion, numero_comprobante, concepto_pago, nombre_paciente, nombre_psicologo) VALUES 
-(7, 4, 4, 75.00, 'EFECTIVO', 'COMPLETADO', DATEADD('DAY', -4, CURRENT_TIMESTAMP), 'EFE-20250105-001', 'B001-0001', 'Terapia individual', 'Lucía Torres Ramírez', 'Dr. Carlos Mendoza');
+INSERT INTO payments (id, appointment_id, paciente_id, psicologo_id, monto, metodo_pago, estado, fecha_pago, numero_transaccion, numero_comprobante, concepto_pago, nombre_paciente, nombre_psicologo) VALUES 
+(4, 7, 4, 4, 75.00, 'EFECTIVO', 'COMPLETADO', DATEADD('DAY', -4, CURRENT_TIMESTAMP), 'EFE-20250105-001', 'B001-0001', 'Terapia individual', 'Lucía Torres Ramírez', 'Dr. Carlos Mendoza');
 
 -- Pago PENDIENTE
-INSERT INTO payments (appointment_id, paciente_id, psicologo_id, monto, metodo_pago, estado, fecha_pago, concepto_pago, observaciones, nombre_paciente, nombre_psicologo) VALUES 
-(8, 3, 3, 70.00, 'YAPE', 'PENDIENTE', DATEADD('DAY', -3, CURRENT_TIMESTAMP), 'Terapia de pareja - Segunda sesión', 'Paciente indica que realizará pago en próximos días', 'Carlos López Vargas', 'Dra. María Rodríguez');
+INSERT INTO payments (id, appointment_id, paciente_id, psicologo_id, monto, metodo_pago, estado, fecha_pago, concepto_pago, observaciones, nombre_paciente, nombre_psicologo) VALUES 
+(5, 8, 3, 3, 70.00, 'YAPE', 'PENDIENTE', DATEADD('DAY', -3, CURRENT_TIMESTAMP), 'Terapia de pareja - Segunda sesión', 'Paciente indica que realizará pago en próximos días', 'Carlos López Vargas', 'Dra. María Rodríguez');
 
 -- ===============================================
 -- NOTAS CLÍNICAS (Historia clínica detallada)
@@ -0,0 +1,18 @@
+-- IDS POR SECUENCIA
+-- Con IDENTITY Hibernate no puede agrupar INSERTs en lotes JDBC (necesita el id de
+-- cada fila al insertarla). Users, appointments y payments pasan a secuencias con
+-- incremento 50 que Hibernate reserva en bloques (optimizador pooled).
+-- La columna conserva un DEFAULT a la misma secuencia para los INSERT en SQL plano;
+-- data.sql usa ids explícitos por debajo de 1000.
+
+CREATE SEQUENCE IF NOT EXISTS users_seq START WITH 1050 INCREMENT BY 50;
+ALTER TABLE users ALTER COLUMN id DROP IDENTITY;
+ALTER TABLE users ALTER COLUMN id SET DEFAULT NEXT VALUE FOR users_seq;
+
+CREATE SEQUENCE IF NOT EXISTS appointments_seq START WITH 1050 INCREMENT BY 50;
+ALTER TABLE appointments ALTER COLUMN id DROP IDENTITY;
+ALTER TABLE appointments ALTER COLUMN id SET DEFAULT NEXT VALUE FOR appointments_seq;
+
+CREATE SEQUENCE IF NOT EXISTS payments_seq START WITH 1050 INCREMENT BY 50;
+ALTER TABLE payments ALTER COLUMN id DROP IDENTITY;
+ALTER TABLE payments ALTER COLUMN id SET DEFAULT NEXT VALUE FOR payments_seq;
@@ -0,0 +1,7 @@
+-- PAGINACIÓN DE USUARIOS POR ROL
+-- findByRoleAndIdGreaterThanOrderByIdAsc (/pacientes/page, /psicologos/page) recorre
+-- un rol en orden de id. Con el índice solo sobre role habría que leer y ordenar todos
+-- los usuarios del rol en cada página; (role, id) sirve además a las consultas por rol.
+
+CREATE INDEX IF NOT EXISTS idx_users_role_id ON users (role, id);
+DROP INDEX IF EXISTS idx_users_role;
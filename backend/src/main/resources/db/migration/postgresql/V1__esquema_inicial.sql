@@ -0,0 +1,87 @@
+-- ESQUEMA INICIAL - CENTRO PSICOLÓGICO BIENESTAR (PostgreSQL)
+-- Refleja las entidades User, Appointment, Payment y ClinicalNote.
+-- IF NOT EXISTS permite adoptar bases existentes creadas con ddl-auto=update.
+
+CREATE TABLE IF NOT EXISTS users (
+    id bigint GENERATED BY DEFAULT AS IDENTITY,
+    username varchar(255) NOT NULL,
+    password varchar(255) NOT NULL,
+    email varchar(255) NOT NULL,
+    role varchar(255) NOT NULL,
+    nombre varchar(255) NOT NULL,
+    telefono varchar(255),
+    especialidad varchar(255),
+    dni varchar(255),
+    fecha_nacimiento date,
+    direccion varchar(255),
+    telefono_emergencia varchar(255),
+    genero varchar(255),
+    estado_civil varchar(255),
+    colegiatura varchar(255),
+    universidad varchar(255),
+    anios_experiencia integer,
+    descripcion varchar(255),
+    tarifa_consulta float(53),
+    foto_perfil varchar(255),
+    activo boolean,
+    fecha_creacion timestamp(6),
+    ultima_conexion timestamp(6),
+    configuracion_notificaciones varchar(255),
+    horario_atencion varchar(255),
+    PRIMARY KEY (id)
+);
+
+CREATE TABLE IF NOT EXISTS appointments (
+    id bigint GENERATED BY DEFAULT AS IDENTITY,
+    paciente_id bigint NOT NULL,
+    psicologo_id bigint NOT NULL,
+    fecha_hora timestamp(6) NOT NULL,
+    estado varchar(255) NOT NULL,
+    modalidad varchar(255) NOT NULL,
+    notas oid,
+    precio float(53),
+    pagado boolean NOT NULL,
+    nombre_paciente varchar(255),
+    nombre_psicologo varchar(255),
+    PRIMARY KEY (id)
+);
+
+CREATE TABLE IF NOT EXISTS payments (
+    id bigint GENERATED BY DEFAULT AS IDENTITY,
+    appointment_id bigint NOT NULL,
+    paciente_id bigint NOT NULL,
+    psicologo_id bigint NOT NULL,
+    monto float(53) NOT NULL,
+    metodo_pago varchar(255) NOT NULL,
+    estado varchar(255) NOT NULL,
+    fecha_pago timestamp(6) NOT NULL,
+    numero_transaccion varchar(255),
+    numero_comprobante varchar(255),
+    concepto_pago varchar(255),
+    observaciones varchar(255),
+    nombre_paciente varchar(255),
+    nombre_psicologo varchar(255),
+    PRIMARY KEY (id)
+);
+
+CREATE TABLE IF NOT EXISTS clinical_notes (
+    id bigint GENERATED BY DEFAULT AS IDENTITY,
+    appointment_id bigint,
+    paciente_id bigint NOT NULL,
+    psicologo_id bigint NOT NULL,
+    fecha_creacion timestamp(6) NOT NULL,
+    tipo_nota varchar(255) NOT NULL,
+    contenido oid NOT NULL,
+    observaciones_generales oid,
+    plan_tratamiento oid,
+    tareas_paciente oid,
+    estado_emocional varchar(255),
+    nivel_funcionalidad varchar(255),
+    sesion_numero integer,
+    requiere_seguimiento boolean,
+    proxima_revision timestamp(6),
+    nombre_paciente varchar(255),
+    nombre_psicologo varchar(255),
+    modalidad_sesion varchar(255),
+    PRIMARY KEY (id)
+);
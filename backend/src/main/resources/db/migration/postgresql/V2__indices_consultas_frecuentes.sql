@@ -0,0 +1,56 @@
+-- ÍNDICES PARA LAS CONSULTAS FRECUENTES
+-- Cada índice indica el método de repositorio al que sirve.
+
+-- ===============================================
+-- USUARIOS
+-- ===============================================
+-- findByUsername / login
+CREATE UNIQUE INDEX IF NOT EXISTS ux_users_username ON users (username);
+-- findByRole, findResumenByRole, countGroupByRole
+CREATE INDEX IF NOT EXISTS idx_users_role ON users (role);
+
+-- ===============================================
+-- CITAS
+-- ===============================================
+-- findByPsicologoId, resumenPorPsicologo, paginación por psicólogo (fecha_hora, id)
+CREATE INDEX IF NOT EXISTS idx_appointments_psicologo_fecha ON appointments (psicologo_id, fecha_hora, id);
+-- findByPacienteId, paginación por paciente (fecha_hora, id)
+CREATE INDEX IF NOT EXISTS idx_appointments_paciente_fecha ON appointments (paciente_id, fecha_hora, id);
+-- búsquedas por paciente y estado
+CREATE INDEX IF NOT EXISTS idx_appointments_paciente_estado ON appointments (paciente_id, estado);
+-- findByEstado, resumenPorEstadoYPagado
+CREATE INDEX IF NOT EXISTS idx_appointments_estado_pagado ON appointments (estado, pagado);
+-- findByPagado
+CREATE INDEX IF NOT EXISTS idx_appointments_pagado ON appointments (pagado);
+-- búsqueda por rango de fecha_hora
+CREATE INDEX IF NOT EXISTS idx_appointments_fecha_hora ON appointments (fecha_hora, id);
+
+-- ===============================================
+-- PAGOS
+-- ===============================================
+-- findByPacienteId, findByPacienteIdAndEstado
+CREATE INDEX IF NOT EXISTS idx_payments_paciente_estado ON payments (paciente_id, estado);
+-- findByPsicologoId, findByPsicologoIdAndEstado, sumMontoByPsicologoIdAndEstadoCompletado
+CREATE INDEX IF NOT EXISTS idx_payments_psicologo_estado ON payments (psicologo_id, estado);
+-- findByAppointmentId
+CREATE INDEX IF NOT EXISTS idx_payments_appointment ON payments (appointment_id);
+-- findPagosPendientes, sumTotalIngresos, resumenPorPsicologoAndEstado
+CREATE INDEX IF NOT EXISTS idx_payments_estado_fecha ON payments (estado, fecha_pago);
+-- findByFechaPagoBetween
+CREATE INDEX IF NOT EXISTS idx_payments_fecha_pago ON payments (fecha_pago);
+
+-- ===============================================
+-- NOTAS CLÍNICAS
+-- ===============================================
+-- findByPacienteIdOrderByFechaCreacionDesc, findFirstByPacienteIdOrderByFechaCreacionDesc
+CREATE INDEX IF NOT EXISTS idx_clinical_notes_paciente_fecha ON clinical_notes (paciente_id, fecha_creacion, id);
+-- findByPsicologoIdOrderByFechaCreacionDesc, countGroupByPsicologo
+CREATE INDEX IF NOT EXISTS idx_clinical_notes_psicologo_fecha ON clinical_notes (psicologo_id, fecha_creacion, id);
+-- findByAppointmentId
+CREATE INDEX IF NOT EXISTS idx_clinical_notes_appointment ON clinical_notes (appointment_id);
+-- findByRequiereSeguimientoTrueOrderByProximaRevisionAsc
+CREATE INDEX IF NOT EXISTS idx_clinical_notes_seguimiento ON clinical_notes (requiere_seguimiento, proxima_revision);
+-- findSeguimientosPendientesByPsicologo
+CREATE INDEX IF NOT EXISTS idx_clinical_notes_psicologo_seguimiento ON clinical_notes (psicologo_id, requiere_seguimiento, proxima_revision);
+-- findRecentSummaries, findByFechaCreacionBetween
+CREATE INDEX IF NOT EXISTS idx_clinical_notes_fecha_creacion ON clinical_notes (fecha_creacion, id);
@@ -0,0 +1,38 @@
+-- ESTADÍSTICAS MATERIALIZADAS POR PSICÓLOGO
+-- Se mantienen de forma incremental desde PsychologistStatsService;
+-- POST /api/reports/psychologist-stats/rebuild las recalcula desde appointments.
+
+CREATE TABLE IF NOT EXISTS psychologist_stats (
+    psicologo_id bigint NOT NULL,
+    total_citas bigint NOT NULL,
+    citas_completadas bigint NOT NULL,
+    citas_pendientes bigint NOT NULL,
+    citas_canceladas bigint NOT NULL,
+    ingreso_total float(53) NOT NULL,
+    pacientes_unicos bigint NOT NULL,
+    PRIMARY KEY (psicologo_id)
+);
+
+-- Un registro por par psicólogo-paciente con su número de citas:
+-- el paciente deja de contar como único cuando su contador llega a 0
+CREATE TABLE IF NOT EXISTS psychologist_patients (
+    psicologo_id bigint NOT NULL,
+    paciente_id bigint NOT NULL,
+    citas bigint NOT NULL,
+    PRIMARY KEY (psicologo_id, paciente_id)
+);
+
+INSERT INTO psychologist_patients (psicologo_id, paciente_id, citas)
+SELECT psicologo_id, paciente_id, COUNT(*) FROM appointments
+GROUP BY psicologo_id, paciente_id;
+
+INSERT INTO psychologist_stats (psicologo_id, total_citas, citas_completadas, citas_pendientes,
+                                citas_canceladas, ingreso_total, pacientes_unicos)
+SELECT a.psicologo_id, COUNT(*),
+       SUM(CASE WHEN a.estado = 'COMPLETADA' THEN 1 ELSE 0 END),
+       SUM(CASE WHEN a.estado = 'RESERVADA' THEN 1 ELSE 0 END),
+       SUM(CASE WHEN a.estado = 'CANCELADA' THEN 1 ELSE 0 END),
+       COALESCE(SUM(CASE WHEN a.pagado = true THEN a.precio ELSE 0 END), 0),
+       (SELECT COUNT(*) FROM psychologist_patients pp WHERE pp.psicologo_id = a.psicologo_id)
+FROM appointments a
+GROUP BY a.psicologo_id;
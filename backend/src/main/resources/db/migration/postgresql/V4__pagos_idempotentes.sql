@@ -0,0 +1,10 @@
+-- PAGOS IDEMPOTENTES
+-- PaymentService guarda la cabecera Idempotency-Key del cliente; un reintento con
+-- la misma clave devuelve el pago ya creado. Varias filas con NULL están permitidas.
+
+ALTER TABLE payments ADD COLUMN IF NOT EXISTS idempotency_key varchar(100);
+
+CREATE UNIQUE INDEX IF NOT EXISTS ux_payments_idempotency_key ON payments (idempotency_key);
+
+-- Números de transacción: PaymentService reserva bloques de 50 valores por llamada
+CREATE SEQUENCE IF NOT EXISTS payment_txn_seq START WITH 50 INCREMENT BY 50;
@@ -0,0 +1,25 @@
+-- IDS POR SECUENCIA
+-- Con IDENTITY Hibernate no puede agrupar INSERTs en lotes JDBC (necesita el id de
+-- cada fila al insertarla). Users, appointments y payments pasan a secuencias con
+-- incremento 50 que Hibernate reserva en bloques (optimizador pooled).
+-- La columna conserva un DEFAULT a la misma secuencia para los INSERT en SQL plano.
+-- Cada secuencia arranca por encima del id máximo existente (y de 1000, reservado
+-- para los ids explícitos de data.sql).
+
+CREATE SEQUENCE IF NOT EXISTS users_seq INCREMENT BY 50;
+SELECT setval('users_seq', GREATEST(COALESCE(MAX(id), 0), 1000)) FROM users;
+ALTER TABLE users ALTER COLUMN id DROP IDENTITY IF EXISTS;
+ALTER TABLE users ALTER COLUMN id SET DEFAULT nextval('users_seq');
+ALTER SEQUENCE users_seq OWNED BY users.id;
+
+CREATE SEQUENCE IF NOT EXISTS appointments_seq INCREMENT BY 50;
+SELECT setval('appointments_seq', GREATEST(COALESCE(MAX(id), 0), 1000)) FROM appointments;
+ALTER TABLE appointments ALTER COLUMN id DROP IDENTITY IF EXISTS;
+ALTER TABLE appointments ALTER COLUMN id SET DEFAULT nextval('appointments_seq');
+ALTER SEQUENCE appointments_seq OWNED BY appointments.id;
+
+CREATE SEQUENCE IF NOT EXISTS payments_seq INCREMENT BY 50;
+SELECT setval('payments_seq', GREATEST(COALESCE(MAX(id), 0), 1000)) FROM payments;
+ALTER TABLE payments ALTER COLUMN id DROP IDENTITY IF EXISTS;
+ALTER TABLE payments ALTER COLUMN id SET DEFAULT nextval('payments_seq');
+ALTER SEQUENCE payments_seq OWNED BY payments.id;
@@ -0,0 +1,91 @@
+package com.consultorio;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.DayOfWeek;
+import java.time.LocalTime;
+
+import org.junit.jupiter.api.Test;
+
+class HorarioAtencionTest {
+
+    @Test
+    void parsesADayRangeWithAmPmHours() {
+        HorarioAtencion horario = HorarioAtencion.parse("Lunes a Viernes 9AM-6PM").orElseThrow();
+
+        for (DayOfWeek dia : new DayOfWeek[] {DayOfWeek.MONDAY, DayOfWeek.TUESDAY, DayOfWeek.WEDNESDAY,
+                                              DayOfWeek.THURSDAY, DayOfWeek.FRIDAY}) {
+            assertThat(horario.bloques(dia)).isEqualTo(horas(9, 0, 18, 0));
+        }
+        assertThat(horario.bloques(DayOfWeek.SATURDAY)).isZero();
+        assertThat(horario.bloques(DayOfWeek.SUNDAY)).isZero();
+    }
+
+    @Test
+    void parsesDayListsWithAccentsAndSeveralRanges() {
+        HorarioAtencion horario = HorarioAtencion.parse("Lunes, Miércoles y Viernes 9:00-13:00 y 15:00-19:00").orElseThrow();
+
+        long esperado = horas(9, 0, 13, 0) | horas(15, 0, 19, 0);
+        assertThat(horario.bloques(DayOfWeek.MONDAY)).isEqualTo(esperado);
+        assertThat(horario.bloques(DayOfWeek.WEDNESDAY)).isEqualTo(esperado);
+        assertThat(horario.bloques(DayOfWeek.FRIDAY)).isEqualTo(esperado);
+        assertThat(horario.bloques(DayOfWeek.TUESDAY)).isZero();
+    }
+
+    @Test
+    void parsesSeveralSectionsAndAbbreviations() {
+        HorarioAtencion horario = HorarioAtencion.parse("Lun-Vie 8:30 a 12:15; Sábados 9AM-1PM").orElseThrow();
+
+        // 12:15 no completa el bloque de 12:00-12:30
+        assertThat(horario.bloques(DayOfWeek.THURSDAY)).isEqualTo(horas(8, 30, 12, 0));
+        assertThat(horario.bloques(DayOfWeek.SATURDAY)).isEqualTo(horas(9, 0, 13, 0));
+        assertThat(horario.bloques(DayOfWeek.SUNDAY)).isZero();
+    }
+
+    @Test
+    void startHourTakesTheSuffixOfTheEndUnlessItWouldEndBeforeIt() {
+        assertThat(HorarioAtencion.parse("Martes 9-6PM").orElseThrow().bloques(DayOfWeek.TUESDAY))
+            .isEqualTo(horas(9, 0, 18, 0));
+        assertThat(HorarioAtencion.parse("Martes 2-6PM").orElseThrow().bloques(DayOfWeek.TUESDAY))
+            .isEqualTo(horas(14, 0, 18, 0));
+        assertThat(HorarioAtencion.parse("Martes 12PM-2PM").orElseThrow().bloques(DayOfWeek.TUESDAY))
+            .isEqualTo(horas(12, 0, 14, 0));
+        assertThat(HorarioAtencion.parse("Martes 8PM-12AM").orElseThrow().bloques(DayOfWeek.TUESDAY))
+            .isEqualTo(HorarioAtencion.rangoBits(40, HorarioAtencion.BLOQUES_POR_DIA));
+    }
+
+    @Test
+    void dayRangesWrapAroundTheWeek() {
+        HorarioAtencion horario = HorarioAtencion.parse("Viernes a Lunes 10:00-12:00").orElseThrow();
+
+        assertThat(horario.bloques(DayOfWeek.FRIDAY)).isEqualTo(horas(10, 0, 12, 0));
+        assertThat(horario.bloques(DayOfWeek.SATURDAY)).isEqualTo(horas(10, 0, 12, 0));
+        assertThat(horario.bloques(DayOfWeek.SUNDAY)).isEqualTo(horas(10, 0, 12, 0));
+        assertThat(horario.bloques(DayOfWeek.MONDAY)).isEqualTo(horas(10, 0, 12, 0));
+        assertThat(horario.bloques(DayOfWeek.TUESDAY)).isZero();
+    }
+
+    @Test
+    void unrecognisedTextIsEmpty() {
+        assertThat(HorarioAtencion.parse(null)).isEmpty();
+        assertThat(HorarioAtencion.parse("  ")).isEmpty();
+        assertThat(HorarioAtencion.parse("Consultar disponibilidad")).isEmpty();
+        assertThat(HorarioAtencion.parse("9AM-6PM")).isEmpty();
+        assertThat(HorarioAtencion.parse("Lunes 6PM-9AM")).isEmpty();
+    }
+
+    @Test
+    void blockHelpers() {
+        assertThat(HorarioAtencion.rangoBits(0, 0)).isZero();
+        assertThat(HorarioAtencion.rangoBits(0, 3)).isEqualTo(0b111L);
+        assertThat(HorarioAtencion.rangoBits(2, 4)).isEqualTo(0b1100L);
+        assertThat(Long.bitCount(HorarioAtencion.rangoBits(0, HorarioAtencion.BLOQUES_POR_DIA)))
+            .isEqualTo(HorarioAtencion.BLOQUES_POR_DIA);
+        assertThat(HorarioAtencion.horaDeBloque(19)).isEqualTo(LocalTime.of(9, 30));
+    }
+
+    private static long horas(int h1, int m1, int h2, int m2) {
+        return HorarioAtencion.rangoBits((h1 * 60 + m1) / HorarioAtencion.MINUTOS_BLOQUE,
+                                         (h2 * 60 + m2) / HorarioAtencion.MINUTOS_BLOQUE);
+    }
+}
@@ -0,0 +1,34 @@
+package com.consultorio;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+// Las mismas consultas que IndexUsageTest con el planificador de producción
+@Testcontainers(disabledWithoutDocker = true)
+class IndexUsagePostgresTest {
+
+    @Container
+    static final PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:15-alpine");
+
+    private static JdbcTemplate jdbcTemplate;
+
+    @BeforeAll
+    static void setUp() {
+        jdbcTemplate = IndexUsageTest.load(new DriverManagerDataSource(POSTGRES.getJdbcUrl(), POSTGRES.getUsername(),
+                                                                       POSTGRES.getPassword()), "postgresql");
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource("com.consultorio.IndexUsageTest#consultasFrecuentes")
+    void hotQueryUsesItsIndex(String consulta, String sql, String indice) {
+        assertThat(IndexUsageTest.plan(jdbcTemplate, sql)).contains(indice);
+    }
+}
@@ -0,0 +1,91 @@
+package com.consultorio;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Locale;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+// El plan de cada consulta frecuente usa el índice de V2 que la sirve
+class IndexUsageTest {
+
+    private static JdbcTemplate jdbcTemplate;
+
+    @BeforeAll
+    static void setUp() {
+        jdbcTemplate = load(new DriverManagerDataSource("jdbc:h2:mem:idx_" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1",
+                                                        "sa", ""), "h2");
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource("consultasFrecuentes")
+    void hotQueryUsesItsIndex(String consulta, String sql, String indice) {
+        assertThat(plan(jdbcTemplate, sql)).contains(indice);
+    }
+
+    // Datos suficientes y estadísticas al día para que el optimizador elija por costo
+    static JdbcTemplate load(DataSource dataSource, String vendor) {
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(SyntheticDataGeneratorTest.migrate(dataSource, vendor));
+        new SyntheticDataGenerator(jdbcTemplate, 1000, 2).generate(50, 1000, 20_000, 42);
+        jdbcTemplate.execute("ANALYZE");
+        return jdbcTemplate;
+    }
+
+    static String plan(JdbcTemplate jdbcTemplate, String sql) {
+        Long psicologo = jdbcTemplate.queryForObject("SELECT MIN(id) FROM users WHERE role = 'PSICOLOGO'", Long.class);
+        Long paciente = jdbcTemplate.queryForObject("SELECT MIN(id) FROM users WHERE role = 'PACIENTE'", Long.class);
+        String explain = "EXPLAIN " + sql.replace(":psicologo", psicologo.toString()).replace(":paciente", paciente.toString());
+        return String.join("\n", jdbcTemplate.queryForList(explain, String.class)).toLowerCase(Locale.ROOT);
+    }
+
+    // SQL equivalente al que genera cada método de repositorio, con parámetros fijos
+    static Stream<Arguments> consultasFrecuentes() {
+        String desde = "TIMESTAMP '2025-03-01 10:00:00'";
+        String hasta = "TIMESTAMP '2025-03-02 10:00:00'";
+        return Stream.of(
+            Arguments.of("UserRepository.findByUsername",
+                         "SELECT * FROM users WHERE username = 'paciente_desconocido'", "ux_users_username"),
+            Arguments.of("UserRepository.findByRoleAndIdGreaterThanOrderByIdAsc",
+                         "SELECT * FROM users WHERE role = 'PACIENTE' AND id > :paciente ORDER BY id LIMIT 21",
+                         "idx_users_role_id"),
+            Arguments.of("AppointmentRepository.findByPsicologoIdOrderByFechaHoraAscIdAsc",
+                         "SELECT * FROM appointments WHERE psicologo_id = :psicologo ORDER BY fecha_hora, id LIMIT 21",
+                         "idx_appointments_psicologo_fecha"),
+            Arguments.of("AppointmentRepository.findByPsicologoIdAfter",
+                         "SELECT * FROM appointments WHERE psicologo_id = :psicologo AND (fecha_hora > " + desde +
+                         " OR (fecha_hora = " + desde + " AND id > 10)) ORDER BY fecha_hora, id LIMIT 21",
+                         "idx_appointments_psicologo_fecha"),
+            Arguments.of("AppointmentRepository.findByPacienteIdAndFechaHoraBetweenOrderByFechaHoraDesc",
+                         "SELECT * FROM appointments WHERE paciente_id = :paciente AND fecha_hora BETWEEN " + desde +
+                         " AND " + hasta + " ORDER BY fecha_hora DESC", "idx_appointments_paciente_fecha"),
+            Arguments.of("AppointmentRepository.streamByFechaHoraBetweenOrderByIdAsc",
+                         "SELECT * FROM appointments WHERE fecha_hora BETWEEN " + desde + " AND " + hasta + " ORDER BY id",
+                         "idx_appointments_fecha_hora"),
+            Arguments.of("PaymentRepository.findByPsicologoIdAndEstado",
+                         "SELECT * FROM payments WHERE psicologo_id = :psicologo AND estado = 'COMPLETADO'",
+                         "idx_payments_psicologo_estado"),
+            Arguments.of("PaymentRepository.findByEstadoAfter",
+                         "SELECT * FROM payments WHERE estado = 'PENDIENTE' AND (fecha_pago > " + desde +
+                         " OR (fecha_pago = " + desde + " AND id > 10)) ORDER BY fecha_pago, id LIMIT 21",
+                         "idx_payments_estado_fecha"),
+            Arguments.of("PaymentRepository.findByAppointmentId",
+                         "SELECT * FROM payments WHERE appointment_id = 100", "idx_payments_appointment"),
+            Arguments.of("ClinicalNoteRepository.findByPacienteIdOrderByFechaCreacionDescIdDesc",
+                         "SELECT * FROM clinical_notes WHERE paciente_id = :paciente " +
+                         "ORDER BY fecha_creacion DESC, id DESC LIMIT 21", "idx_clinical_notes_paciente_fecha"),
+            Arguments.of("ClinicalNoteRepository.findByPsicologoIdOrderByFechaCreacionDescIdDesc",
+                         "SELECT * FROM clinical_notes WHERE psicologo_id = :psicologo " +
+                         "ORDER BY fecha_creacion DESC, id DESC LIMIT 21", "idx_clinical_notes_psicologo_fecha"),
+            Arguments.of("ClinicalNoteRepository.findByAppointmentId",
+                         "SELECT * FROM clinical_notes WHERE appointment_id = 100", "idx_clinical_notes_appointment"));
+    }
+}
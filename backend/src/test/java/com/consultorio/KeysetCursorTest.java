@@ -0,0 +1,47 @@
+package com.consultorio;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.time.LocalDateTime;
+
+import org.junit.jupiter.api.Test;
+
+class KeysetCursorTest {
+
+    private static final LocalDateTime FECHA = LocalDateTime.of(2025, 3, 3, 10, 30);
+
+    @Test
+    void roundTripsFechaAndId() {
+        KeysetCursor cursor = KeysetCursor.decodeWithFecha(KeysetCursor.encode(FECHA, 42L));
+
+        assertThat(cursor.getFecha()).isEqualTo(FECHA);
+        assertThat(cursor.getId()).isEqualTo(42L);
+    }
+
+    @Test
+    void roundTripsIdOnly() {
+        KeysetCursor cursor = KeysetCursor.decode(KeysetCursor.encode(42L));
+
+        assertThat(cursor.getFecha()).isNull();
+        assertThat(cursor.getId()).isEqualTo(42L);
+    }
+
+    @Test
+    void idOnlyCursorIsRejectedWhereFechaIsRequired() {
+        String cursor = KeysetCursor.encode(42L);
+
+        assertThatThrownBy(() -> KeysetCursor.decodeWithFecha(cursor))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessageContaining(cursor);
+    }
+
+    @Test
+    void rejectsGarbage() {
+        assertThatThrownBy(() -> KeysetCursor.decode("no es base64!")).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> KeysetCursor.decode(KeysetCursor.encode(FECHA, null)))
+            .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> KeysetCursor.decode("c2luLXNlcGFyYWRvcg"))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,62 @@
+package com.consultorio;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+
+// Errores de cursor: 400 con el mensaje, sin try/catch en cada endpoint
+@SpringBootTest(properties = {
+    "spring.datasource.url=jdbc:h2:mem:pagination_endpoint_test;DB_CLOSE_DELAY=-1",
+    "app.auth.last-seen-flush-interval=PT1H"
+})
+@AutoConfigureMockMvc
+class PaginationEndpointTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    void idOnlyCursorOnAFechaOrderedListIsABadRequest() throws Exception {
+        String cursor = KeysetCursor.encode(5L);
+
+        for (String listado : new String[] {"/api/appointments/patient/3/page", "/api/appointments/psychologist/2/page",
+                                            "/api/clinical-notes/patient/3/page", "/api/appointments/search",
+                                            "/api/payments/pending/page"}) {
+            mockMvc.perform(get(listado).param("cursor", cursor))
+                   .andExpect(status().isBadRequest())
+                   .andExpect(jsonPath("$.error").value("Cursor inválido para este listado: " + cursor));
+        }
+    }
+
+    @Test
+    void malformedCursorIsABadRequest() throws Exception {
+        mockMvc.perform(get("/api/payments/page").param("cursor", "%%%"))
+               .andExpect(status().isBadRequest())
+               .andExpect(jsonPath("$.error").value("Cursor inválido: %%%"));
+    }
+
+    @Test
+    void idOnlyCursorStillPagesIdOrderedLists() throws Exception {
+        mockMvc.perform(get("/api/users/page").param("cursor", KeysetCursor.encode(1L)).param("size", "2"))
+               .andExpect(status().isOk())
+               .andExpect(jsonPath("$.content[0].id").value(2));
+    }
+
+    @Test
+    void roleListsOnlyPageTheirOwnRole() throws Exception {
+        mockMvc.perform(get("/api/psicologos/page").param("cursor", KeysetCursor.encode(2L)).param("size", "1"))
+               .andExpect(status().isOk())
+               .andExpect(jsonPath("$.content[0].id").value(3))
+               .andExpect(jsonPath("$.content[0].role").value("PSICOLOGO"));
+        mockMvc.perform(get("/api/pacientes/page").param("size", "1"))
+               .andExpect(status().isOk())
+               .andExpect(jsonPath("$.content[0].id").value(5))
+               .andExpect(jsonPath("$.content[0].role").value("PACIENTE"));
+    }
+}
@@ -0,0 +1,102 @@
+package com.consultorio;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import io.micrometer.observation.ObservationRegistry;
+
+class ParallelQueryServiceTest {
+
+    private ParallelQueryService service;
+
+    @AfterEach
+    void shutdown() {
+        service.shutdown();
+    }
+
+    private ParallelQueryService service(int hilos, Duration plazo) {
+        service = new ParallelQueryService(mock(PlatformTransactionManager.class),
+                                           new StaticListableBeanFactory().getBeanProvider(ObservationRegistry.class),
+                                           hilos, 10, plazo);
+        return service;
+    }
+
+    // Como un driver JDBC: la consulta no se entera de la interrupción y sigue hasta terminar
+    private static void ocupado(long millis) {
+        long fin = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(millis);
+        while (System.nanoTime() < fin) {
+            Thread.onSpinWait();
+        }
+    }
+
+    @Test
+    void closeWaitsForCancelledQueriesThatAlreadyStarted() {
+        service(2, Duration.ofSeconds(5));
+        AtomicBoolean lentaTerminada = new AtomicBoolean();
+
+        try (ParallelQueryService.Scope scope = service.open("test")) {
+            scope.fork("falla", () -> {
+                ocupado(50);
+                throw new IllegalStateException("falla");
+            });
+            scope.fork("lenta", () -> {
+                ocupado(300);
+                lentaTerminada.set(true);
+                return 1;
+            });
+            assertThatThrownBy(scope::join).isInstanceOf(IllegalStateException.class).hasMessage("falla");
+            assertThat(lentaTerminada).isFalse();
+        }
+        assertThat(lentaTerminada).isTrue();
+    }
+
+    @Test
+    void queuedQueriesAreDiscardedWhenTheScopeCloses() throws InterruptedException {
+        service(1, Duration.ofMillis(100));
+        AtomicBoolean lentaTerminada = new AtomicBoolean();
+        AtomicBoolean encoladaEjecutada = new AtomicBoolean();
+
+        // La lenta ocupa el único hilo más allá del plazo: la segunda sigue en cola al vencer
+        try (ParallelQueryService.Scope scope = service.open("test")) {
+            scope.fork("lenta", () -> {
+                ocupado(300);
+                lentaTerminada.set(true);
+                return 1;
+            });
+            scope.fork("encolada", () -> {
+                encoladaEjecutada.set(true);
+                return 1;
+            });
+            assertThatThrownBy(scope::join).isInstanceOf(ParallelQueryService.PlazoExcedidoException.class);
+        }
+        assertThat(lentaTerminada).isTrue();
+        Thread.sleep(100);
+        assertThat(encoladaEjecutada).isFalse();
+    }
+
+    @Test
+    void closeGivesUpOnQueriesPastTheirDeadline() {
+        service(1, Duration.ofMillis(100));
+
+        long inicio = System.nanoTime();
+        try (ParallelQueryService.Scope scope = service.open("test")) {
+            scope.fork("colgada", () -> {
+                ocupado(5_000);
+                return 1;
+            });
+            assertThatThrownBy(scope::join).isInstanceOf(ParallelQueryService.PlazoExcedidoException.class);
+        }
+        // Plazo de 100 ms más el margen de 1 s, no los 5 s de la consulta
+        assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - inicio)).isLessThan(3_000);
+    }
+}
@@ -0,0 +1,93 @@
+package com.consultorio;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+class PartialUpdateTest {
+
+    // Mismos valores por defecto que el ObjectMapper de Spring Boot (propiedades desconocidas ignoradas)
+    private final ObjectMapper mapper = Jackson2ObjectMapperBuilder.json().build();
+
+    @Test
+    void appliesOnlyTheFieldsPresentInTheJson() throws Exception {
+        Appointment cita = cita();
+
+        mapper.readValue("{\"estado\":\"COMPLETADA\",\"precio\":95.5}", AppointmentRequests.Actualizar.class).applyTo(cita);
+
+        assertThat(cita.getEstado()).isEqualTo("COMPLETADA");
+        assertThat(cita.getPrecio()).isEqualTo(95.5);
+        assertThat(cita.getNotas()).isEqualTo("primera sesión");
+        assertThat(cita.getModalidad()).isEqualTo("PRESENCIAL");
+        assertThat(cita.getFechaHora()).isEqualTo(LocalDateTime.of(2025, 3, 3, 10, 0));
+        assertThat(cita.getPagado()).isFalse();
+    }
+
+    @Test
+    void explicitNullClearsAnOptionalField() throws Exception {
+        Appointment cita = cita();
+
+        mapper.readValue("{\"notas\":null}", AppointmentRequests.Actualizar.class).applyTo(cita);
+
+        assertThat(cita.getNotas()).isNull();
+        assertThat(cita.getEstado()).isEqualTo("RESERVADA");
+    }
+
+    @Test
+    void explicitNullOnARequiredFieldFailsWithItsName() {
+        assertThatThrownBy(() -> mapper.readValue("{\"estado\":null}", AppointmentRequests.Actualizar.class))
+            .isInstanceOf(JsonMappingException.class)
+            .hasRootCauseInstanceOf(IllegalArgumentException.class)
+            .hasMessageContaining("'estado'");
+    }
+
+    @Test
+    void emptyBodyIsEmpty() throws Exception {
+        AppointmentRequests.Actualizar vacio = mapper.readValue("{}", AppointmentRequests.Actualizar.class);
+        AppointmentRequests.Actualizar conCampo = mapper.readValue("{\"pagado\":true}", AppointmentRequests.Actualizar.class);
+
+        assertThat(vacio.isEmpty()).isTrue();
+        assertThat(conCampo.isEmpty()).isFalse();
+    }
+
+    @Test
+    void userUpdateKeepsFieldsThatAreNotUpdatable() throws Exception {
+        User user = new User();
+        user.setUsername("ana");
+        user.setRole("PACIENTE");
+        user.setNombre("Ana");
+        user.setTelefono("999");
+        user.setFechaNacimiento(LocalDate.of(1990, 5, 1));
+
+        mapper.readValue("{\"role\":\"ADMIN\",\"username\":\"root\",\"telefono\":null,\"fechaNacimiento\":null," +
+                         "\"horarioAtencion\":\"Lunes a Viernes 9AM-6PM\"}", UserRequests.Actualizar.class)
+              .applyTo(user);
+
+        assertThat(user.getRole()).isEqualTo("PACIENTE");
+        assertThat(user.getUsername()).isEqualTo("ana");
+        assertThat(user.getNombre()).isEqualTo("Ana");
+        assertThat(user.getTelefono()).isNull();
+        // fechaNacimiento null se ignora en lugar de borrarla
+        assertThat(user.getFechaNacimiento()).isEqualTo(LocalDate.of(1990, 5, 1));
+        assertThat(user.getHorarioAtencion()).isEqualTo("Lunes a Viernes 9AM-6PM");
+    }
+
+    private static Appointment cita() {
+        Appointment cita = new Appointment();
+        cita.setEstado("RESERVADA");
+        cita.setNotas("primera sesión");
+        cita.setModalidad("PRESENCIAL");
+        cita.setFechaHora(LocalDateTime.of(2025, 3, 3, 10, 0));
+        cita.setPrecio(80.0);
+        cita.setPagado(false);
+        return cita;
+    }
+}
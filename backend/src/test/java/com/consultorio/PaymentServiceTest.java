@@ -0,0 +1,142 @@
+package com.consultorio;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+// Base propia: otro contexto sobre consultorio_db volvería a ejecutar data.sql
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE, properties = {
+    "spring.datasource.url=jdbc:h2:mem:payment_service_test;DB_CLOSE_DELAY=-1",
+    "app.auth.last-seen-flush-interval=PT1H"
+})
+class PaymentServiceTest {
+
+    @Autowired
+    private PaymentService paymentService;
+
+    @Autowired
+    private AppointmentRepository appointmentRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void retryWithTheSameKeyReturnsTheOriginalPayment() {
+        Appointment cita = cita();
+        String clave = UUID.randomUUID().toString();
+
+        PaymentService.Resultado primero = paymentService.process(pago(cita), clave);
+        PaymentService.Resultado reintento = paymentService.process(pago(cita), clave);
+
+        assertThat(primero.isRepetido()).isFalse();
+        assertThat(reintento.isRepetido()).isTrue();
+        assertThat(reintento.getPayment().getId()).isEqualTo(primero.getPayment().getId());
+        assertThat(reintento.getPayment().getNumeroTransaccion()).isEqualTo(primero.getPayment().getNumeroTransaccion());
+        assertThat(pagosDe(cita)).isEqualTo(1);
+        assertThat(appointmentRepository.findById(cita.getId()).orElseThrow().getPagado()).isTrue();
+    }
+
+    @Test
+    void keyReusedForAnotherAppointmentIsRejected() {
+        String clave = UUID.randomUUID().toString();
+        paymentService.process(pago(cita()), clave);
+        Appointment otra = cita();
+
+        assertThatThrownBy(() -> paymentService.process(pago(otra), clave))
+            .isInstanceOf(PaymentService.ClaveReutilizadaException.class);
+        assertThat(pagosDe(otra)).isZero();
+    }
+
+    @Test
+    void withoutKeyEveryCallCreatesAPayment() {
+        Appointment cita = cita();
+
+        paymentService.process(pago(cita), null);
+        paymentService.process(pago(cita), null);
+
+        assertThat(pagosDe(cita)).isEqualTo(2);
+    }
+
+    @Test
+    void concurrentRetriesCreateASinglePayment() throws Exception {
+        Appointment cita = cita();
+        String clave = UUID.randomUUID().toString();
+        int reintentos = 8;
+        CountDownLatch salida = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(reintentos);
+        try {
+            List<Future<PaymentService.Resultado>> resultados = new ArrayList<>();
+            for (int i = 0; i < reintentos; i++) {
+                resultados.add(executor.submit(() -> {
+                    salida.await();
+                    return paymentService.process(pago(cita), clave);
+                }));
+            }
+            salida.countDown();
+            Set<Long> ids = new HashSet<>();
+            int nuevos = 0;
+            for (Future<PaymentService.Resultado> resultado : resultados) {
+                PaymentService.Resultado r = resultado.get(10, TimeUnit.SECONDS);
+                ids.add(r.getPayment().getId());
+                nuevos += r.isRepetido() ? 0 : 1;
+            }
+            assertThat(ids).hasSize(1);
+            assertThat(nuevos).isEqualTo(1);
+            assertThat(pagosDe(cita)).isEqualTo(1);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void transactionNumbersAreUnique() {
+        Set<String> numeros = new HashSet<>();
+        for (int i = 0; i < 120; i++) {
+            assertThat(numeros.add(paymentService.nextTransactionNumber())).isTrue();
+        }
+    }
+
+    private long pagosDe(Appointment cita) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM payments WHERE appointment_id = ?", Long.class,
+                                           cita.getId());
+    }
+
+    private Appointment cita() {
+        Appointment cita = new Appointment();
+        cita.setPacienteId(800_001L);
+        cita.setPsicologoId(800_002L);
+        cita.setFechaHora(LocalDateTime.now().plusDays(30));
+        cita.setEstado("RESERVADA");
+        cita.setModalidad("PRESENCIAL");
+        cita.setPrecio(80.0);
+        return appointmentRepository.save(cita);
+    }
+
+    private static Payment pago(Appointment cita) {
+        Payment pago = new Payment();
+        pago.setAppointmentId(cita.getId());
+        pago.setPacienteId(cita.getPacienteId());
+        pago.setPsicologoId(cita.getPsicologoId());
+        pago.setMonto(cita.getPrecio());
+        pago.setMetodoPago("TARJETA");
+        pago.setEstado("COMPLETADO");
+        pago.setFechaPago(LocalDateTime.now());
+        return pago;
+    }
+}
@@ -0,0 +1,117 @@
+package com.consultorio;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockMultipartFile;
+
+class ProfilePhotoServiceTest {
+
+    private static final byte[] PNG = {(byte) 0x89, 'P', 'N', 'G', 0x0D, 0x0A, 0x1A, 0x0A, 0, 0, 0, 0x0D};
+    private static final byte[] JPEG = {(byte) 0xFF, (byte) 0xD8, (byte) 0xFF, (byte) 0xE0, 0, 0x10, 'J', 'F', 'I', 'F'};
+    private static final byte[] GIF = {'G', 'I', 'F', '8', '9', 'a', 1, 0, 1, 0};
+    private static final byte[] WEBP = {'R', 'I', 'F', 'F', 0x24, 0, 0, 0, 'W', 'E', 'B', 'P', 'V', 'P', '8', ' '};
+
+    @TempDir
+    Path dir;
+
+    private ProfilePhotoService service;
+
+    @BeforeEach
+    void setUp() {
+        service = new ProfilePhotoService(new LocalPhotoStorage(dir.toString()), mock(UserRepository.class),
+                                          Duration.ofHours(1));
+    }
+
+    @Test
+    void storesWhitelistedFormatsWithExtensionFromContent() throws IOException {
+        // El nombre y el Content-Type del cliente no cuentan
+        assertThat(service.store(upload("foto.svg", "image/svg+xml", PNG))).endsWith(".png");
+        assertThat(service.store(upload("foto.png", "image/png", JPEG))).endsWith(".jpg");
+        assertThat(service.store(upload("foto", "image/gif", GIF))).endsWith(".gif");
+        assertThat(service.store(upload("foto.html", "image/webp", WEBP))).endsWith(".webp");
+    }
+
+    @Test
+    void rejectsSvgHtmlAndUnknownContent() {
+        byte[] svg = "<svg xmlns=\"http://www.w3.org/2000/svg\"><script>alert(1)</script></svg>"
+            .getBytes(StandardCharsets.UTF_8);
+        byte[] html = "<html><script>alert(1)</script></html>".getBytes(StandardCharsets.UTF_8);
+        byte[] riffNoWebp = {'R', 'I', 'F', 'F', 0, 0, 0, 0, 'W', 'A', 'V', 'E'};
+
+        assertThatThrownBy(() -> service.store(upload("foto.svg", "image/svg+xml", svg)))
+            .isInstanceOf(ProfilePhotoService.FormatoNoPermitidoException.class);
+        assertThatThrownBy(() -> service.store(upload("foto.jpg", "image/jpeg", html)))
+            .isInstanceOf(ProfilePhotoService.FormatoNoPermitidoException.class);
+        assertThatThrownBy(() -> service.store(upload("foto.webp", "image/webp", riffNoWebp)))
+            .isInstanceOf(ProfilePhotoService.FormatoNoPermitidoException.class);
+        assertThatThrownBy(() -> service.store(upload("foto.png", "image/png", new byte[] {(byte) 0x89, 'P'})))
+            .isInstanceOf(ProfilePhotoService.FormatoNoPermitidoException.class);
+    }
+
+    @Test
+    void detectsByMagicBytes() throws IOException {
+        assertThat(ProfilePhotoService.detectMediaType(write(PNG))).contains(MediaType.IMAGE_PNG);
+        assertThat(ProfilePhotoService.detectMediaType(write(JPEG))).contains(MediaType.IMAGE_JPEG);
+        assertThat(ProfilePhotoService.detectMediaType(write(GIF))).contains(MediaType.IMAGE_GIF);
+        assertThat(ProfilePhotoService.detectMediaType(write(WEBP))).contains(MediaType.parseMediaType("image/webp"));
+        assertThat(ProfilePhotoService.detectMediaType(write(new byte[0]))).isEmpty();
+    }
+
+    @Test
+    void legacyFilesWithOtherExtensionsAreServedAsBinary() throws IOException {
+        Files.write(dir.resolve("profile_1_abc.svg"), "<svg/>".getBytes(StandardCharsets.UTF_8));
+
+        assertThat(service.find("profile_1_abc.svg")).get()
+            .extracting(ProfilePhotoService.StoredPhoto::getMediaType)
+            .isEqualTo(MediaType.APPLICATION_OCTET_STREAM);
+    }
+
+    @Test
+    void duplicateUploadRenewsAnExpiredOrphanAndItsThumbnails() throws IOException {
+        String key = service.store(upload("a.png", "image/png", PNG));
+        Path original = dir.resolve(PhotoStorage.shardedPath(key));
+        Path miniatura = dir.resolve(PhotoStorage.shardedPath(ThumbnailService.variantKey(key, 64)));
+        Files.write(miniatura, JPEG);
+        FileTime vencida = FileTime.fromMillis(System.currentTimeMillis() - Duration.ofHours(2).toMillis());
+        Files.setLastModifiedTime(original, vencida);
+        Files.setLastModifiedTime(miniatura, vencida);
+
+        assertThat(service.store(upload("b.png", "image/png", PNG))).isEqualTo(key);
+        service.collectGarbage();
+
+        assertThat(original).exists();
+        assertThat(miniatura).exists();
+    }
+
+    @Test
+    void garbageCollectionDeletesExpiredOrphans() throws IOException {
+        String key = service.store(upload("a.png", "image/png", PNG));
+        Path original = dir.resolve(PhotoStorage.shardedPath(key));
+        Files.setLastModifiedTime(original, FileTime.fromMillis(System.currentTimeMillis() - Duration.ofHours(2).toMillis()));
+
+        service.collectGarbage();
+
+        assertThat(original).doesNotExist();
+    }
+
+    private MockMultipartFile upload(String nombre, String tipo, byte[] contenido) {
+        return new MockMultipartFile("photo", nombre, tipo, contenido);
+    }
+
+    private Path write(byte[] contenido) throws IOException {
+        return Files.write(Files.createTempFile(dir, "cabecera", ".bin"), contenido);
+    }
+}
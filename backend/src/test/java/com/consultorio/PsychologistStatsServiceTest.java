@@ -0,0 +1,95 @@
+package com.consultorio;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+// Con tantas reservas en curso como conexiones, crear la fila en otra transacción se quedaría
+// esperando una conexión libre: la fila nueva tiene que crearse en la transacción de la reserva
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE, properties = {
+    "spring.datasource.hikari.maximum-pool-size=2",
+    "spring.datasource.hikari.connection-timeout=1000",
+    "app.auth.last-seen-flush-interval=PT1H"
+})
+class PsychologistStatsServiceTest {
+
+    @Autowired
+    private PsychologistStatsService psychologistStatsService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void firstAppointmentOfAPsychologistCreatesItsRowInTheCallerTransaction() throws Exception {
+        TransactionTemplate reserva = new TransactionTemplate(transactionManager);
+        CyclicBarrier todasAbiertas = new CyclicBarrier(2);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            List<Future<?>> reservas = new ArrayList<>();
+            for (long psicologoId : new long[] {900_001L, 900_003L}) {
+                reservas.add(executor.submit(() -> reserva.executeWithoutResult(status -> {
+                    await(todasAbiertas);
+                    psychologistStatsService.record(null, PsychologistStatsService.Snapshot.of(cita(psicologoId, 10L, "COMPLETADA")));
+                    psychologistStatsService.record(null, PsychologistStatsService.Snapshot.of(cita(psicologoId, 11L, "RESERVADA")));
+                })));
+            }
+            for (Future<?> futuro : reservas) {
+                futuro.get(10, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        PsychologistStats stats = psychologistStatsService.getStats(900_001L);
+        assertThat(stats.getTotalCitas()).isEqualTo(2);
+        assertThat(stats.getPacientesUnicos()).isEqualTo(2);
+        assertThat(stats.getIngresoTotal()).isEqualTo(80.0);
+        assertThat(psychologistStatsService.getStats(900_003L).getTotalCitas()).isEqualTo(2);
+    }
+
+    @Test
+    void upsertNeverResetsExistingCounters() {
+        Long psicologoId = 900_002L;
+        TransactionTemplate reserva = new TransactionTemplate(transactionManager);
+        reserva.executeWithoutResult(status ->
+            psychologistStatsService.record(null, PsychologistStatsService.Snapshot.of(cita(psicologoId, 10L, "COMPLETADA"))));
+
+        reserva.executeWithoutResult(status ->
+            psychologistStatsService.record(null, PsychologistStatsService.Snapshot.of(cita(psicologoId, 10L, "CANCELADA"))));
+
+        PsychologistStats stats = psychologistStatsService.getStats(psicologoId);
+        assertThat(stats.getTotalCitas()).isEqualTo(2);
+        assertThat(stats.getPacientesUnicos()).isEqualTo(1);
+    }
+
+    // Cada hilo ya tiene su conexión (la transacción está abierta) antes de escribir
+    private static void await(CyclicBarrier barrera) {
+        try {
+            barrera.await(5, TimeUnit.SECONDS);
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static Appointment cita(Long psicologoId, Long pacienteId, String estado) {
+        Appointment cita = new Appointment();
+        cita.setPsicologoId(psicologoId);
+        cita.setPacienteId(pacienteId);
+        cita.setEstado(estado);
+        cita.setPrecio(80.0);
+        cita.setPagado("COMPLETADA".equals(estado));
+        return cita;
+    }
+}
@@ -0,0 +1,232 @@
+package com.consultorio;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+class ReservationServiceTest {
+
+    private static final Long PSICOLOGO = 7L;
+    private static final LocalDateTime LAS_DIEZ = LocalDate.now().plusDays(7).atTime(10, 0);
+
+    private final AtomicLong ids = new AtomicLong(100);
+    private final Function<Appointment, Appointment> guardar = cita -> {
+        if (cita.getId() == null) {
+            cita.setId(ids.incrementAndGet());
+        }
+        return cita;
+    };
+
+    private AppointmentRepository appointmentRepository;
+    private ReservationService service;
+
+    @BeforeEach
+    void setUp() {
+        appointmentRepository = mock(AppointmentRepository.class);
+        service = new ReservationService(appointmentRepository, mock(PlatformTransactionManager.class), 60);
+    }
+
+    @AfterEach
+    void clearSynchronization() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void rejectsOverlappingAppointmentsAndAcceptsAdjacentOnes() {
+        service.reserve(null, cita(LAS_DIEZ), guardar);
+
+        assertThatThrownBy(() -> service.reserve(null, cita(LAS_DIEZ.plusMinutes(30)), guardar))
+            .isInstanceOf(ReservationService.ConflictoHorarioException.class)
+            .hasMessageContaining(LAS_DIEZ.toString());
+        assertThatThrownBy(() -> service.reserve(null, cita(LAS_DIEZ.minusMinutes(59)), guardar))
+            .isInstanceOf(ReservationService.ConflictoHorarioException.class);
+        service.reserve(null, cita(LAS_DIEZ.plusHours(1)), guardar);
+        service.reserve(null, cita(LAS_DIEZ.minusHours(1)), guardar);
+
+        assertThat(service.occupiedBetween(PSICOLOGO, LAS_DIEZ.minusHours(2), LAS_DIEZ.plusHours(3)))
+            .containsExactly(LAS_DIEZ.minusHours(1), LAS_DIEZ, LAS_DIEZ.plusHours(1));
+    }
+
+    @Test
+    void existingAppointmentsAreLoadedFromTheDatabase() {
+        List<AppointmentRepository.HorarioOcupado> ocupados = List.of(ocupado(1L, LAS_DIEZ));
+        when(appointmentRepository.findHorariosOcupados(eq(PSICOLOGO), any(LocalDateTime.class))).thenReturn(ocupados);
+
+        assertThat(service.isAvailable(PSICOLOGO, LAS_DIEZ.plusMinutes(15))).isFalse();
+        assertThat(service.isAvailable(PSICOLOGO, LAS_DIEZ.plusHours(1))).isTrue();
+        assertThatThrownBy(() -> service.reserve(null, cita(LAS_DIEZ), guardar))
+            .isInstanceOf(ReservationService.ConflictoHorarioException.class);
+    }
+
+    @Test
+    void indexLoadsOnlyCurrentAndFutureSlots() {
+        LocalDateTime antes = LocalDateTime.now().minusMinutes(60);
+
+        service.isAvailable(PSICOLOGO, LAS_DIEZ);
+
+        ArgumentCaptor<LocalDateTime> desde = ArgumentCaptor.forClass(LocalDateTime.class);
+        verify(appointmentRepository).findHorariosOcupados(eq(PSICOLOGO), desde.capture());
+        assertThat(desde.getValue()).isBetween(antes, LocalDateTime.now().minusMinutes(60));
+        verify(appointmentRepository, never()).findHorariosOcupadosEntre(anyLong(), any(), any());
+    }
+
+    @Test
+    void windowsBeforeTheIndexAreCheckedAgainstTheDatabase() {
+        LocalDateTime pasada = LocalDateTime.now().minusDays(30).withHour(10).withMinute(0).withSecond(0).withNano(0);
+        List<AppointmentRepository.HorarioOcupado> ocupados = List.of(ocupado(1L, pasada));
+        when(appointmentRepository.findHorariosOcupadosEntre(eq(PSICOLOGO), any(LocalDateTime.class), any(LocalDateTime.class)))
+            .thenReturn(ocupados);
+
+        assertThat(service.isAvailable(PSICOLOGO, pasada.plusMinutes(30))).isFalse();
+        assertThatThrownBy(() -> service.reserve(null, cita(pasada), guardar))
+            .isInstanceOf(ReservationService.ConflictoHorarioException.class);
+        verify(appointmentRepository, atLeastOnce())
+            .findHorariosOcupadosEntre(PSICOLOGO, pasada.minusMinutes(30), pasada.plusMinutes(90));
+    }
+
+    @Test
+    void invalidateReloadsAppointmentsWrittenOutsideReserve() {
+        assertThat(service.isAvailable(PSICOLOGO, LAS_DIEZ)).isTrue();
+        List<AppointmentRepository.HorarioOcupado> ocupados = List.of(ocupado(1L, LAS_DIEZ));
+        when(appointmentRepository.findHorariosOcupados(eq(PSICOLOGO), any(LocalDateTime.class))).thenReturn(ocupados);
+
+        service.invalidate();
+
+        assertThat(service.isAvailable(PSICOLOGO, LAS_DIEZ)).isFalse();
+    }
+
+    @Test
+    void movingAnAppointmentDoesNotConflictWithItself() {
+        Appointment cita = service.reserve(null, cita(LAS_DIEZ), guardar);
+        ReservationService.Slot anterior = ReservationService.Slot.of(cita);
+
+        cita.setFechaHora(LAS_DIEZ.plusMinutes(30));
+        service.reserve(anterior, cita, guardar);
+
+        assertThat(service.occupiedBetween(PSICOLOGO, LAS_DIEZ.minusHours(2), LAS_DIEZ.plusHours(2)))
+            .containsExactly(LAS_DIEZ.plusMinutes(30));
+    }
+
+    @Test
+    void cancellingFreesTheSlotOnlyAfterCommit() {
+        Appointment cita = service.reserve(null, cita(LAS_DIEZ), guardar);
+        ReservationService.Slot anterior = ReservationService.Slot.of(cita);
+
+        TransactionSynchronizationManager.initSynchronization();
+        cita.setEstado("CANCELADA");
+        service.reserve(anterior, cita, guardar);
+        assertThat(service.isAvailable(PSICOLOGO, LAS_DIEZ)).isFalse();
+
+        complete(TransactionSynchronization.STATUS_COMMITTED);
+        assertThat(service.isAvailable(PSICOLOGO, LAS_DIEZ)).isTrue();
+    }
+
+    @Test
+    void rollbackFreesTheReservedSlot() {
+        TransactionSynchronizationManager.initSynchronization();
+        service.reserve(null, cita(LAS_DIEZ), guardar);
+        assertThat(service.isAvailable(PSICOLOGO, LAS_DIEZ)).isFalse();
+
+        complete(TransactionSynchronization.STATUS_ROLLED_BACK);
+
+        assertThat(service.isAvailable(PSICOLOGO, LAS_DIEZ)).isTrue();
+    }
+
+    @Test
+    void occupiedMaskIsRebuiltWhenADayChanges() {
+        LocalDate dia = LAS_DIEZ.toLocalDate();
+        assertThat(service.occupiedMask(PSICOLOGO, dia)).isZero();
+
+        service.reserve(null, cita(LAS_DIEZ), guardar);
+
+        // 10:00-11:00 son los bloques 20 y 21
+        assertThat(service.occupiedMask(PSICOLOGO, dia)).isEqualTo(HorarioAtencion.rangoBits(20, 22));
+    }
+
+    @Test
+    void concurrentReservationsOfTheSameSlotLetOnlyOneThrough() throws Exception {
+        int clientes = 16;
+        CountDownLatch salida = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(clientes);
+        try {
+            List<Future<Boolean>> reservas = new ArrayList<>();
+            for (int i = 0; i < clientes; i++) {
+                LocalDateTime inicio = LAS_DIEZ.plusMinutes(i % 4 * 10);
+                reservas.add(executor.submit(() -> {
+                    salida.await();
+                    try {
+                        service.reserve(null, cita(inicio), guardar);
+                        return true;
+                    } catch (ReservationService.ConflictoHorarioException e) {
+                        return false;
+                    }
+                }));
+            }
+            salida.countDown();
+            int aceptadas = 0;
+            for (Future<Boolean> reserva : reservas) {
+                aceptadas += reserva.get(10, TimeUnit.SECONDS) ? 1 : 0;
+            }
+            assertThat(aceptadas).isEqualTo(1);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static void complete(int status) {
+        List<TransactionSynchronization> sincronizaciones = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationManager.clearSynchronization();
+        for (TransactionSynchronization sincronizacion : sincronizaciones) {
+            if (status == TransactionSynchronization.STATUS_COMMITTED) {
+                sincronizacion.afterCommit();
+            }
+            sincronizacion.afterCompletion(status);
+        }
+    }
+
+    private static AppointmentRepository.HorarioOcupado ocupado(Long id, LocalDateTime fechaHora) {
+        AppointmentRepository.HorarioOcupado ocupado = mock(AppointmentRepository.HorarioOcupado.class);
+        when(ocupado.getId()).thenReturn(id);
+        when(ocupado.getPsicologoId()).thenReturn(PSICOLOGO);
+        when(ocupado.getFechaHora()).thenReturn(fechaHora);
+        return ocupado;
+    }
+
+    private static Appointment cita(LocalDateTime fechaHora) {
+        Appointment cita = new Appointment();
+        cita.setPsicologoId(PSICOLOGO);
+        cita.setPacienteId(10L);
+        cita.setFechaHora(fechaHora);
+        cita.setEstado("RESERVADA");
+        return cita;
+    }
+}
@@ -0,0 +1,125 @@
+package com.consultorio;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mockito;
+import org.springframework.mock.web.MockMultipartFile;
+import org.testcontainers.containers.MinIOContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
+import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.http.urlconnection.UrlConnectionHttpClient;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.s3.S3Client;
+
+// Contra MinIO: claves con subdirectorios, listado paginado y copia de un objeto sobre sí mismo
+@Testcontainers(disabledWithoutDocker = true)
+class S3PhotoStorageTest {
+
+    private static final String BUCKET = "fotos";
+
+    @Container
+    static final MinIOContainer MINIO = new MinIOContainer("minio/minio:RELEASE.2023-09-04T19-57-37Z");
+
+    @TempDir
+    Path dir;
+
+    private S3PhotoStorage storage;
+
+    @BeforeAll
+    static void createBucket() {
+        try (S3Client s3 = S3Client.builder()
+                                   .region(Region.US_EAST_1)
+                                   .endpointOverride(URI.create(MINIO.getS3URL()))
+                                   .forcePathStyle(true)
+                                   .httpClientBuilder(UrlConnectionHttpClient.builder())
+                                   .credentialsProvider(StaticCredentialsProvider.create(
+                                       AwsBasicCredentials.create(MINIO.getUserName(), MINIO.getPassword())))
+                                   .build()) {
+            s3.createBucket(b -> b.bucket(BUCKET));
+        }
+    }
+
+    // Un prefijo por prueba: cada una ve solo sus objetos
+    @BeforeEach
+    void setUp() {
+        storage = new S3PhotoStorage(BUCKET, "test-" + System.nanoTime() + "/", "us-east-1", MINIO.getS3URL(),
+                                     true, MINIO.getUserName(), MINIO.getPassword());
+    }
+
+    @Test
+    void putStatOpenListAndDelete() throws IOException {
+        String key = "a".repeat(64) + ".png";
+        storage.put(key, file("contenido"), "image/png");
+
+        assertThat(storage.exists(key)).isTrue();
+        assertThat(storage.stat(key)).get().extracting(PhotoStorage.StoredObject::getSize).isEqualTo(9L);
+        try (InputStream in = storage.open(key)) {
+            assertThat(new String(in.readAllBytes(), StandardCharsets.UTF_8)).isEqualTo("contenido");
+        }
+        try (Stream<PhotoStorage.StoredObject> objetos = storage.list()) {
+            assertThat(objetos.map(PhotoStorage.StoredObject::getKey).collect(Collectors.toList())).containsExactly(key);
+        }
+
+        storage.delete(key);
+        assertThat(storage.exists(key)).isFalse();
+    }
+
+    @Test
+    void touchRenewsLastModifiedAndKeepsContentType() throws Exception {
+        String key = "b".repeat(64) + ".jpg";
+        storage.put(key, file("foto"), "image/jpeg");
+        long antes = storage.stat(key).orElseThrow().getLastModified();
+        // LastModified de S3 tiene resolución de segundos
+        Thread.sleep(1100);
+
+        assertThat(storage.touch(key)).isTrue();
+
+        assertThat(storage.stat(key).orElseThrow().getLastModified()).isGreaterThan(antes);
+        try (InputStream in = storage.open(key)) {
+            assertThat(new String(in.readAllBytes(), StandardCharsets.UTF_8)).isEqualTo("foto");
+        }
+        assertThat(storage.touch("c".repeat(64) + ".jpg")).isFalse();
+    }
+
+    // Una subida duplicada de una foto huérfana y vencida la salva, con sus miniaturas, de la recolección
+    @Test
+    void duplicateUploadProtectsOrphanFromGarbageCollection() throws Exception {
+        UserRepository users = Mockito.mock(UserRepository.class);
+        ProfilePhotoService service = new ProfilePhotoService(storage, users, Duration.ofSeconds(1));
+        byte[] png = {(byte) 0x89, 'P', 'N', 'G', 0x0D, 0x0A, 0x1A, 0x0A, 0, 0, 0, 0x0D};
+        String key = service.store(new MockMultipartFile("photo", "a.png", "image/png", png));
+        storage.put(ThumbnailService.variantKey(key, 64), file("mini"), "image/jpeg");
+        Thread.sleep(2100);
+
+        assertThat(service.store(new MockMultipartFile("photo", "b.png", "image/png", png)))
+            .isEqualTo(key);
+        service.collectGarbage();
+
+        try (Stream<PhotoStorage.StoredObject> objetos = storage.list()) {
+            List<String> claves = objetos.map(PhotoStorage.StoredObject::getKey).collect(Collectors.toList());
+            assertThat(claves).containsExactlyInAnyOrder(key, ThumbnailService.variantKey(key, 64));
+        }
+    }
+
+    private Path file(String contenido) throws IOException {
+        return Files.writeString(Files.createTempFile(dir, "foto", ".tmp"), contenido);
+    }
+}
@@ -0,0 +1,35 @@
+package com.consultorio;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+// En PostgreSQL los textos de las notas son large objects (columnas oid)
+@Testcontainers(disabledWithoutDocker = true)
+class SyntheticDataGeneratorPostgresTest {
+
+    @Container
+    static final PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:15-alpine");
+
+    @Test
+    void writesClinicalNotesAsLargeObjects() {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(POSTGRES.getJdbcUrl(), POSTGRES.getUsername(),
+                                                                         POSTGRES.getPassword());
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(SyntheticDataGeneratorTest.migrate(dataSource, "postgresql"));
+
+        new SyntheticDataGenerator(jdbcTemplate, 100, 2).generate(5, 50, 3000, 42);
+
+        SyntheticDataGeneratorTest.assertGenerated(jdbcTemplate, 3000);
+        // Un large object por campo y por nota, no uno compartido
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(DISTINCT contenido) FROM clinical_notes", Long.class))
+            .isEqualTo(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM clinical_notes", Long.class));
+        assertThat(jdbcTemplate.queryForList("SELECT convert_from(lo_get(contenido), 'UTF8') FROM clinical_notes " +
+                                             "ORDER BY id LIMIT 3", String.class))
+            .allSatisfy(contenido -> assertThat(contenido).startsWith("MOTIVO: Seguimiento de objetivos terapéuticos."));
+    }
+}
@@ -0,0 +1,81 @@
+package com.consultorio;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.UUID;
+
+import javax.sql.DataSource;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+class SyntheticDataGeneratorTest {
+
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = new JdbcTemplate(migrate(
+            new DriverManagerDataSource("jdbc:h2:mem:gen_" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1", "sa", ""),
+            "h2"));
+    }
+
+    static DataSource migrate(DataSource dataSource, String vendor) {
+        Flyway.configure().dataSource(dataSource).locations("classpath:db/migration/" + vendor).load().migrate();
+        return dataSource;
+    }
+
+    @Test
+    void generatesReferentiallyConsistentData() {
+        new SyntheticDataGenerator(jdbcTemplate, 100, 2).generate(5, 50, 3000, 42);
+
+        assertGenerated(jdbcTemplate, 3000);
+        assertThat(jdbcTemplate.queryForObject("SELECT contenido FROM clinical_notes ORDER BY id LIMIT 1", String.class))
+            .startsWith("MOTIVO: Seguimiento de objetivos terapéuticos.");
+    }
+
+    // Comprobaciones comunes con SyntheticDataGeneratorPostgresTest
+    static void assertGenerated(JdbcTemplate jdbcTemplate, long citas) {
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM appointments", Long.class)).isEqualTo(citas);
+        assertThat(jdbcTemplate.queryForObject(
+            "SELECT COUNT(*) FROM (SELECT psicologo_id, fecha_hora FROM appointments " +
+            "GROUP BY psicologo_id, fecha_hora HAVING COUNT(*) > 1) repetidos", Long.class)).isZero();
+        assertThat(jdbcTemplate.queryForObject(
+            "SELECT COUNT(*) FROM clinical_notes n JOIN appointments a ON a.id = n.appointment_id " +
+            "WHERE a.estado <> 'COMPLETADA'", Long.class)).isZero();
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM clinical_notes", Long.class))
+            .isEqualTo(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM appointments WHERE estado = 'COMPLETADA'",
+                                                   Long.class));
+        assertThat(jdbcTemplate.queryForObject(
+            "SELECT COUNT(*) FROM payments p JOIN appointments a ON a.id = p.appointment_id " +
+            "WHERE a.pagado = false", Long.class)).isZero();
+    }
+
+    @Test
+    void slotsOfAPsychologistNeverRepeat() {
+        int turnos = 912 * 11;
+        int paso = SyntheticDataGenerator.pasoCoprimo(turnos);
+        LocalDateTime desde = LocalDateTime.of(2024, 1, 1, 0, 0);
+        Set<LocalDateTime> vistos = new HashSet<>();
+        for (long j = 0; j < turnos; j++) {
+            LocalDateTime turno = SyntheticDataGenerator.turno(j, 3, desde, paso);
+            assertThat(turno.getHour()).isBetween(8, 18);
+            assertThat(vistos.add(turno)).as("turno %d repetido", j).isTrue();
+        }
+    }
+
+    @Test
+    void rejectsMoreAppointmentsThanFreeSlots() {
+        SyntheticDataGenerator generator = new SyntheticDataGenerator(jdbcTemplate, 100, 1);
+
+        assertThatThrownBy(() -> generator.generate(1, 1, 912 * 11 + 1, 42))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,99 @@
+package com.consultorio;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+class TokenServiceTest {
+
+    private final TokenService service = new TokenService("secreto-de-pruebas", Duration.ofHours(1));
+
+    TokenServiceTest() throws GeneralSecurityException {
+    }
+
+    @Test
+    void issuedTokenVerifiesWithItsSession() {
+        TokenService.Sesion sesion = service.verify(service.issue(usuario(42L, "PSICOLOGO"))).orElseThrow();
+
+        assertThat(sesion.getUserId()).isEqualTo(42L);
+        assertThat(sesion.getRole()).isEqualTo("PSICOLOGO");
+        assertThat(sesion.getExpira()).isBetween(Instant.now().plus(Duration.ofMinutes(59)), Instant.now().plus(Duration.ofHours(1)));
+    }
+
+    @Test
+    void rejectsTamperedPayload() {
+        String token = service.issue(usuario(42L, "PACIENTE"));
+        String firma = token.substring(token.indexOf('.') + 1);
+        String datos = new String(Base64.getUrlDecoder().decode(token.substring(0, token.indexOf('.'))),
+                                  StandardCharsets.UTF_8);
+        String admin = Base64.getUrlEncoder().withoutPadding()
+                             .encodeToString(datos.replace("PACIENTE", "ADMIN").getBytes(StandardCharsets.UTF_8));
+
+        assertThat(service.verify(admin + "." + firma)).isEmpty();
+    }
+
+    @Test
+    void rejectsTokensSignedWithAnotherSecret() throws GeneralSecurityException {
+        TokenService otra = new TokenService("otro-secreto", Duration.ofHours(1));
+
+        assertThat(service.verify(otra.issue(usuario(42L, "ADMIN")))).isEmpty();
+    }
+
+    @Test
+    void rejectsExpiredTokens() throws GeneralSecurityException {
+        TokenService vencida = new TokenService("secreto-de-pruebas", Duration.ofSeconds(-1));
+
+        assertThat(service.verify(vencida.issue(usuario(42L, "ADMIN")))).isEmpty();
+    }
+
+    @Test
+    void rejectsMalformedTokens() {
+        String valido = service.issue(usuario(42L, "ADMIN"));
+
+        assertThat(service.verify("")).isEmpty();
+        assertThat(service.verify("sin-punto")).isEmpty();
+        assertThat(service.verify(".firma")).isEmpty();
+        assertThat(service.verify(valido.substring(0, valido.indexOf('.') + 1))).isEmpty();
+        assertThat(service.verify(valido + "%")).isEmpty();
+        assertThat(service.verify(valido.substring(0, valido.length() - 2))).isEmpty();
+    }
+
+    @Test
+    void verifiesFromManyThreadsAtOnce() throws Exception {
+        List<String> tokens = new ArrayList<>();
+        for (long id = 1; id <= 200; id++) {
+            tokens.add(service.issue(usuario(id, "PACIENTE")));
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Long>> verificados = new ArrayList<>();
+            for (String token : tokens) {
+                verificados.add(executor.submit(() -> service.verify(token).orElseThrow().getUserId()));
+            }
+            for (int i = 0; i < verificados.size(); i++) {
+                assertThat(verificados.get(i).get(10, TimeUnit.SECONDS)).isEqualTo(i + 1L);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static User usuario(Long id, String role) {
+        User user = new User();
+        user.setId(id);
+        user.setRole(role);
+        return user;
+    }
+}
@@ -0,0 +1,81 @@
+package com.consultorio.benchmarks;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.consultorio.ConsultorioApplication;
+import com.consultorio.MainController;
+import com.consultorio.PsychologistStatsService;
+import com.consultorio.SyntheticDataGenerator;
+
+/**
+ * Levanta el contexto de Spring sin servidor web sobre una base H2 en memoria
+ * y la llena con SyntheticDataGenerator según los parámetros.
+ * Para usar PostgreSQL basta con pasar -Dspring.datasource.url=... (y usuario/clave)
+ * a los forks mediante -jvmArgsAppend.
+ */
+@State(Scope.Benchmark)
+public class ConsultorioState {
+
+    @Param({"20"})
+    public int psicologos;
+
+    @Param({"2000"})
+    public int pacientes;
+
+    @Param({"50000"})
+    public int citas;
+
+    public MainController controller;
+
+    private ConfigurableApplicationContext context;
+    private List<Long> psicologoIds;
+    private List<Long> pacienteIds;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        SpringApplication app = new SpringApplication(ConsultorioApplication.class);
+        app.setWebApplicationType(WebApplicationType.NONE);
+        // Argumentos de línea de comandos: tienen prioridad sobre application.properties
+        context = app.run(
+            "--spring.datasource.url=jdbc:h2:mem:bench_" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1",
+            "--spring.jpa.show-sql=false",
+            "--spring.jpa.properties.hibernate.format_sql=false",
+            "--logging.level.root=WARN",
+            "--logging.level.com.consultorio=WARN",
+            "--logging.level.org.springframework.web=WARN",
+            "--logging.level.org.springframework.security=WARN");
+        controller = context.getBean(MainController.class);
+        
+        JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+        new SyntheticDataGenerator(jdbcTemplate, 1000, 4).generate(psicologos, pacientes, citas, 42);
+        context.getBean(PsychologistStatsService.class).rebuild();
+        psicologoIds = jdbcTemplate.queryForList("SELECT id FROM users WHERE role = 'PSICOLOGO'", Long.class);
+        pacienteIds = jdbcTemplate.queryForList("SELECT id FROM users WHERE role = 'PACIENTE'", Long.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    public Long randomPsicologoId() {
+        return psicologoIds.get(ThreadLocalRandom.current().nextInt(psicologoIds.size()));
+    }
+
+    public Long randomPacienteId() {
+        return pacienteIds.get(ThreadLocalRandom.current().nextInt(pacienteIds.size()));
+    }
+}
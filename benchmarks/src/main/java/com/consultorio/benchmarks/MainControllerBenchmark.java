@@ -0,0 +1,83 @@
+package com.consultorio.benchmarks;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.consultorio.AppointmentRequests;
+import com.consultorio.PaymentRequests;
+
+/**
+ * Rutas calientes de MainController llamadas directamente (sin HTTP).
+ * Throughput da operaciones por segundo, SampleTime los percentiles de
+ * latencia y "-prof gc" (activado por defecto en el pom) la tasa de asignación.
+ *
+ * Ejemplo: mvn package exec:exec -Djmh.args="MainControllerBenchmark.getReports -p citas=200000 -prof gc"
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MainControllerBenchmark {
+
+    @Benchmark
+    public Object getReports(ConsultorioState state) {
+        return state.controller.getReports();
+    }
+
+    @Benchmark
+    public Object getDetailedReports(ConsultorioState state) {
+        return state.controller.getDetailedReports();
+    }
+
+    @Benchmark
+    public Object getCompletePatientHistory(ConsultorioState state) {
+        return state.controller.getCompletePatientHistory(state.randomPacienteId(), null, null);
+    }
+
+    @Benchmark
+    public Object searchAppointments(ConsultorioState state) {
+        return state.controller.searchAppointments("COMPLETADA", null, state.randomPsicologoId(), null,
+                                                   null, null, null, 50);
+    }
+
+    @Benchmark
+    public Object createAppointment(ConsultorioState state) {
+        AppointmentRequests.Crear data = new AppointmentRequests.Crear();
+        data.setPacienteId(state.randomPacienteId());
+        data.setPsicologoId(state.randomPsicologoId());
+        data.setFechaHora(LocalDateTime.now().plusMinutes(ThreadLocalRandom.current().nextInt(100_000)));
+        data.setModalidad("PRESENCIAL");
+        data.setPrecio(80.0);
+        return state.controller.createAppointment(data);
+    }
+
+    @Benchmark
+    public Object createPayment(ConsultorioState state) {
+        PaymentRequests.Crear data = new PaymentRequests.Crear();
+        data.setAppointmentId(1L);
+        data.setPacienteId(state.randomPacienteId());
+        data.setPsicologoId(state.randomPsicologoId());
+        data.setMonto(80.0);
+        data.setMetodoPago("TARJETA");
+        data.setNombrePaciente("Paciente");
+        data.setNombrePsicologo("Psicólogo");
+        return state.controller.createPayment(data, null);
+    }
+
+    @Benchmark
+    public Object login(ConsultorioState state) {
+        // BCrypt (factor 10) en el pool de AuthService; join espera la respuesta completa
+        return state.controller.login(Map.of("username", "admin", "password", "admin123")).join();
+    }
+}
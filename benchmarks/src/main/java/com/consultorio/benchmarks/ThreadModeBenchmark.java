@@ -0,0 +1,157 @@
+package com.consultorio.benchmarks;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.consultorio.ConsultorioApplication;
+import com.consultorio.PsychologistStatsService;
+import com.consultorio.SyntheticDataGenerator;
+
+/**
+ * Peticiones HTTP reales contra Tomcat con hilos de plataforma o virtuales
+ * (spring.threads.virtual.enabled). Cada invocación lanza CLIENTES peticiones a la vez:
+ * 70 % listados paginados de citas, 20 % reportes por psicólogo y 10 % reservas.
+ * El resultado es en peticiones por segundo. Cada invocación tarda segundos, por eso
+ * las iteraciones son de 10 s: con menos el JIT aún no se estabiliza al medir.
+ *
+ * Ejemplo: mvn package exec:exec -Djmh.args="ThreadModeBenchmark -prof gc"
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 10)
+@Measurement(iterations = 10, time = 10)
+@Fork(1)
+public class ThreadModeBenchmark {
+
+    private static final int CLIENTES = 1000;
+
+    @State(Scope.Benchmark)
+    public static class ServerState {
+
+        @Param({"platform", "virtual"})
+        public String modo;
+
+        @Param({"2000"})
+        public int pacientes;
+
+        @Param({"50000"})
+        public int citas;
+
+        private ConfigurableApplicationContext context;
+        private HttpClient client;
+        private ExecutorService clientExecutor;
+        private String base;
+        private List<Long> psicologoIds;
+        private List<Long> pacienteIds;
+        private final AtomicInteger errores = new AtomicInteger();
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            boolean virtual = "virtual".equals(modo);
+            SpringApplication app = new SpringApplication(ConsultorioApplication.class);
+            context = app.run(
+                "--server.port=0",
+                "--spring.threads.virtual.enabled=" + virtual,
+                "--spring.datasource.url=jdbc:h2:mem:bench_" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1",
+                "--spring.jpa.show-sql=false",
+                "--spring.jpa.properties.hibernate.format_sql=false",
+                "--app.stats.rebuild-on-startup=false",
+                "--app.datasource.slow-query-threshold=PT1M",
+                "--logging.level.root=WARN",
+                "--logging.level.com.consultorio=WARN",
+                "--logging.level.org.springframework.web=WARN");
+            base = "http://localhost:" + ((WebServerApplicationContext) context).getWebServer().getPort() + "/api";
+
+            JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+            new SyntheticDataGenerator(jdbcTemplate, 1000, 4).generate(20, pacientes, citas, 42);
+            context.getBean(PsychologistStatsService.class).rebuild();
+            psicologoIds = jdbcTemplate.queryForList("SELECT id FROM users WHERE role = 'PSICOLOGO'", Long.class);
+            pacienteIds = jdbcTemplate.queryForList("SELECT id FROM users WHERE role = 'PACIENTE'", Long.class);
+
+            // El cliente no debe ser el cuello de botella: sus hilos solo procesan respuestas
+            clientExecutor = Executors.newFixedThreadPool(8);
+            client = HttpClient.newBuilder()
+                               .executor(clientExecutor)
+                               .connectTimeout(Duration.ofSeconds(10))
+                               .build();
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            if (errores.get() > 0) {
+                System.err.println(errores.get() + " peticiones con error 5xx o sin respuesta");
+            }
+            clientExecutor.shutdownNow();
+            context.close();
+        }
+
+        private HttpRequest nextRequest(int i) {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            Long psicologoId = psicologoIds.get(random.nextInt(psicologoIds.size()));
+            int tipo = i % 10;
+            if (tipo < 7) {
+                return HttpRequest.newBuilder(URI.create(base + "/appointments/psychologist/" + psicologoId + "/page?size=20"))
+                                  .GET().build();
+            }
+            if (tipo < 9) {
+                return HttpRequest.newBuilder(URI.create(base + "/reports/psychologist/" + psicologoId)).GET().build();
+            }
+            Long pacienteId = pacienteIds.get(random.nextInt(pacienteIds.size()));
+            // Un solapamiento (409) también cuenta: la validación consulta la base igual
+            String json = "{\"pacienteId\":" + pacienteId + ",\"psicologoId\":" + psicologoId +
+                          ",\"fechaHora\":\"" + LocalDateTime.now().plusHours(random.nextInt(1, 100_000)).withMinute(0).withSecond(0).withNano(0) +
+                          "\",\"modalidad\":\"PRESENCIAL\",\"precio\":80.0}";
+            return HttpRequest.newBuilder(URI.create(base + "/appointments"))
+                              .header("Content-Type", "application/json")
+                              .POST(HttpRequest.BodyPublishers.ofString(json)).build();
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(CLIENTES)
+    public int concurrentClients(ServerState state) {
+        CompletableFuture<?>[] respuestas = new CompletableFuture<?>[CLIENTES];
+        for (int i = 0; i < CLIENTES; i++) {
+            respuestas[i] = state.client.sendAsync(state.nextRequest(i), HttpResponse.BodyHandlers.discarding())
+                .handle((respuesta, error) -> {
+                    if (error != null || respuesta.statusCode() >= 500) {
+                        state.errores.incrementAndGet();
+                    }
+                    return null;
+                });
+        }
+        CompletableFuture.allOf(respuestas).join();
+        return state.errores.get();
+    }
+}
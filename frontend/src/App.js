@@ -1,4 +1,5 @@
 import React, { useState, useEffect } from "react";
+import axios from "axios";
 import {
   BrowserRouter as Router,
   Routes,
@@ -39,6 +40,14 @@ function App() {
       // Simular verificación de conectividad
       await checkConnectivity();
 
+      // Restaurar el token de sesión para las peticiones de axios
+      const sessionToken = localStorage.getItem(
+        APP_CONFIG.storageKeys.sessionToken
+      );
+      if (sessionToken) {
+        axios.defaults.headers.common["Authorization"] = `Bearer ${sessionToken}`;
+      }
+
       // Verificar usuario recordado
       const rememberedUser = localStorage.getItem(
         APP_CONFIG.storageKeys.rememberedUser
@@ -161,6 +170,7 @@ function App() {
       // Limpiar localStorage
       localStorage.removeItem(APP_CONFIG.storageKeys.rememberedUser);
       localStorage.removeItem(APP_CONFIG.storageKeys.sessionToken);
+      delete axios.defaults.headers.common["Authorization"];
 
       // Opcional: enviar métricas de logout
       trackUserLogout();
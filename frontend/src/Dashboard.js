@@ -223,7 +223,7 @@ function Dashboard({ user, setUser }) {
 
   const getProfileImageUrl = () => {
     if (user.fotoPerfil) {
-      return `${API_BASE}${user.fotoPerfil}`;
+      return `${API_BASE}${user.fotoPerfil}?size=64`;
     }
     return null;
   };
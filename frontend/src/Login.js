@@ -83,6 +83,13 @@ function Login({ setUser, onError, appConfig }) {
         throw new Error("Rol de usuario no válido");
       }
 
+      // Token firmado de la sesión: se envía en las siguientes peticiones
+      const token = response.headers["x-auth-token"];
+      if (token) {
+        localStorage.setItem("sessionToken", token);
+        axios.defaults.headers.common["Authorization"] = `Bearer ${token}`;
+      }
+
       setUser(userData);
 
       // Guardar en localStorage si remember está marcado
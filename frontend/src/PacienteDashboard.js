@@ -200,7 +200,7 @@ function PacienteDashboard({
 
   const getProfileImageUrl = () => {
     if (user.fotoPerfil) {
-      return `${API_BASE}${user.fotoPerfil}`;
+      return `${API_BASE}${user.fotoPerfil}?size=256`;
     }
     return null;
   };
@@ -564,9 +564,11 @@ function PacienteDashboard({
         nombrePsicologo: appointment.nombrePsicologo,
       };
 
+      // Un doble clic o reintento de la misma cita no crea un segundo pago
       const paymentResponse = await axios.post(
         `${API_BASE}/payments`,
-        paymentData
+        paymentData,
+        { headers: { "Idempotency-Key": `pago-cita-${appointmentId}` } }
       );
 
       if (paymentResponse.status === 200) {
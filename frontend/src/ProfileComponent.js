@@ -155,7 +155,7 @@ function ProfileComponent({ user, onUserUpdate }) {
 
   const getProfileImageUrl = () => {
     if (user.fotoPerfil) {
-      return `${API_BASE}${user.fotoPerfil}`;
+      return `${API_BASE}${user.fotoPerfil}?size=256`;
     }
     return null;
   };
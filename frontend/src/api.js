@@ -19,6 +19,10 @@ const api = axios.create({
 api.interceptors.request.use(
   (config) => {
     console.log(`🌐 API Request: ${config.method?.toUpperCase()} ${config.url}`);
+    const token = localStorage.getItem('sessionToken');
+    if (token) {
+      config.headers.Authorization = `Bearer ${token}`;
+    }
     return config;
   },
   (error) => {
@@ -41,6 +45,7 @@ api.interceptors.response.use(
       console.warn('🔐 Sesión expirada - redirigiendo al login');
       // Limpiar localStorage y redirigir
       localStorage.removeItem('rememberedUser');
+      localStorage.removeItem('sessionToken');
       window.location.href = '/login';
     }
     